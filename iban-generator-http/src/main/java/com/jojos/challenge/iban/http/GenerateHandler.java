@@ -0,0 +1,154 @@
+package com.jojos.challenge.iban.http;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.api.IbanApi;
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Handles {@code GET /iban/{country}?count=N}. The IBANs are generated in batches and written as they are
+ * generated, so the response of a large count starts immediately and is never held in memory.
+ *
+ * Batches cut short by collisions are topped up, a response always holds exactly {@code count} IBANs. If the
+ * IBANs of the country run out before the response started it is a 503, afterwards the connection is dropped
+ * so that the client sees an incomplete response rather than a short one.
+ */
+class GenerateHandler implements HttpHandler {
+
+    static final String PATH = "/iban/";
+
+    private static final Logger log = LoggerFactory.getLogger(GenerateHandler.class);
+
+    private static final int BATCH_SIZE = 1024;
+    private static final int BUFFER_SIZE = 1 << 16;
+    // generateBatch calls per batch, each already retrying collisions, before the country is deemed exhausted
+    private static final int MAX_ATTEMPTS = 10;
+
+    private final int maxCount;
+
+    GenerateHandler(int maxCount) {
+        this.maxCount = maxCount;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        boolean aborted = false;
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                IbanHttpServer.send(exchange, 405, "Only GET is supported.");
+                return;
+            }
+            String code = exchange.getRequestURI().getPath().substring(PATH.length());
+            CountryISO country = code.length() == 2 ? CountryISO.forCaseInsensitiveCode(code) : null;
+            if (country == null) {
+                IbanHttpServer.send(exchange, 404, String.format("Unknown country %s.", code));
+                return;
+            }
+            int count = parseCount(exchange.getRequestURI().getRawQuery());
+            if (count < 1 || count > maxCount) {
+                IbanHttpServer.send(exchange, 400, String.format("count must be between 1 and %d.", maxCount));
+                return;
+            }
+
+            // the first batch is generated before answering, so that an unsupported country is still a 400
+            int remaining = count;
+            int batch = Math.min(remaining, BATCH_SIZE);
+            List<Iban> ibans;
+            try {
+                ibans = IbanApi.generateBatch(country, batch);
+            } catch (IbanException e) {
+                IbanHttpServer.send(exchange, 400, e.getMessage());
+                return;
+            }
+            try {
+                ibans = topUp(country, ibans, batch);
+            } catch (IbanException e) {
+                IbanHttpServer.send(exchange, 503, e.getMessage());
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", IbanHttpServer.TEXT_PLAIN);
+            exchange.sendResponseHeaders(200, 0);
+            try (Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.US_ASCII), BUFFER_SIZE)) {
+                while (true) {
+                    for (Iban iban : ibans) {
+                        writer.write(iban.asString());
+                        writer.write('\n');
+                    }
+                    remaining -= batch;
+                    if (remaining == 0) {
+                        break;
+                    }
+                    batch = Math.min(remaining, BATCH_SIZE);
+                    try {
+                        ibans = topUp(country, IbanApi.generateBatch(country, batch), batch);
+                    } catch (IbanException e) {
+                        // the status is sent, closing the exchange would end the response as if complete
+                        aborted = true;
+                        throw new IOException(e.getMessage(), e);
+                    }
+                }
+            }
+        } finally {
+            if (!aborted) {
+                exchange.close();
+            }
+        }
+    }
+
+    /**
+     * @param country the country of the IBANs
+     * @param ibans a batch, possibly cut short by collisions
+     * @param count the size of the batch
+     * @return the batch with exactly {@code count} IBANs
+     * @throws IbanException if the batch cannot be filled.
+     */
+    private static List<Iban> topUp(CountryISO country, List<Iban> ibans, int count) throws IbanException {
+        if (ibans.size() == count) {
+            return ibans;
+        }
+        List<Iban> batch = new ArrayList<>(ibans);
+        for (int attempt = 1; batch.size() < count; attempt++) {
+            if (attempt == MAX_ATTEMPTS) {
+                String errorMsg = String.format("Only %d of %d IBANs of %s could be generated, the country is " +
+                        "nearly exhausted.", batch.size(), count, country);
+                log.error(errorMsg);
+                throw new IbanException(errorMsg);
+            }
+            batch.addAll(IbanApi.generateBatch(country, count - batch.size()));
+        }
+        return batch;
+    }
+
+    /**
+     * @param query the raw query string
+     * @return the value of the count parameter, 1 if missing, -1 if not a number.
+     */
+    private static int parseCount(String query) {
+        if (query == null) {
+            return 1;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith("count=")) {
+                try {
+                    return Integer.parseInt(parameter.substring("count=".length()));
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return 1;
+    }
+}
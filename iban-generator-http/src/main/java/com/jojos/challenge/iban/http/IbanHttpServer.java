@@ -0,0 +1,124 @@
+package com.jojos.challenge.iban.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exposes the IBAN generator over HTTP using the JDK's built-in server, for clients that are not running on a JVM.
+ * <ul>
+ *     <li>{@code GET /iban/{country}?count=N} generates N IBANs, one per line</li>
+ *     <li>{@code POST /validate} validates the IBANs of the request body, one per line, and answers one
+ *          {@code <iban> <true|false>} line per IBAN</li>
+ * </ul>
+ * Responses are streamed with chunked transfer encoding while they are produced. Requests are served by a
+ * fixed pool of worker threads.
+ *
+ * Usage: {@code java -jar iban-generator-http-1.0-SNAPSHOT-jar-with-dependencies.jar
+ * [--port 8080] [--workers 16] [--max-count 1000000]}
+ */
+public class IbanHttpServer implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(IbanHttpServer.class);
+
+    static final String TEXT_PLAIN = "text/plain; charset=US-ASCII";
+
+    private final HttpServer server;
+    private final ExecutorService workers;
+
+    /**
+     * @param address the address to listen to, port 0 picks a free port
+     * @param workerThreads the number of threads serving requests
+     * @param maxCount the maximum number of IBANs a single request can generate
+     * @throws IOException if the server cannot bind to the address
+     */
+    public IbanHttpServer(InetSocketAddress address, int workerThreads, int maxCount) throws IOException {
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "iban-http-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(address, 0);
+        server.setExecutor(workers);
+        server.createContext(GenerateHandler.PATH, new GenerateHandler(maxCount));
+        server.createContext(ValidateHandler.PATH, new ValidateHandler());
+    }
+
+    public IbanHttpServer start() {
+        server.start();
+        log.info(String.format("IBAN HTTP service listening on %s.", server.getAddress()));
+        return this;
+    }
+
+    /**
+     * @return the port the server listens to
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests and waits up to a second for the running ones to complete.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        workers.shutdown();
+        try {
+            workers.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Answers with a short plain text message.
+     *
+     * @param exchange the exchange to answer
+     * @param status the http status code
+     * @param message the message
+     * @throws IOException if writing fails
+     */
+    static void send(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + '\n').getBytes(StandardCharsets.US_ASCII);
+        exchange.getResponseHeaders().set("Content-Type", TEXT_PLAIN);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        int workers = Runtime.getRuntime().availableProcessors() * 2;
+        int maxCount = 1_000_000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--workers":
+                    workers = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--max-count":
+                    maxCount = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Usage: IbanHttpServer [--port 8080] [--workers 16] [--max-count 1000000]");
+                    System.exit(1);
+            }
+        }
+        IbanHttpServer server = new IbanHttpServer(new InetSocketAddress(port), workers, maxCount).start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+    }
+}
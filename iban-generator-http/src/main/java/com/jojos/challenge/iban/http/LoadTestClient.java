@@ -0,0 +1,138 @@
+package com.jojos.challenge.iban.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A simple closed loop load generator for the {@link IbanHttpServer}. Every thread sends its next request as
+ * soon as the previous response has been read completely, then the throughput and the latency percentiles of
+ * all requests after the warm up are reported.
+ *
+ * Usage: {@code LoadTestClient --url http://localhost:8080/iban/DE?count=100 [--threads 8] [--requests 10000]
+ * [--warmup 1000] [--body file]}. A body turns the requests into POSTs, e.g. against {@code /validate}.
+ */
+public class LoadTestClient {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int threads = 8;
+        int requests = 10_000;
+        int warmup = 1_000;
+        byte[] body = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--url":
+                    url = args[i + 1];
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--requests":
+                    requests = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--body":
+                    body = Files.readAllBytes(Paths.get(args[i + 1]));
+                    break;
+                default:
+                    url = null;
+                    i = args.length;
+            }
+        }
+        if (url == null) {
+            System.err.println("Usage: LoadTestClient --url <url> [--threads 8] [--requests 10000] " +
+                    "[--warmup 1000] [--body file]");
+            System.exit(1);
+        }
+
+        URL target = new URL(url);
+        run(target, body, threads, warmup);
+        long[] latencies = new long[requests];
+        LongAdder errors = new LongAdder();
+        long elapsed = run(target, body, threads, requests, latencies, errors);
+
+        Arrays.sort(latencies);
+        System.out.println(String.format("%d requests, %d errors, %d threads in %.3f s: %.1f requests/s",
+                requests, errors.sum(), threads, elapsed / 1e9, requests * 1e9 / elapsed));
+        for (double percentile : PERCENTILES) {
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(percentile / 100 * latencies.length) - 1);
+            System.out.println(String.format("p%-5s %10.3f ms", percentile, latencies[index] / 1e6));
+        }
+        System.out.println(String.format("max    %10.3f ms", latencies[latencies.length - 1] / 1e6));
+    }
+
+    private static void run(URL target, byte[] body, int threads, int requests) throws InterruptedException {
+        run(target, body, threads, requests, new long[requests], new LongAdder());
+    }
+
+    /**
+     * @return the elapsed nanos
+     */
+    private static long run(URL target, byte[] body, int threads, int requests, long[] latencies, LongAdder errors)
+            throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            executorService.submit(() -> {
+                byte[] buffer = new byte[1 << 16];
+                int request;
+                while ((request = next.getAndIncrement()) < requests) {
+                    long begin = System.nanoTime();
+                    if (!send(target, body, buffer)) {
+                        errors.increment();
+                    }
+                    latencies[request] = System.nanoTime() - begin;
+                }
+            });
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Sends one request and drains its response so that the connection is kept alive for the next one.
+     *
+     * @return true on a 200 response
+     */
+    private static boolean send(URL target, byte[] body, byte[] buffer) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) target.openConnection();
+            if (body != null) {
+                connection.setRequestMethod("POST");
+                connection.setDoOutput(true);
+                connection.setFixedLengthStreamingMode(body.length);
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(body);
+                }
+            }
+            int status = connection.getResponseCode();
+            try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (in != null) {
+                    while (in.read(buffer) != -1) {
+                        // drain
+                    }
+                }
+            }
+            return status == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
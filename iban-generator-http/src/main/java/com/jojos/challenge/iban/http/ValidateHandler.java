@@ -0,0 +1,63 @@
+package com.jojos.challenge.iban.http;
+
+import com.jojos.challenge.iban.api.IbanApi;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Handles {@code POST /validate}. The request body holds one IBAN per line, in compact or paper format.
+ * Every line is answered with the compact IBAN followed by {@code true} or {@code false}, while the request
+ * body is being read.
+ */
+class ValidateHandler implements HttpHandler {
+
+    static final String PATH = "/validate";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                IbanHttpServer.send(exchange, 405, "Only POST is supported.");
+                return;
+            }
+            if (!PATH.equals(exchange.getRequestURI().getPath())) {
+                IbanHttpServer.send(exchange, 404, "Not found.");
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", IbanHttpServer.TEXT_PLAIN);
+            exchange.sendResponseHeaders(200, 0);
+            StringBuilder compact = new StringBuilder(34);
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(exchange.getRequestBody(), StandardCharsets.US_ASCII), BUFFER_SIZE);
+                 Writer writer = new BufferedWriter(
+                         new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.US_ASCII), BUFFER_SIZE)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    compact.setLength(0);
+                    for (int i = 0; i < line.length(); i++) {
+                        char c = line.charAt(i);
+                        if (!Character.isWhitespace(c)) {
+                            compact.append(c);
+                        }
+                    }
+                    if (compact.length() == 0) {
+                        continue;
+                    }
+                    writer.append(compact).append(' ').write(IbanApi.isValid(compact) ? "true\n" : "false\n");
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
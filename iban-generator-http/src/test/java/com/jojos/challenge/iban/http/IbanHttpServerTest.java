@@ -0,0 +1,91 @@
+package com.jojos.challenge.iban.http;
+
+import com.jojos.challenge.iban.api.IbanApi;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Test class for {@link IbanHttpServer}
+ */
+public class IbanHttpServerTest {
+
+    private static IbanHttpServer server;
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = new IbanHttpServer(new InetSocketAddress("localhost", 0), 2, 10_000).start();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void testGenerate() throws IOException {
+        HttpURLConnection connection = open("/iban/de?count=2500");
+        Assert.assertEquals(200, connection.getResponseCode());
+        List<String> ibans = readLines(connection);
+        Assert.assertEquals(2500, ibans.size());
+        Assert.assertEquals(2500, new HashSet<>(ibans).size());
+        for (String iban : ibans) {
+            Assert.assertTrue(iban.startsWith("DE"));
+            Assert.assertTrue(IbanApi.isValid(iban));
+        }
+    }
+
+    @Test
+    public void testGenerateErrors() throws IOException {
+        Assert.assertEquals(404, open("/iban/XX").getResponseCode());
+        Assert.assertEquals(400, open("/iban/GR").getResponseCode());
+        Assert.assertEquals(400, open("/iban/AT?count=0").getResponseCode());
+        Assert.assertEquals(400, open("/iban/AT?count=10001").getResponseCode());
+    }
+
+    @Test
+    public void testValidate() throws IOException {
+        HttpURLConnection connection = open("/validate");
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write("AT61 1904 3002 3457 3201\n\nAT611904300234573202\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        Assert.assertEquals(200, connection.getResponseCode());
+        List<String> lines = readLines(connection);
+        Assert.assertEquals(2, lines.size());
+        Assert.assertEquals("AT611904300234573201 true", lines.get(0));
+        Assert.assertEquals("AT611904300234573202 false", lines.get(1));
+
+        Assert.assertEquals(405, open("/validate").getResponseCode());
+    }
+
+    private static HttpURLConnection open(String path) throws IOException {
+        return (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+    }
+
+    private static List<String> readLines(HttpURLConnection connection) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(connection.getInputStream(), StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
@@ -2,7 +2,6 @@ package com.jojos.challenge.iban.api;
 
 import com.jojos.challenge.iban.country.CountryFormat;
 import com.jojos.challenge.iban.format.IbanFormatter;
-import com.jojos.challenge.iban.util.SystemHelper;
 
 import java.util.Arrays;
 
@@ -62,10 +61,14 @@ public class Iban {
      * @return a string to be used as a key in a map
      */
     public String asKey() {
-        return String.format("%s%s%s",
-                getCountryFormat().getCountryISO().getCode(),
-                SystemHelper.toString(getCheckDigits()),
-                SystemHelper.toString(getBban()));
+        String code = countryFormat.getCountryISO().getCode();
+        char[] key = new char[4 + bban.length];
+        key[0] = code.charAt(0);
+        key[1] = code.charAt(1);
+        key[2] = (char) ('0' + checkDigits[0]);
+        key[3] = (char) ('0' + checkDigits[1]);
+        System.arraycopy(bban, 0, key, 4, bban.length);
+        return new String(key);
     }
 
     @Override
@@ -1,5 +1,9 @@
 package com.jojos.challenge.iban.api;
 
+import com.jojos.challenge.iban.audit.AuditSink;
+import com.jojos.challenge.iban.bank.Bank;
+import com.jojos.challenge.iban.bank.BankDirectory;
+import com.jojos.challenge.iban.bank.BankIndex;
 import com.jojos.challenge.iban.country.CountryFormat;
 import com.jojos.challenge.iban.country.CountryFormatProviderLimitedImpl;
 import com.jojos.challenge.iban.country.CountryISO;
@@ -7,14 +11,37 @@ import com.jojos.challenge.iban.country.CountryFormatProvider;
 import com.jojos.challenge.iban.country.CountryFormatProviderFactory;
 import com.jojos.challenge.iban.format.DefaultIbanFormatter;
 import com.jojos.challenge.iban.format.IbanFormatter;
+import com.jojos.challenge.iban.jfr.IbanEvents;
+import com.jojos.challenge.iban.lease.BlockLeases;
+import com.jojos.challenge.iban.national.NationalCheckDigits;
+import com.jojos.challenge.iban.partition.NodePartition;
+import com.jojos.challenge.iban.prefetch.IbanPrefetcher;
+import com.jojos.challenge.iban.prefix.PrefixEnumerator;
+import com.jojos.challenge.iban.prefix.PrefixSpace;
+import com.jojos.challenge.iban.registry.CompressedIbanRegistry;
+import com.jojos.challenge.iban.registry.ConcurrentMapIbanRegistry;
+import com.jojos.challenge.iban.registry.ExclusionSet;
+import com.jojos.challenge.iban.registry.IbanRegistry;
+import com.jojos.challenge.iban.registry.RegistrySnapshot;
+import com.jojos.challenge.iban.util.AliasTable;
 import com.jojos.challenge.iban.util.Helper;
-import com.jojos.challenge.iban.util.SystemHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToLongFunction;
 
 /**
  * Clients of the IBAN generator should use the methods exposed in this class.
@@ -26,11 +53,25 @@ import java.util.concurrent.ConcurrentMap;
 public class IbanApi {
     private static final Logger log = LoggerFactory.getLogger(IbanApi.class);
 
-    private static final IbanFormatter IBAN_FORMATTER = new DefaultIbanFormatter();
-    private static final CountryFormatProvider COUNTRY_PROVIDER =
-            CountryFormatProviderFactory.getDefaultCountryFormatProvider();
+    public static final String REGISTRY_PROPERTY = "iban.registry";
 
-    private final static ConcurrentMap<CountryISO, Map<String, Iban>> ibans = new ConcurrentHashMap<>();
+    private final static ConcurrentMap<String, PrefixSpace> PREFIX_SPACES = new ConcurrentHashMap<>();
+
+    private static volatile IbanPrefetcher prefetcher;
+
+    private static volatile BlockLeases blockLeases;
+
+    private static volatile NodePartition nodePartition;
+
+    private static volatile ExclusionSet exclusions = ExclusionSet.EMPTY;
+
+    private static volatile BankDirectory bankDirectory = BankDirectory.EMPTY;
+
+    private static volatile BankIndex bankIndex = BankIndex.EMPTY;
+
+    private static volatile AuditSink auditSink;
+
+    private static final ToLongFunction<CountryISO> REGISTRY_SIZE = country -> RegistryHolder.REGISTRY.size(country);
 
     /**
      * Generate a syntactically valid IBAN according to the ISO standard for the specified country.
@@ -45,7 +86,239 @@ public class IbanApi {
      * @throws IbanException if the country is not supported.
      */
     public static Iban generateFor(CountryISO country) throws IbanException {
-        return generateFor(country, IBAN_FORMATTER, COUNTRY_PROVIDER);
+        IbanPrefetcher currentPrefetcher = prefetcher;
+        if (currentPrefetcher != null) {
+            Iban iban = currentPrefetcher.poll(country);
+            if (iban != null) {
+                return iban;
+            }
+        }
+        return generateFor(country, Defaults.IBAN_FORMATTER, Defaults.COUNTRY_PROVIDER);
+    }
+
+    /**
+     * Opt-in audit trail of the generated IBANs. Generating threads hand the sampled IBANs to a lock-free ring
+     * buffer, a background thread writes them to rolling files of the directory. Any previously enabled sink is
+     * closed. Without a sink auditing costs a single volatile read per IBAN.
+     *
+     * @param directory the directory of the audit files
+     * @param format the format of the records
+     * @param sampling 1 to audit every IBAN, n to audit one in n on average
+     * @return the sink, exposing the written and dropped counters
+     * @throws IOException if the directory cannot be created
+     *
+     * @see AuditSink
+     */
+    public static AuditSink enableAudit(Path directory, AuditSink.Format format, int sampling) throws IOException {
+        AuditSink newSink = new AuditSink(directory, format, sampling).start();
+        AuditSink previous = auditSink;
+        auditSink = newSink;
+        if (previous != null) {
+            previous.close();
+        }
+        return newSink;
+    }
+
+    /**
+     * Stops auditing once the IBANs audited so far are written.
+     */
+    public static void disableAudit() {
+        AuditSink previous = auditSink;
+        auditSink = null;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Opt-in prefetching for {@link #generateFor(CountryISO)}. Background threads keep up to {@code capacity}
+     * IBANs per country ready, so that a call is served by a single poll. Calls fall back to inline generation
+     * whenever the buffer of the country is empty. Any previously enabled prefetcher is closed.
+     *
+     * @param capacity the number of IBANs to keep per country
+     * @param lowWatermark the number of buffered IBANs at or below which a country is refilled
+     * @param producerThreads the number of background threads
+     * @param countries the countries to prefetch IBANs for
+     * @return the prefetcher, exposing the hit and miss counters
+     * @throws IbanException if a country is not supported.
+     *
+     * @see IbanPrefetcher
+     */
+    public static IbanPrefetcher enablePrefetch(int capacity, int lowWatermark, int producerThreads,
+                                                CountryISO... countries) throws IbanException {
+        IbanPrefetcher newPrefetcher = new IbanPrefetcher(Defaults.IBAN_FORMATTER, Defaults.COUNTRY_PROVIDER,
+                Arrays.asList(countries), capacity, lowWatermark, producerThreads).start();
+        IbanPrefetcher previous = prefetcher;
+        prefetcher = newPrefetcher;
+        if (previous != null) {
+            previous.close();
+        }
+        return newPrefetcher;
+    }
+
+    /**
+     * Stops prefetching, {@link #generateFor(CountryISO)} generates inline again.
+     */
+    public static void disablePrefetch() {
+        IbanPrefetcher previous = prefetcher;
+        prefetcher = null;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Opt-in uniqueness across JVMs: the BBANs of all the generation methods are taken from blocks leased through
+     * the shared control file, per country or per prefix, so that e.g. the forks of a parallel test run never
+     * generate the same IBAN. Any previously enabled leases are closed.
+     *
+     * @param controlFile the control file, shared by all the JVMs and created if missing
+     * @param blockSize the number of BBANs leased at once
+     * @throws IOException if the control file cannot be mapped.
+     *
+     * @see BlockLeases
+     */
+    public static void enableBlockLeasing(Path controlFile, int blockSize) throws IOException {
+        BlockLeases previous = blockLeases;
+        blockLeases = BlockLeases.open(controlFile, blockSize);
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Stops leasing, BBANs are random again.
+     */
+    public static void disableBlockLeasing() {
+        BlockLeases previous = blockLeases;
+        blockLeases = null;
+        if (previous != null) {
+            try {
+                previous.close();
+            } catch (IOException e) {
+                log.warn(String.format("Failed to close %s.", previous.getFile()), e);
+            }
+        }
+    }
+
+    /**
+     * Coordination-free uniqueness across the nodes of a generator fleet: the leading characters of the account
+     * number of every random BBAN hold the node id, so nodes with distinct ids never generate the same IBAN.
+     * Generation bound to a prefix takes the node's part of the BBANs of the prefix instead.
+     * The capacity of the node for every supported country is logged.
+     *
+     * @param nodeId the id of this node in {@code [0, nodeCount)}
+     * @param nodeCount the number of nodes of the fleet
+     * @return the partition of this node
+     * @throws IbanException if the account number of a supported country cannot hold the node id.
+     *
+     * @see NodePartition
+     */
+    public static NodePartition enableNodePartition(int nodeId, int nodeCount) throws IbanException {
+        NodePartition partition = new NodePartition(nodeId, nodeCount);
+        List<CountryFormat> countryFormats = new ArrayList<>();
+        for (CountryFormat countryFormat : CountryFormat.values()) {
+            if (Defaults.COUNTRY_PROVIDER.isCountrySupported(countryFormat.getCountryISO())) {
+                partition.capacity(countryFormat);
+                countryFormats.add(countryFormat);
+            }
+        }
+        partition.report(countryFormats);
+        nodePartition = partition;
+        return partition;
+    }
+
+    /**
+     * Stops partitioning, the whole account number is random again.
+     */
+    public static void disableNodePartition() {
+        nodePartition = null;
+    }
+
+    /**
+     * Loads IBANs that must never be generated, e.g. real customer accounts, replacing the previously loaded ones.
+     * Every generation method skips them from then on.
+     *
+     * @param file a file of one IBAN per line
+     * @return the loaded set
+     * @throws IOException if reading fails
+     *
+     * @see ExclusionSet
+     */
+    public static ExclusionSet loadExclusions(Path file) throws IOException {
+        ExclusionSet exclusionSet = ExclusionSet.load(file);
+        exclusions = exclusionSet;
+        return exclusionSet;
+    }
+
+    /**
+     * Forgets the loaded exclusions.
+     */
+    public static void clearExclusions() {
+        exclusions = ExclusionSet.EMPTY;
+    }
+
+    /**
+     * Loads a directory of real bank codes, replacing the previously loaded one. From then on the random BBANs
+     * of the countries of the directory carry one of its bank codes, drawn by the weights of the directory.
+     * BBANs leased by {@link #enableBlockLeasing(Path, int)} or bound to a prefix keep their own bank codes.
+     *
+     * @param file the directory file
+     * @return the loaded directory
+     * @throws IOException if reading fails
+     *
+     * @see BankDirectory
+     */
+    public static BankDirectory loadBankDirectory(Path file) throws IOException {
+        BankDirectory directory = BankDirectory.load(file);
+        bankDirectory = directory;
+        return directory;
+    }
+
+    /**
+     * Forgets the loaded bank directory, bank codes are random again.
+     */
+    public static void clearBankDirectory() {
+        bankDirectory = BankDirectory.EMPTY;
+    }
+
+    /**
+     * Indexes the banks of a directory file for {@link #lookupBank(Iban)}. The new index is built completely
+     * before it replaces the previous one, lookups running meanwhile are answered by the previous one.
+     *
+     * @param file the directory file
+     * @return the loaded index
+     * @throws IOException if reading fails
+     *
+     * @see BankIndex
+     */
+    public static BankIndex loadBankIndex(Path file) throws IOException {
+        BankIndex index = BankIndex.load(file);
+        bankIndex = index;
+        return index;
+    }
+
+    /**
+     * Forgets the loaded bank index.
+     */
+    public static void clearBankIndex() {
+        bankIndex = BankIndex.EMPTY;
+    }
+
+    /**
+     * @param iban the iban
+     * @return the bank of the iban according to the loaded bank index, null if it is not listed
+     */
+    public static Bank lookupBank(Iban iban) {
+        return bankIndex.lookup(iban);
+    }
+
+    /**
+     * @param iban the iban in its compact form
+     * @return the bank of the iban according to the loaded bank index, null if it is not listed
+     */
+    public static Bank lookupBank(CharSequence iban) {
+        return bankIndex.lookup(iban);
     }
 
     /**
@@ -65,20 +338,370 @@ public class IbanApi {
     public static Iban generateFor(CountryISO country,
                                     IbanFormatter ibanFormatter,
                                     CountryFormatProvider countryFormatProvider) throws IbanException {
-        return generateFor(country, ibanFormatter, countryFormatProvider, 0);
+        return generateIban(country, ibanFormatter, countryFormatProvider, null);
+    }
+
+    /**
+     * Same as {@link #generateFor(CountryISO, IbanFormatter, CountryFormatProvider)} with the difference that
+     * the source of randomness is declared. Bulk generators use one per thread, e.g.
+     * {@link java.util.concurrent.ThreadLocalRandom#current()}, instead of contending on the shared one.
+     *
+     * @param country The country for which a valid IBAN is generated for
+     * @param ibanFormatter implementation of iban output formatter
+     * @param countryFormatProvider implementation of the {@link CountryFormatProvider} interface.
+     * @param random the source of randomness
+     * @return a syntactically valid IBAN or null if the tool failed to generate a unique within the specific instance
+     * of the tool IBAN number.
+     * @throws IbanException if the country is not supported.
+     */
+    public static Iban generateFor(CountryISO country,
+                                   IbanFormatter ibanFormatter,
+                                   CountryFormatProvider countryFormatProvider,
+                                   Random random) throws IbanException {
+        return generateIban(country, ibanFormatter, countryFormatProvider, random);
+    }
+
+    /**
+     * Generate a syntactically valid IBAN for the specified country whose BBAN starts with the prefix,
+     * typically a fixed BANK_CODE such as a German BLZ.
+     *
+     * Only the free characters after the prefix are generated, each prefix keeping track of its own BBANs,
+     * so the cost of a call stays constant however many IBANs of the prefix were generated before.
+     *
+     * With block leasing enabled the BBANs of the prefix are leased like the others, with a node partition enabled
+     * every node takes its own part of them.
+     *
+     * @param country The country for which a valid IBAN is generated for
+     * @param prefixConstraint the leading characters of the BBAN, e.g. "37040044"
+     * @return a syntactically valid IBAN
+     * @throws IbanException if the country is not supported, the prefix does not match the format of the country
+     * or all the IBANs of the prefix have been generated.
+     *
+     * @see PrefixSpace
+     */
+    public static Iban generateFor(CountryISO country, String prefixConstraint) throws IbanException {
+        return generateFor(country, prefixConstraint, Defaults.IBAN_FORMATTER, Defaults.COUNTRY_PROVIDER);
+    }
+
+    /**
+     * Same as {@link #generateFor(CountryISO, String)} with the difference that the {@link IbanFormatter}
+     * and the {@link CountryFormatProvider} are explicitly declared.
+     *
+     * @param country The country for which a valid IBAN is generated for
+     * @param prefixConstraint the leading characters of the BBAN, e.g. "37040044"
+     * @param ibanFormatter implementation of iban output formatter
+     * @param countryFormatProvider implementation of the {@link CountryFormatProvider} interface.
+     * @return a syntactically valid IBAN
+     * @throws IbanException if the country is not supported, the prefix does not match the format of the country
+     * or all the IBANs of the prefix have been generated.
+     */
+    public static Iban generateFor(CountryISO country,
+                                   String prefixConstraint,
+                                   IbanFormatter ibanFormatter,
+                                   CountryFormatProvider countryFormatProvider) throws IbanException {
+        if (!countryFormatProvider.isCountrySupported(country)) {
+            String errorMsg = String.format("%s country not supported.", country);
+            log.error(errorMsg);
+            throw new IbanException(errorMsg);
+        }
+        CountryFormat countryFormat = countryFormatProvider.getCountryFormat(country);
+        BlockLeases leases = blockLeases;
+        PrefixSpace prefixSpace = leases == null ? prefixSpace(countryFormat, prefixConstraint) : null;
+        char[] bban;
+        // every BBAN of the space is handed out once, only IBANs reserved by other means are skipped
+        while ((bban = prefixSpace == null ? leases.nextBban(countryFormat, prefixConstraint) :
+                prefixSpace.nextBban()) != null) {
+            if (exclusions.contains(countryFormat, bban)) {
+                continue;
+            }
+            Iban iban = new Iban(countryFormat, Helper.generateCheckDigits(bban, country), bban, ibanFormatter);
+            if (RegistryHolder.REGISTRY.reserve(iban)) {
+                IbanEvents.generated(country, 1, REGISTRY_SIZE);
+                audit(iban);
+                return iban;
+            }
+            IbanEvents.collision(country, 1, 0);
+        }
+        String errorMsg = String.format("All the IBANs of %s with prefix %s have been generated.",
+                country, prefixConstraint);
+        log.error(errorMsg);
+        throw new IbanException(errorMsg);
+    }
+
+    /**
+     * @return the space of the prefix, or the part of this node of it if a node partition is enabled
+     */
+    private static PrefixSpace prefixSpace(CountryFormat countryFormat, String prefixConstraint) {
+        String prefixKey = countryFormat.getCountryISO().getCode() + prefixConstraint;
+        NodePartition partition = nodePartition;
+        if (partition == null) {
+            return PREFIX_SPACES.computeIfAbsent(prefixKey, key -> PrefixSpace.of(countryFormat, prefixConstraint));
+        }
+        // all the nodes share the permutation of the prefix and take disjoint parts of it
+        return PREFIX_SPACES.computeIfAbsent(prefixKey + '/' + partition.getNodeId() + '/' + partition.getNodeCount(),
+                key -> PrefixSpace.of(countryFormat, prefixConstraint, prefixKey.hashCode())
+                        .part(partition.getNodeId(), partition.getNodeCount()));
+    }
+
+    /**
+     * Enumerates all the IBANs of a country sharing a BBAN prefix in ascending order, e.g. for an exhaustive test
+     * of one bank code. The check digits of each IBAN are updated from those of the one before.
+     * {@code StreamSupport.stream(IbanApi.enumerate(CountryISO.DE, "37040044"), true)} enumerates in parallel,
+     * {@link PrefixEnumerator#range(long, long)} hands out disjoint parts.
+     *
+     * The enumerated IBANs are not reserved, i.e. the generation methods may generate them too, nor checked against
+     * the exclusions of {@link #loadExclusions(Path)}.
+     *
+     * @param country The country of the IBANs
+     * @param prefixConstraint the leading characters of the BBAN, e.g. "37040044"
+     * @return the enumerator of the IBANs
+     * @throws IbanException if the country is not supported, the prefix does not match the format of the country or
+     * covers an invalid national check digit.
+     *
+     * @see PrefixEnumerator
+     */
+    public static PrefixEnumerator enumerate(CountryISO country, String prefixConstraint) throws IbanException {
+        if (!Defaults.COUNTRY_PROVIDER.isCountrySupported(country)) {
+            String errorMsg = String.format("%s country not supported.", country);
+            log.error(errorMsg);
+            throw new IbanException(errorMsg);
+        }
+        return PrefixEnumerator.of(Defaults.COUNTRY_PROVIDER.getCountryFormat(country), prefixConstraint,
+                Defaults.IBAN_FORMATTER);
+    }
+
+    /**
+     * Generates {@code count} IBANs for the specified country in one call.
+     *
+     * @param country The country for which valid IBANs are generated for
+     * @param count the number of IBANs to generate
+     * @return the generated IBANs
+     * @throws IbanException if the country is not supported.
+     *
+     * @see #generateFor(CountryISO)
+     */
+    public static List<Iban> generateBatch(CountryISO country, int count) throws IbanException {
+        return generateBatch(country, count, Defaults.IBAN_FORMATTER, Defaults.COUNTRY_PROVIDER);
+    }
+
+    /**
+     * Same as {@link #generateBatch(CountryISO, int)} with the difference that the {@link IbanFormatter}
+     * and the {@link CountryFormatProvider} are explicitly declared.
+     *
+     * The whole batch is generated first, its check digits computed in lockstep by
+     * {@link Helper#generateCheckNumbers(char[][], CountryISO)}, and then reserved with a single
+     * {@link IbanRegistry#reserveAll(List)}.
+     * IBANs that turn out to be already generated are re-generated the same way, at most 3 times in total,
+     * so the batch might contain fewer IBANs than requested.
+     *
+     * @param country The country for which valid IBANs are generated for
+     * @param count the number of IBANs to generate
+     * @param ibanFormatter implementation of iban output formatter
+     * @param countryFormatProvider implementation of the {@link CountryFormatProvider} interface.
+     * @return the generated IBANs
+     * @throws IbanException if the country is not supported.
+     */
+    public static List<Iban> generateBatch(CountryISO country,
+                                           int count,
+                                           IbanFormatter ibanFormatter,
+                                           CountryFormatProvider countryFormatProvider) throws IbanException {
+        if (!countryFormatProvider.isCountrySupported(country)) {
+            String errorMsg = String.format("%s country not supported.", country);
+            log.error(errorMsg);
+            throw new IbanException(errorMsg);
+        }
+        CountryFormat countryFormat = countryFormatProvider.getCountryFormat(country);
+        List<Iban> ibans = new ArrayList<>(count);
+        IbanEvents.Generation event = IbanEvents.beginGeneration();
+        int attempt = 0;
+        for (; attempt < 3 && ibans.size() < count; attempt++) {
+            int missing = count - ibans.size();
+            char[][] bbans = new char[missing][];
+            ExclusionSet currentExclusions = exclusions;
+            for (int i = 0; i < missing; i++) {
+                do {
+                    bbans[i] = nextBban(countryFormat, null);
+                } while (currentExclusions.contains(countryFormat, bbans[i]));
+            }
+            int[] checkNumbers = Helper.generateCheckNumbers(bbans, country);
+            List<Iban> candidates = new ArrayList<>(missing);
+            for (int i = 0; i < missing; i++) {
+                int[] checkDigits = {checkNumbers[i] / 10, checkNumbers[i] % 10};
+                candidates.add(new Iban(countryFormat, checkDigits, bbans[i], ibanFormatter));
+            }
+            List<Iban> reserved = RegistryHolder.REGISTRY.reserveAll(candidates);
+            if (reserved.size() < missing) {
+                if (log.isWarnEnabled()) {
+                    log.warn(String.format("%d of %d IBANs were generated before. Re-generate!",
+                            missing - reserved.size(), missing));
+                }
+                IbanEvents.collision(country, missing - reserved.size(), attempt);
+            }
+            ibans.addAll(reserved);
+        }
+        AuditSink sink = auditSink;
+        if (sink != null) {
+            ibans.forEach(sink::record);
+        }
+        IbanEvents.generated(country, ibans.size(), REGISTRY_SIZE);
+        event.end(country, ibans.size(), Math.max(0, attempt - 1));
+        return ibans;
+    }
+
+    /**
+     * Generates {@code count} IBANs of several countries mixed by weight, e.g. 60% DE, 25% NL and 15% AT.
+     *
+     * @param weights the relative weights of the countries, not necessarily adding up to 1
+     * @param count the number of IBANs to generate
+     * @return the generated IBANs, the countries in random order
+     * @throws IbanException if a country is not supported.
+     *
+     * @see #generateBatch(CountryISO, int)
+     */
+    public static List<Iban> generateMixed(Map<CountryISO, Double> weights, int count) throws IbanException {
+        return generateMixed(weights, count, Defaults.IBAN_FORMATTER, Defaults.COUNTRY_PROVIDER);
+    }
+
+    /**
+     * Same as {@link #generateMixed(Map, int)} with the difference that the {@link IbanFormatter}
+     * and the {@link CountryFormatProvider} are explicitly declared.
+     *
+     * The country of every position is drawn first from an {@link AliasTable} of the weights, in constant time per
+     * IBAN. The IBANs of each country are then generated as one {@link #generateBatch(CountryISO, int)} and dealt
+     * out to the positions of the country in drawing order. Like a batch, the result might contain fewer IBANs
+     * than requested.
+     *
+     * @param weights the relative weights of the countries, not necessarily adding up to 1
+     * @param count the number of IBANs to generate
+     * @param ibanFormatter implementation of iban output formatter
+     * @param countryFormatProvider implementation of the {@link CountryFormatProvider} interface.
+     * @return the generated IBANs, the countries in random order
+     * @throws IbanException if a country is not supported.
+     * @throws IllegalArgumentException if the count is negative or a weight is missing or invalid.
+     */
+    public static List<Iban> generateMixed(Map<CountryISO, Double> weights,
+                                           int count,
+                                           IbanFormatter ibanFormatter,
+                                           CountryFormatProvider countryFormatProvider) throws IbanException {
+        if (count < 0) {
+            throw new IllegalArgumentException(String.format("Invalid count %d.", count));
+        }
+        CountryISO[] countries = weights.keySet().toArray(new CountryISO[weights.size()]);
+        double[] countryWeights = new double[countries.length];
+        for (int i = 0; i < countries.length; i++) {
+            if (!countryFormatProvider.isCountrySupported(countries[i])) {
+                String errorMsg = String.format("%s country not supported.", countries[i]);
+                log.error(errorMsg);
+                throw new IbanException(errorMsg);
+            }
+            Double weight = weights.get(countries[i]);
+            if (weight == null) {
+                throw new IllegalArgumentException(String.format("No weight for %s.", countries[i]));
+            }
+            countryWeights[i] = weight;
+        }
+        AliasTable table = new AliasTable(countryWeights);
+        Random random = ThreadLocalRandom.current();
+        int[] drawn = new int[count];
+        int[] counts = new int[countries.length];
+        for (int i = 0; i < count; i++) {
+            drawn[i] = table.sample(random);
+            counts[drawn[i]]++;
+        }
+        List<List<Iban>> batches = new ArrayList<>(countries.length);
+        for (int i = 0; i < countries.length; i++) {
+            batches.add(counts[i] == 0 ? Collections.emptyList() :
+                    generateBatch(countries[i], counts[i], ibanFormatter, countryFormatProvider));
+        }
+        int[] next = new int[countries.length];
+        List<Iban> ibans = new ArrayList<>(count);
+        for (int country : drawn) {
+            List<Iban> batch = batches.get(country);
+            if (next[country] < batch.size()) {
+                ibans.add(batch.get(next[country]++));
+            }
+        }
+        return ibans;
+    }
+
+    /**
+     * Asynchronous version of {@link #generateFor(CountryISO)}. The IBAN is generated by the executor,
+     * the calling thread never blocks.
+     *
+     * The generation path does not enter any monitor, so it is safe to be run by executors
+     * multiplexing many tasks over few carrier threads.
+     *
+     * @param country The country for which a valid IBAN is generated for
+     * @param executor the executor generating the IBAN
+     * @return a future completed with the IBAN, or completed exceptionally with an {@link IbanException}
+     * if the country is not supported.
+     */
+    public static CompletableFuture<Iban> generateAsync(CountryISO country, Executor executor) {
+        return generateAsync(country, Defaults.IBAN_FORMATTER, Defaults.COUNTRY_PROVIDER, executor);
+    }
+
+    /**
+     * Asynchronous version of {@link #generateFor(CountryISO, IbanFormatter, CountryFormatProvider)}.
+     *
+     * @param country The country for which a valid IBAN is generated for
+     * @param ibanFormatter implementation of iban output formatter
+     * @param countryFormatProvider implementation of the {@link CountryFormatProvider} interface.
+     * @param executor the executor generating the IBAN
+     * @return a future completed with the IBAN, or completed exceptionally with an {@link IbanException}
+     * if the country is not supported.
+     */
+    public static CompletableFuture<Iban> generateAsync(CountryISO country,
+                                                        IbanFormatter ibanFormatter,
+                                                        CountryFormatProvider countryFormatProvider,
+                                                        Executor executor) {
+        return CompletableFuture.supplyAsync(() -> generateFor(country, ibanFormatter, countryFormatProvider), executor);
+    }
+
+    /**
+     * Asynchronous version of {@link #generateBatch(CountryISO, int)}. The whole batch is generated by a single
+     * task of the executor.
+     *
+     * @param country The country for which valid IBANs are generated for
+     * @param count the number of IBANs to generate
+     * @param executor the executor generating the IBANs
+     * @return a future completed with the IBANs, or completed exceptionally with an {@link IbanException}
+     * if the country is not supported.
+     */
+    public static CompletableFuture<List<Iban>> generateBatchAsync(CountryISO country, int count, Executor executor) {
+        return generateBatchAsync(country, count, Defaults.IBAN_FORMATTER, Defaults.COUNTRY_PROVIDER, executor);
+    }
+
+    /**
+     * Asynchronous version of {@link #generateBatch(CountryISO, int, IbanFormatter, CountryFormatProvider)}.
+     *
+     * @param country The country for which valid IBANs are generated for
+     * @param count the number of IBANs to generate
+     * @param ibanFormatter implementation of iban output formatter
+     * @param countryFormatProvider implementation of the {@link CountryFormatProvider} interface.
+     * @param executor the executor generating the IBANs
+     * @return a future completed with the IBANs, or completed exceptionally with an {@link IbanException}
+     * if the country is not supported.
+     */
+    public static CompletableFuture<List<Iban>> generateBatchAsync(CountryISO country,
+                                                                   int count,
+                                                                   IbanFormatter ibanFormatter,
+                                                                   CountryFormatProvider countryFormatProvider,
+                                                                   Executor executor) {
+        return CompletableFuture.supplyAsync(
+                () -> generateBatch(country, count, ibanFormatter, countryFormatProvider), executor);
     }
 
     /**
      * Same as {@link #generateFor(CountryISO, IbanFormatter, CountryFormatProvider)} with the difference that
-     * a counter is also declared.
+     * the source of randomness is also declared.
      * The IBAN generator tool must guarantee uniqueness of the generated IBAN's within a specific instance of the tool
-     * and therefore this method might be called multiple times recursively if the generated IBAN is the same.
-     * Don't allow to be called more than 3 consecutive times.
+     * and therefore another IBAN is generated if the generated one was generated before or is excluded,
+     * at most 3 attempts in total.
      *
      * @param country The country for which a valid IBAN is generated for
      * @param ibanFormatter implementation of iban output formatter
      * @param countryFormatProvider implementation of the {@link CountryFormatProvider} interface.
-     * @param counter maximum 5 times is allowed to for this method to be called recursively.
+     * @param random the source of randomness, null for the shared one
      * @return a syntactically valid IBAN or null if the tool failed to generate a unique within the specific instance
      * of the tool IBAN number.
      * @throws IbanException if the country is not supported.
@@ -86,36 +709,144 @@ public class IbanApi {
      * @see IbanFormatter
      * @see CountryFormatProvider
      */
-    private static Iban generateFor(CountryISO country,
-                                    IbanFormatter ibanFormatter,
-                                    CountryFormatProvider countryFormatProvider,
-                                    int counter) throws IbanException {
-        if (counter > 2) {
-            return null;
-        }
-        if (countryFormatProvider.isCountrySupported(country)) {
-            CountryFormat countryFormat = countryFormatProvider.getCountryFormat(country);
-            char[] bban = Helper.randomForCountry(countryFormat);
+    private static Iban generateIban(CountryISO country,
+                                     IbanFormatter ibanFormatter,
+                                     CountryFormatProvider countryFormatProvider,
+                                     Random random) throws IbanException {
+        if (!countryFormatProvider.isCountrySupported(country)) {
+            String errorMsg = String.format("%s country not supported.", country);
+            log.error(errorMsg);
+            throw new IbanException(errorMsg);
+        }
+        CountryFormat countryFormat = countryFormatProvider.getCountryFormat(country);
+        IbanEvents.Generation event = IbanEvents.beginGeneration();
+        for (int attempt = 0; attempt < 3; attempt++) {
+            char[] bban = nextBban(countryFormat, random);
+            if (exclusions.contains(countryFormat, bban)) {
+                // a real account, never handed out, generate another one
+                continue;
+            }
             int[] checkDigits = Helper.generateCheckDigits(bban, country);
             Iban iban = new Iban(countryFormat, checkDigits, bban, ibanFormatter);
-            if (store(iban) != null) {
+            if (RegistryHolder.REGISTRY.reserve(iban)) {
+                IbanEvents.generated(country, 1, REGISTRY_SIZE);
+                event.end(country, 1, attempt);
+                audit(iban);
+                return iban;
+            }
+            // our random generator managed to produce two identical ibans.
+            // Attempt to generate it one more time. Hopefully this time we are luckier
+            if (log.isWarnEnabled()) {
                 log.warn(String.format("It seems that %s was generated twice. Re-generate!", iban.asHumanReadableString()));
-                // at this point we know that what we stored replaced an different instance of the same Iban
-                // i.e. our random generator managed to produce two identical ibans.
-                // Attempt to generate it one more time. Hopefully this time we are luckier
-                generateFor(country, ibanFormatter, countryFormatProvider, ++counter);
             }
-            log.info(String.format("Iban generated %s", iban.asHumanReadableString()));
-            return iban;
-        } else {
-            String errorMsg = String.format("%s country not supported.", country);
-            log.error(errorMsg);
-            throw new IbanException(errorMsg);
+            IbanEvents.collision(country, 1, attempt);
+        }
+        event.end(country, 0, 3);
+        return null;
+    }
+
+    private static void audit(Iban iban) {
+        AuditSink sink = auditSink;
+        if (sink != null) {
+            sink.record(iban);
         }
     }
 
-    private static Iban store(Iban iban) {
-        // the actual point of synchronization is inside the helper function
-        return SystemHelper.addToContainedMap(ibans, iban.getCountryFormat().getCountryISO(), iban.asKey(), iban);
+    /**
+     * @param random the source of randomness, null for the shared one
+     * @return a leased bban if block leasing is enabled, a random one of this node otherwise, with a bank code of
+     * the bank directory if one is loaded
+     */
+    private static char[] nextBban(CountryFormat countryFormat, Random random) {
+        BlockLeases leases = blockLeases;
+        if (leases != null) {
+            char[] bban = leases.nextBban(countryFormat);
+            if (bban != null) {
+                return bban;
+            }
+        }
+        char[] bban = random == null ? Helper.randomForCountry(countryFormat) :
+                Helper.randomForCountry(countryFormat, random);
+        if (bankDirectory.drawInto(countryFormat, bban, random == null ? ThreadLocalRandom.current() : random)) {
+            // the method of the national check digit may depend on the bank
+            NationalCheckDigits.apply(countryFormat, bban);
+        }
+        NodePartition partition = nodePartition;
+        if (partition != null) {
+            partition.stamp(countryFormat, bban);
+        }
+        return bban;
+    }
+
+    /**
+     * Checks that the iban is syntactically valid according to the ISO standard: known country format,
+     * correct length, BBAN characters matching the format and correct check digits.
+     *
+     * @param iban the iban in its compact form, i.e. without spaces
+     * @return true if the iban is valid, false otherwise.
+     */
+    public static boolean isValid(CharSequence iban) {
+        return Helper.isValid(iban);
+    }
+
+    /**
+     * Same as {@link #isValid(CharSequence)} for many IBANs at once, their check digits being verified
+     * in lockstep. Meant for bulk validation.
+     *
+     * @param ibans the ibans in their compact form
+     * @return the validity of the iban of the same index
+     */
+    public static boolean[] areValid(CharSequence[] ibans) {
+        boolean[] valid = new boolean[ibans.length];
+        Helper.areValid(ibans, valid);
+        return valid;
+    }
+
+    /**
+     * Writes a point-in-time snapshot of the IBANs generated so far into the directory, one file per country.
+     *
+     * @param directory the snapshot directory, it is created if missing
+     * @return the number of IBANs written
+     * @throws IOException if writing fails
+     *
+     * @see RegistrySnapshot
+     */
+    public static long snapshotRegistry(Path directory) throws IOException {
+        return RegistrySnapshot.writeAll(RegistryHolder.REGISTRY, directory);
+    }
+
+    /**
+     * Marks all the IBANs of the snapshots found in the directory as already generated, so that they are never
+     * generated by this instance of the tool. Typically used at startup by instances sharing a known set of IBANs.
+     *
+     * @param directory the snapshot directory
+     * @return the number of IBANs restored
+     * @throws IOException if reading fails
+     * @throws IbanException if a snapshot file is corrupt
+     *
+     * @see RegistrySnapshot
+     */
+    public static long restoreRegistry(Path directory) throws IOException, IbanException {
+        return RegistrySnapshot.restoreAll(RegistryHolder.REGISTRY, directory);
+    }
+
+    /**
+     * Lazy initialization holder of the default formatter and provider, created by the first call using them
+     * rather than when the class is loaded, which keeps short lived JVMs fast to start.
+     */
+    private static class Defaults {
+        private static final IbanFormatter IBAN_FORMATTER = new DefaultIbanFormatter();
+        private static final CountryFormatProvider COUNTRY_PROVIDER =
+                CountryFormatProviderFactory.getDefaultCountryFormatProvider();
+    }
+
+    /**
+     * Lazy initialization holder of the registry.
+     * The registry is a {@link ConcurrentMapIbanRegistry} unless the {@value #REGISTRY_PROPERTY} system property
+     * asks for the {@link CompressedIbanRegistry} with {@code compressed}.
+     */
+    private static class RegistryHolder {
+        private static final IbanRegistry REGISTRY = "compressed".equals(System.getProperty(REGISTRY_PROPERTY)) ?
+                new CompressedIbanRegistry() : new ConcurrentMapIbanRegistry();
     }
 }
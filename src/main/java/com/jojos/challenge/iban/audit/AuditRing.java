@@ -0,0 +1,113 @@
+package com.jojos.challenge.iban.audit;
+
+import com.jojos.challenge.iban.api.Iban;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free, multi-producer single-consumer queue of audit records backed by a ring buffer.
+ *
+ * Producers claim a slot with a CAS on the tail as in {@link com.jojos.challenge.iban.prefetch.MpmcRingBuffer},
+ * write the record into plain arrays and publish it by the sequence of the slot. The single consumer owns the head
+ * and needs no CAS at all.
+ */
+final class AuditRing {
+
+    private final int mask;
+    private final Iban[] ibans;
+    private final long[] timestamps;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // only moved by the consumer
+    private long head;
+
+    /**
+     * The consumer of the records.
+     */
+    interface Drain {
+        void accept(long timestamp, Iban iban);
+    }
+
+    /**
+     * @param capacity the minimum capacity, it is rounded up to the next power of two
+     */
+    AuditRing(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mask = size - 1;
+        ibans = new Iban[size];
+        timestamps = new long[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds the record unless the ring is full.
+     *
+     * @param iban the audited iban
+     * @param timestamp the time of the record
+     * @return true if the record was added, false if the ring is full.
+     */
+    boolean offer(Iban iban, long timestamp) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    ibans[index] = iban;
+                    timestamps[index] = timestamp;
+                    // publishes the record to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Hands the oldest records to the drain. Must only be called by the consumer thread.
+     *
+     * @param drain the consumer of the records
+     * @param limit the maximum number of records
+     * @return the number of records drained
+     */
+    int drain(Drain drain, int limit) {
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            Iban iban = ibans[index];
+            long timestamp = timestamps[index];
+            ibans[index] = null;
+            // hands the slot back to the producers of the next round
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            drained++;
+            drain.accept(timestamp, iban);
+        }
+        return drained;
+    }
+
+    /**
+     * @return true if no record is waiting, approximate while producers offer.
+     */
+    boolean isEmpty() {
+        return tail.get() == head;
+    }
+}
@@ -0,0 +1,311 @@
+package com.jojos.challenge.iban.audit;
+
+import com.jojos.challenge.iban.api.Iban;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * An audit trail of generated IBANs, written to rolling files by a single background thread.
+ *
+ * Generating threads only sample and offer the IBAN to a lock-free {@link AuditRing}: no formatting, no lock and
+ * no I/O. The writer thread drains the ring in batches into a buffer and appends full buffers to the current file,
+ * starting a new file whenever the next record would exceed the maximum file size. When the writer falls behind and
+ * the ring is full, records are dropped and counted rather than slowing down the generation.
+ *
+ * Files are named {@code audit-00000.txt}, {@code audit-00001.txt} ... in the {@link Format#TEXT} format,
+ * {@code .bin} in the {@link Format#BINARY} one, numbering on from the files already in the directory.
+ * {@link #read(Path, RecordHandler)} reads both.
+ */
+public class AuditSink implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(AuditSink.class);
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final long DEFAULT_MAX_FILE_SIZE = 64L << 20;
+
+    private static final String PREFIX = "audit-";
+    private static final int BUFFER_SIZE = 1 << 18;
+    private static final int BATCH_SIZE = 1024;
+    // the timestamp, the length and the 34 characters of the longest IBAN
+    private static final int MAX_RECORD_SIZE = 20 + 1 + 34 + 1;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    public enum Format {
+        /** one record per line: the epoch milliseconds, a space and the compact IBAN */
+        TEXT(".txt"),
+        /** per record the epoch milliseconds as 8 bytes big-endian, the length of the IBAN as 1 byte and its ASCII
+         * characters */
+        BINARY(".bin");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    /**
+     * The consumer of the records read from an audit file.
+     */
+    public interface RecordHandler {
+        void accept(long timestamp, String iban);
+    }
+
+    private final Path directory;
+    private final Format format;
+    private final int sampling;
+    private final long maxFileSize;
+    private final AuditRing ring;
+    private final Thread writer;
+    private final LongAdder dropped = new LongAdder();
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] digits = new byte[20];
+    private volatile boolean running;
+    private volatile long written;
+    private FileChannel file;
+    private int fileIndex;
+    // the bytes of the current file, buffered ones included
+    private long fileSize;
+
+    /**
+     * @param directory the directory of the audit files, created if missing
+     * @param format the format of the records
+     * @param sampling 1 to audit every IBAN, n to audit one in n on average
+     */
+    public AuditSink(Path directory, Format format, int sampling) {
+        this(directory, format, sampling, DEFAULT_MAX_FILE_SIZE, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param directory the directory of the audit files, created if missing
+     * @param format the format of the records
+     * @param sampling 1 to audit every IBAN, n to audit one in n on average
+     * @param maxFileSize the size in bytes at which a new file is started
+     * @param capacity the number of records waiting for the writer, beyond which records are dropped
+     */
+    public AuditSink(Path directory, Format format, int sampling, long maxFileSize, int capacity) {
+        if (sampling < 1 || maxFileSize < MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid audit configuration: sampling %d, max file size %d.", sampling, maxFileSize));
+        }
+        this.directory = directory;
+        this.format = format;
+        this.sampling = sampling;
+        this.maxFileSize = maxFileSize;
+        this.ring = new AuditRing(capacity);
+        this.writer = new Thread(this::write, "iban-audit-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Creates the directory and starts the writer thread.
+     *
+     * @return this sink
+     * @throws IOException if the directory cannot be created or listed
+     */
+    public AuditSink start() throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            fileIndex = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(format.extension))
+                    .mapToInt(name -> parseIndex(name, format))
+                    .max().orElse(-1) + 1;
+        }
+        running = true;
+        writer.start();
+        log.info(String.format("Auditing one in %d IBANs to %s.", sampling, directory));
+        return this;
+    }
+
+    /**
+     * Audits the IBAN, unless it is sampled out or the writer is behind. Never blocks.
+     *
+     * @param iban the generated iban
+     */
+    public void record(Iban iban) {
+        if (sampling > 1 && ThreadLocalRandom.current().nextInt(sampling) != 0) {
+            return;
+        }
+        if (!ring.offer(iban, System.currentTimeMillis())) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * @return the number of records written so far
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * @return the number of records dropped because the writer was behind or failed
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops the writer thread once it has written the records offered so far.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads the records of an audit file, in the format told by its extension.
+     *
+     * @param file the audit file
+     * @param handler the consumer of the records
+     * @throws IOException if reading fails
+     */
+    public static void read(Path file, RecordHandler handler) throws IOException {
+        if (file.getFileName().toString().endsWith(Format.TEXT.extension)) {
+            for (String line : Files.readAllLines(file, StandardCharsets.US_ASCII)) {
+                int space = line.indexOf(' ');
+                handler.accept(Long.parseLong(line.substring(0, space)), line.substring(space + 1));
+            }
+            return;
+        }
+        ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(file));
+        while (records.remaining() > 8) {
+            long timestamp = records.getLong();
+            byte[] iban = new byte[records.get()];
+            records.get(iban);
+            handler.accept(timestamp, new String(iban, StandardCharsets.US_ASCII));
+        }
+    }
+
+    private void write() {
+        try {
+            while (true) {
+                // the flag is read before draining, so nothing offered before close() is left behind
+                boolean stopping = !running;
+                if (ring.drain(this::append, BATCH_SIZE) == 0) {
+                    flush();
+                    if (stopping) {
+                        break;
+                    }
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error(String.format("Auditing to %s stopped, further records are dropped.", directory), e);
+            while (running || !ring.isEmpty()) {
+                if (ring.drain((timestamp, iban) -> dropped.increment(), BATCH_SIZE) == 0) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+        } finally {
+            closeFile();
+        }
+    }
+
+    private void append(long timestamp, Iban iban) {
+        int length = 4 + iban.getBban().length;
+        int recordSize = format == Format.TEXT ? digitsOf(timestamp) + 1 + length + 1 : 8 + 1 + length;
+        try {
+            if (file == null || fileSize + recordSize > maxFileSize) {
+                roll();
+            }
+            if (buffer.remaining() < recordSize) {
+                flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (format == Format.TEXT) {
+            int count = digitsOf(timestamp);
+            long value = timestamp;
+            for (int i = count - 1; i >= 0; i--) {
+                digits[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            buffer.put(digits, 0, count).put((byte) ' ');
+        } else {
+            buffer.putLong(timestamp).put((byte) length);
+        }
+        String code = iban.getCountryFormat().getCountryISO().getCode();
+        int[] checkDigits = iban.getCheckDigits();
+        buffer.put((byte) code.charAt(0)).put((byte) code.charAt(1))
+                .put((byte) ('0' + checkDigits[0])).put((byte) ('0' + checkDigits[1]));
+        for (char c : iban.getBban()) {
+            buffer.put((byte) c);
+        }
+        if (format == Format.TEXT) {
+            buffer.put((byte) '\n');
+        }
+        fileSize += recordSize;
+        written++;
+    }
+
+    private void flush() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            file.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void roll() throws IOException {
+        if (file != null) {
+            flush();
+            file.close();
+        }
+        Path path = directory.resolve(String.format("%s%05d%s", PREFIX, fileIndex++, format.extension));
+        file = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        fileSize = 0;
+    }
+
+    private void closeFile() {
+        if (file == null) {
+            return;
+        }
+        try {
+            flush();
+            file.close();
+        } catch (IOException e) {
+            log.error(String.format("Failed to close the audit file in %s.", directory), e);
+        }
+    }
+
+    private static int digitsOf(long value) {
+        int count = 1;
+        while (value >= 10) {
+            value /= 10;
+            count++;
+        }
+        return count;
+    }
+
+    private static int parseIndex(String name, Format format) {
+        try {
+            return Integer.parseInt(name.substring(PREFIX.length(), name.length() - format.extension.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.jojos.challenge.iban.bank;
+
+import com.jojos.challenge.iban.country.CountryISO;
+
+/**
+ * A bank of a {@link BankIndex}.
+ */
+public final class Bank {
+
+    private final CountryISO countryISO;
+    private final String bankCode;
+    private final String name;
+    private final String bic;
+
+    public Bank(CountryISO countryISO, String bankCode, String name, String bic) {
+        this.countryISO = countryISO;
+        this.bankCode = bankCode;
+        this.name = name;
+        this.bic = bic;
+    }
+
+    public CountryISO getCountryISO() {
+        return countryISO;
+    }
+
+    public String getBankCode() {
+        return bankCode;
+    }
+
+    /**
+     * @return the name, empty if the directory has none
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the BIC, empty if the directory has none
+     */
+    public String getBic() {
+        return bic;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s %s %s", countryISO.getCode(), bankCode, bic, name);
+    }
+}
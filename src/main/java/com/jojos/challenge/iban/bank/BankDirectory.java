@@ -0,0 +1,226 @@
+package com.jojos.challenge.iban.bank;
+
+import com.jojos.challenge.iban.bank.DirectoryFile.BankCode;
+import com.jojos.challenge.iban.country.CountryFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A directory of the banks of some countries, e.g. a stand-in for the Bundesbank BLZ file, from which generated
+ * IBANs draw real bank codes instead of random ones.
+ *
+ * The directory is a text file of one bank per line, its fields separated by {@code ;}:
+ * {@code country;bank code;weight;name;BIC}, e.g. {@code DE;37040044;250;Commerzbank;COBADEFFXXX}. The weight is a
+ * positive integer, 1 if empty. Blank lines and lines starting with {@code #} are skipped, as are rows whose bank
+ * code does not match the BANK_CODE of the format of the country.
+ *
+ * The file is memory-mapped and scanned once. Every country keeps the bank codes of its rows back to back in a
+ * char array and their cumulative weights in a long array, so that {@link #drawInto(CountryFormat, char[], Random)}
+ * costs one bounded random number and a binary search, without allocating.
+ */
+public final class BankDirectory {
+    private static final Logger log = LoggerFactory.getLogger(BankDirectory.class);
+
+    public static final BankDirectory EMPTY = new BankDirectory(new Country[CountryFormat.values().length]);
+
+    private final Country[] countries;
+
+    private BankDirectory(Country[] countries) {
+        this.countries = countries;
+    }
+
+    /**
+     * Overwrites the bank code of the bban with one of the directory, drawn with the probability of its weight.
+     *
+     * @param countryFormat the format of the country in question
+     * @param bban the bban, modified in place
+     * @param random the source of randomness
+     * @return true if the directory has banks of the country, false if the bban was left as is
+     */
+    public boolean drawInto(CountryFormat countryFormat, char[] bban, Random random) {
+        Country country = countries[countryFormat.ordinal()];
+        if (country == null) {
+            return false;
+        }
+        int index = country.indexOf(nextLong(random, country.totalWeight()));
+        System.arraycopy(country.codes, index * country.codeLength, bban, country.codeOffset, country.codeLength);
+        return true;
+    }
+
+    /**
+     * @param countryFormat the format of the country in question
+     * @return the number of banks of the country
+     */
+    public int size(CountryFormat countryFormat) {
+        Country country = countries[countryFormat.ordinal()];
+        return country == null ? 0 : country.size;
+    }
+
+    /**
+     * @param countryFormat the format of the country in question
+     * @param index the index of the bank, in the order of the file
+     * @return the bank code
+     */
+    public String bankCode(CountryFormat countryFormat, int index) {
+        Country country = countries[countryFormat.ordinal()];
+        if (country == null || index < 0 || index >= country.size) {
+            throw new IndexOutOfBoundsException(String.format("No bank %d of %s.", index, countryFormat));
+        }
+        return new String(country.codes, index * country.codeLength, country.codeLength);
+    }
+
+    public boolean isEmpty() {
+        for (Country country : countries) {
+            if (country != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Loads a directory file by memory-mapping it.
+     *
+     * @param file the directory file
+     * @return the directory
+     * @throws IOException if reading fails
+     */
+    public static BankDirectory load(Path file) throws IOException {
+        long start = System.nanoTime();
+        BankDirectory directory = parse(DirectoryFile.map(file));
+        if (log.isInfoEnabled()) {
+            int banks = 0;
+            for (CountryFormat countryFormat : CountryFormat.values()) {
+                banks += directory.size(countryFormat);
+            }
+            log.info(String.format("Indexed %d banks of %s in %d ms.", banks, file,
+                    (System.nanoTime() - start) / 1_000_000));
+        }
+        return directory;
+    }
+
+    /**
+     * @param lines the lines of a directory file
+     * @return the directory
+     */
+    public static BankDirectory of(List<String> lines) {
+        return parse(DirectoryFile.wrap(lines));
+    }
+
+    private static BankDirectory parse(ByteBuffer buffer) {
+        Builder[] builders = new Builder[CountryFormat.values().length];
+        int malformed = DirectoryFile.parse(buffer, row -> {
+            Builder builder = builders[row.countryFormat.ordinal()];
+            if (builder == null) {
+                builder = builders[row.countryFormat.ordinal()] = new Builder(row.bankCode);
+            }
+            builder.add(row);
+        });
+        if (malformed > 0) {
+            log.warn(String.format("Skipped %d malformed bank directory rows.", malformed));
+        }
+        Country[] countries = new Country[builders.length];
+        for (int i = 0; i < builders.length; i++) {
+            if (builders[i] != null) {
+                countries[i] = builders[i].build();
+            }
+        }
+        return new BankDirectory(countries);
+    }
+
+    /**
+     * A uniform value in {@code [0, bound)}, the draws of the incomplete last range being rejected like
+     * {@link java.util.concurrent.ThreadLocalRandom#nextLong(long)} does.
+     */
+    private static long nextLong(Random random, long bound) {
+        long bits;
+        long value;
+        do {
+            bits = random.nextLong() >>> 1;
+            value = bits % bound;
+        } while (bits - value + (bound - 1) < 0);
+        return value;
+    }
+
+    private static final class Country {
+        private final int codeOffset;
+        private final int codeLength;
+        private final int size;
+        // the bank codes of all the rows, back to back
+        private final char[] codes;
+        // cumulativeWeights[i] is the sum of the weights of the rows up to and including i
+        private final long[] cumulativeWeights;
+
+        private Country(int codeOffset, int codeLength, int size, char[] codes, long[] cumulativeWeights) {
+            this.codeOffset = codeOffset;
+            this.codeLength = codeLength;
+            this.size = size;
+            this.codes = codes;
+            this.cumulativeWeights = cumulativeWeights;
+        }
+
+        private long totalWeight() {
+            return cumulativeWeights[size - 1];
+        }
+
+        /**
+         * @return the first row whose cumulative weight is above the target
+         */
+        private int indexOf(long target) {
+            int low = 0;
+            int high = size - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulativeWeights[middle] > target) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Collects the rows of a country.
+     */
+    private static final class Builder {
+        private final BankCode bankCode;
+        private char[] codes;
+        private long[] cumulativeWeights = new long[64];
+        private int size;
+
+        private Builder(BankCode bankCode) {
+            this.bankCode = bankCode;
+            this.codes = new char[64 * bankCode.length];
+        }
+
+        private void add(DirectoryFile.Row row) {
+            long previous = size == 0 ? 0 : cumulativeWeights[size - 1];
+            if (previous > Long.MAX_VALUE - row.weight) {
+                throw new IllegalArgumentException("The total weight of the bank directory overflows.");
+            }
+            if (size == cumulativeWeights.length) {
+                codes = Arrays.copyOf(codes, codes.length * 2);
+                cumulativeWeights = Arrays.copyOf(cumulativeWeights, size * 2);
+            }
+            for (int i = 0; i < bankCode.length; i++) {
+                codes[size * bankCode.length + i] = row.codeAt(i);
+            }
+            cumulativeWeights[size] = previous + row.weight;
+            size++;
+        }
+
+        private Country build() {
+            return new Country(bankCode.offset, bankCode.length, size, Arrays.copyOf(codes, size * bankCode.length),
+                    Arrays.copyOf(cumulativeWeights, size));
+        }
+    }
+}
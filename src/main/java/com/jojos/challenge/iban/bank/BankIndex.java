@@ -0,0 +1,205 @@
+package com.jojos.challenge.iban.bank;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.bank.DirectoryFile.BankCode;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.util.Helper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A read-only index from the bank code of an IBAN to its {@link Bank}, built from a bank directory file of the
+ * format read by {@link BankDirectory}.
+ *
+ * Every country keeps the bank codes of its banks packed into longs, six bits per character, in a sorted array
+ * next to the array of their banks. A lookup packs the bank code of the IBAN, reading each of its characters once,
+ * and binary searches the array of its country, without allocating. Bank codes of up to {@value #MAX_CODE_LENGTH}
+ * characters are indexed. A bank code listed more than once keeps its first row, e.g. the head office of the
+ * branches of a BLZ.
+ *
+ * Indexes are immutable, a new directory is indexed into a new instance which replaces the old one as a whole.
+ */
+public final class BankIndex {
+    private static final Logger log = LoggerFactory.getLogger(BankIndex.class);
+
+    public static final BankIndex EMPTY = new BankIndex(new Country[CountryFormat.values().length], 0);
+
+    static final int MAX_CODE_LENGTH = 10;
+
+    private final Country[] countries;
+    private final int size;
+
+    private BankIndex(Country[] countries, int size) {
+        this.countries = countries;
+        this.size = size;
+    }
+
+    /**
+     * @param iban the iban
+     * @return the bank of the iban or null if it is not indexed
+     */
+    public Bank lookup(Iban iban) {
+        Country country = countries[iban.getCountryFormat().ordinal()];
+        if (country == null) {
+            return null;
+        }
+        char[] bban = iban.getBban();
+        long key = 0;
+        for (int i = 0; i < country.bankCode.length; i++) {
+            key = append(key, bban[country.bankCode.offset + i]);
+        }
+        return country.find(key);
+    }
+
+    /**
+     * @param iban the iban in its compact form, it is not validated
+     * @return the bank of the iban or null if it is not indexed
+     */
+    public Bank lookup(CharSequence iban) {
+        if (iban == null || iban.length() < 4) {
+            return null;
+        }
+        CountryISO countryISO = Helper.countryOf(iban.charAt(0), iban.charAt(1));
+        CountryFormat countryFormat = CountryFormat.valueOf(countryISO);
+        Country country = countryFormat == null ? null : countries[countryFormat.ordinal()];
+        if (country == null || iban.length() < 4 + country.bankCode.offset + country.bankCode.length) {
+            return null;
+        }
+        long key = 0;
+        for (int i = 0; i < country.bankCode.length; i++) {
+            key = append(key, iban.charAt(4 + country.bankCode.offset + i));
+        }
+        return country.find(key);
+    }
+
+    /**
+     * @return the number of indexed banks
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Indexes a directory file by memory-mapping it.
+     *
+     * @param file the directory file
+     * @return the index
+     * @throws IOException if reading fails
+     */
+    public static BankIndex load(Path file) throws IOException {
+        long start = System.nanoTime();
+        BankIndex index = build(DirectoryFile.map(file));
+        log.info(String.format("Indexed %d banks of %s in %d ms.", index.size, file,
+                (System.nanoTime() - start) / 1_000_000));
+        return index;
+    }
+
+    /**
+     * @param lines the lines of a directory file
+     * @return the index
+     */
+    public static BankIndex of(List<String> lines) {
+        return build(DirectoryFile.wrap(lines));
+    }
+
+    private static BankIndex build(ByteBuffer buffer) {
+        List<List<Entry>> entries = new ArrayList<>();
+        for (int i = 0; i < CountryFormat.values().length; i++) {
+            entries.add(new ArrayList<>());
+        }
+        int malformed = DirectoryFile.parse(buffer, row -> {
+            if (row.bankCode.length > MAX_CODE_LENGTH) {
+                return;
+            }
+            char[] code = new char[row.bankCode.length];
+            long key = 0;
+            for (int i = 0; i < code.length; i++) {
+                code[i] = row.codeAt(i);
+                key = append(key, code[i]);
+            }
+            Bank bank = new Bank(row.countryFormat.getCountryISO(), new String(code), row.name(), row.bic());
+            List<Entry> countryEntries = entries.get(row.countryFormat.ordinal());
+            countryEntries.add(new Entry(key, bank));
+        });
+        if (malformed > 0) {
+            log.warn(String.format("Skipped %d malformed bank directory rows.", malformed));
+        }
+        Country[] countries = new Country[CountryFormat.values().length];
+        int size = 0;
+        for (CountryFormat countryFormat : CountryFormat.values()) {
+            List<Entry> countryEntries = entries.get(countryFormat.ordinal());
+            if (countryEntries.isEmpty()) {
+                continue;
+            }
+            // the sort is stable, the first row of a bank code stays first
+            countryEntries.sort(Comparator.comparingLong(entry -> entry.key));
+            long[] keys = new long[countryEntries.size()];
+            Bank[] banks = new Bank[countryEntries.size()];
+            int distinct = 0;
+            for (Entry entry : countryEntries) {
+                if (distinct == 0 || keys[distinct - 1] != entry.key) {
+                    keys[distinct] = entry.key;
+                    banks[distinct++] = entry.bank;
+                }
+            }
+            countries[countryFormat.ordinal()] = new Country(DirectoryFile.bankCode(countryFormat),
+                    Arrays.copyOf(keys, distinct), Arrays.copyOf(banks, distinct));
+            size += distinct;
+        }
+        return new BankIndex(countries, size);
+    }
+
+    /**
+     * Appends a character to a packed bank code: digits are 1 to 10, upper case letters 11 to 36 and lower case
+     * letters 37 to 62. Any other character is 63, which no indexed bank code contains.
+     */
+    private static long append(long key, char c) {
+        int value;
+        if (c >= '0' && c <= '9') {
+            value = c - '0' + 1;
+        } else if (c >= 'A' && c <= 'Z') {
+            value = c - 'A' + 11;
+        } else if (c >= 'a' && c <= 'z') {
+            value = c - 'a' + 37;
+        } else {
+            value = 63;
+        }
+        return key << 6 | value;
+    }
+
+    private static final class Country {
+        private final BankCode bankCode;
+        private final long[] keys;
+        private final Bank[] banks;
+
+        private Country(BankCode bankCode, long[] keys, Bank[] banks) {
+            this.bankCode = bankCode;
+            this.keys = keys;
+            this.banks = banks;
+        }
+
+        private Bank find(long key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index < 0 ? null : banks[index];
+        }
+    }
+
+    private static final class Entry {
+        private final long key;
+        private final Bank bank;
+
+        private Entry(long key, Bank bank) {
+            this.key = key;
+            this.bank = bank;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.jojos.challenge.iban.bank;
+
+import com.jojos.challenge.iban.country.BBANFormat.BBANFormatElement;
+import com.jojos.challenge.iban.country.BBANFormat.BBANSubType;
+import com.jojos.challenge.iban.country.BBANFormat.CharType;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.util.Helper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads bank directory files, one bank per line with the fields {@code country;bank code;weight;name;BIC}.
+ *
+ * Blank lines and lines starting with {@code #} are skipped. Rows whose bank code does not match the BANK_CODE of
+ * the format of the country, or whose weight is not a positive integer, are malformed. An empty weight is 1.
+ */
+final class DirectoryFile {
+
+    private static final byte SEPARATOR = ';';
+
+    private static final Map<CountryFormat, BankCode> BANK_CODES = new EnumMap<>(CountryFormat.class);
+
+    static {
+        for (CountryFormat countryFormat : CountryFormat.values()) {
+            BankCode bankCode = BankCode.of(countryFormat);
+            if (bankCode != null) {
+                BANK_CODES.put(countryFormat, bankCode);
+            }
+        }
+    }
+
+    private DirectoryFile() {
+    }
+
+    /**
+     * Receives the rows of a directory file.
+     */
+    interface RowHandler {
+        /**
+         * @param row the row, only valid during the call
+         */
+        void accept(Row row);
+    }
+
+    /**
+     * @return the memory-mapped file
+     */
+    static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * @return the lines of a directory file as its bytes
+     */
+    static ByteBuffer wrap(List<String> lines) {
+        return ByteBuffer.wrap(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param countryFormat the format of the country in question
+     * @return the bank code of the country or null if it has none
+     */
+    static BankCode bankCode(CountryFormat countryFormat) {
+        return BANK_CODES.get(countryFormat);
+    }
+
+    /**
+     * Hands every well-formed row of the buffer to the handler.
+     *
+     * @return the number of malformed rows
+     */
+    static int parse(ByteBuffer buffer, RowHandler handler) {
+        Row row = new Row(buffer);
+        int malformed = 0;
+        int position = 0;
+        int limit = buffer.limit();
+        while (position < limit) {
+            int end = position;
+            while (end < limit && buffer.get(end) != '\n') {
+                end++;
+            }
+            int to = end > position && buffer.get(end - 1) == '\r' ? end - 1 : end;
+            if (to > position && buffer.get(position) != '#') {
+                if (row.parse(position, to)) {
+                    handler.accept(row);
+                } else {
+                    malformed++;
+                }
+            }
+            position = end + 1;
+        }
+        return malformed;
+    }
+
+    /**
+     * The BANK_CODE of the BBAN format of a country.
+     */
+    static final class BankCode {
+        final int offset;
+        final int length;
+        private final CharType charType;
+
+        private BankCode(int offset, int length, CharType charType) {
+            this.offset = offset;
+            this.length = length;
+            this.charType = charType;
+        }
+
+        private static BankCode of(CountryFormat countryFormat) {
+            int position = 0;
+            for (BBANFormatElement element : countryFormat.getBbanFormat().getBbanFormatElements()) {
+                if (element.getBbanSubType() == BBANSubType.BANK_CODE) {
+                    return new BankCode(position, element.getNumberOfChars(), element.getCharType());
+                }
+                position += element.getNumberOfChars();
+            }
+            return null;
+        }
+
+        boolean matches(char c) {
+            boolean digit = c >= '0' && c <= '9';
+            boolean upper = c >= 'A' && c <= 'Z';
+            switch (charType) {
+                case N:
+                    return digit;
+                case A:
+                    return upper;
+                case C:
+                    return digit || upper || (c >= 'a' && c <= 'z');
+                default:
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * A well-formed row, the fields being ranges of the buffer.
+     */
+    static final class Row {
+        private final ByteBuffer buffer;
+        CountryFormat countryFormat;
+        BankCode bankCode;
+        int codeFrom;
+        long weight;
+        private int nameFrom;
+        private int nameTo;
+        private int bicFrom;
+        private int bicTo;
+
+        private Row(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        char codeAt(int index) {
+            return (char) buffer.get(codeFrom + index);
+        }
+
+        String name() {
+            return decode(nameFrom, nameTo);
+        }
+
+        String bic() {
+            return decode(bicFrom, bicTo);
+        }
+
+        private String decode(int from, int to) {
+            byte[] bytes = new byte[to - from];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(from + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8).trim();
+        }
+
+        private boolean parse(int from, int to) {
+            if (to - from < 4 || buffer.get(from + 2) != SEPARATOR) {
+                return false;
+            }
+            CountryISO countryISO = Helper.countryOf((char) buffer.get(from), (char) buffer.get(from + 1));
+            countryFormat = CountryFormat.valueOf(countryISO);
+            bankCode = countryFormat == null ? null : BANK_CODES.get(countryFormat);
+            if (bankCode == null) {
+                return false;
+            }
+            codeFrom = from + 3;
+            int codeTo = next(codeFrom, to);
+            if (codeTo - codeFrom != bankCode.length) {
+                return false;
+            }
+            for (int i = 0; i < bankCode.length; i++) {
+                if (!bankCode.matches(codeAt(i))) {
+                    return false;
+                }
+            }
+            int weightTo = next(codeTo + 1, to);
+            weight = 1;
+            if (weightTo > codeTo + 1) {
+                weight = 0;
+                for (int i = codeTo + 1; i < weightTo; i++) {
+                    byte b = buffer.get(i);
+                    if (b < '0' || b > '9' || weight > Long.MAX_VALUE / 10 - 9) {
+                        return false;
+                    }
+                    weight = weight * 10 + b - '0';
+                }
+            }
+            nameFrom = Math.min(weightTo + 1, to);
+            nameTo = next(nameFrom, to);
+            bicFrom = Math.min(nameTo + 1, to);
+            bicTo = next(bicFrom, to);
+            return weight > 0;
+        }
+
+        /**
+         * @return the index of the next separator or the end of the row
+         */
+        private int next(int from, int to) {
+            int i = from;
+            while (i < to && buffer.get(i) != SEPARATOR) {
+                i++;
+            }
+            return i;
+        }
+    }
+}
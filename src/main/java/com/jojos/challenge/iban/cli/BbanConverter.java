@@ -0,0 +1,370 @@
+package com.jojos.challenge.iban.cli;
+
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.country.CountryFormatProvider;
+import com.jojos.challenge.iban.country.CountryFormatProviderFactory;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.util.BbanCodec;
+import com.jojos.challenge.iban.util.Helper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.jojos.challenge.iban.country.BBANFormat.BBANFormatElement;
+import static com.jojos.challenge.iban.country.BBANFormat.CharType;
+
+/**
+ * Converts the BBANs of one country, one per line, into IBANs in their compact form, one per line and in the
+ * order of the input.
+ *
+ * Usage: {@code java -cp iban-generator-utility-1.0-SNAPSHOT-jar-with-dependencies.jar
+ * com.jojos.challenge.iban.cli.BbanConverter --country DE --in bbans.txt --out ibans.txt [--threads 8]}
+ *
+ * The calling thread reads the input in chunks ending at a line break and hands every chunk to a worker, which
+ * checks the BBANs against the {@link CountryFormat} of the country and writes the IBANs into an output chunk.
+ * Output chunks are written in the order of their input chunks, at most {@value #CHUNKS_PER_THREAD} per worker
+ * being in flight, so memory stays bounded whatever the size of the input.
+ *
+ * A line that is not a BBAN of the country is written as an empty line, the line numbers of the input and the
+ * output therefore match. A trailing carriage return is ignored.
+ */
+public class BbanConverter {
+    private static final Logger log = LoggerFactory.getLogger(BbanConverter.class);
+
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final CountryFormat countryFormat;
+    private final int threads;
+    private final byte[] countryCode;
+    private final CharType[] layout;
+
+    /**
+     * @param country the country of the BBANs
+     * @param threads the number of converting threads
+     * @throws IbanException if the country is not supported.
+     */
+    public BbanConverter(CountryISO country, int threads) throws IbanException {
+        this(country, threads, CountryFormatProviderFactory.getDefaultCountryFormatProvider());
+    }
+
+    /**
+     * @param country the country of the BBANs
+     * @param threads the number of converting threads
+     * @param countryFormatProvider implementation of the {@link CountryFormatProvider} interface.
+     * @throws IbanException if the country is not supported.
+     */
+    public BbanConverter(CountryISO country, int threads, CountryFormatProvider countryFormatProvider)
+            throws IbanException {
+        if (threads < 1) {
+            throw new IllegalArgumentException(String.format("Invalid threads %d.", threads));
+        }
+        if (!countryFormatProvider.isCountrySupported(country)) {
+            String errorMsg = String.format("%s country not supported.", country);
+            log.error(errorMsg);
+            throw new IbanException(errorMsg);
+        }
+        this.countryFormat = countryFormatProvider.getCountryFormat(country);
+        this.threads = threads;
+        this.countryCode = country.getCode().getBytes(StandardCharsets.US_ASCII);
+        this.layout = new CharType[countryFormat.getBbanFormat().getNumberOfCharacters()];
+        int position = 0;
+        for (BBANFormatElement element : countryFormat.getBbanFormat().getBbanFormatElements()) {
+            for (int i = 0; i < element.getNumberOfChars(); i++) {
+                layout[position++] = element.getCharType();
+            }
+        }
+    }
+
+    /**
+     * Converts a file, replacing the output file if it exists.
+     *
+     * @param in the file of the BBANs
+     * @param out the file of the IBANs
+     * @return the statistics of the run
+     * @throws IOException if reading or writing fails
+     */
+    public Statistics convert(Path in, Path out) throws IOException {
+        try (FileChannel input = FileChannel.open(in, StandardOpenOption.READ);
+             FileChannel output = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            return convert(input, output);
+        }
+    }
+
+    /**
+     * Converts a stream, neither stream is closed.
+     *
+     * @param in the BBANs
+     * @param out receives the IBANs
+     * @return the statistics of the run
+     * @throws IOException if reading or writing fails
+     */
+    public Statistics convert(InputStream in, OutputStream out) throws IOException {
+        Statistics statistics = convert(Channels.newChannel(in), Channels.newChannel(out));
+        out.flush();
+        return statistics;
+    }
+
+    /**
+     * Converts a channel, neither channel is closed.
+     *
+     * @param in the BBANs
+     * @param out receives the IBANs
+     * @return the statistics of the run
+     * @throws IOException if reading or writing fails
+     */
+    public Statistics convert(ReadableByteChannel in, WritableByteChannel out) throws IOException {
+        long start = System.nanoTime();
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        Statistics statistics = new Statistics(threads);
+        try {
+            byte[] buffer = new byte[CHUNK_SIZE];
+            int filled = 0;
+            boolean eof = false;
+            while (!eof) {
+                int read = in.read(ByteBuffer.wrap(buffer, filled, buffer.length - filled));
+                eof = read < 0;
+                filled += Math.max(read, 0);
+                if (!eof && filled < buffer.length) {
+                    continue;
+                }
+                int end = eof ? filled : lastLineEnd(buffer, filled);
+                if (end == 0 && !eof) {
+                    // a single line longer than the buffer
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    continue;
+                }
+                if (end > 0) {
+                    byte[] input = Arrays.copyOf(buffer, end);
+                    if (inFlight.size() == threads * CHUNKS_PER_THREAD) {
+                        write(inFlight.poll().get(), out, statistics);
+                    }
+                    inFlight.add(executorService.submit(() -> convert(input)));
+                }
+                // the incomplete line at the end is kept for the next chunk
+                System.arraycopy(buffer, end, buffer, 0, filled - end);
+                filled -= end;
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.poll().get(), out, statistics);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while converting.", e);
+        } catch (ExecutionException e) {
+            throw new IbanException(e.getCause().getMessage());
+        } finally {
+            executorService.shutdownNow();
+        }
+        statistics.elapsedNanos = System.nanoTime() - start;
+        if (statistics.rejected > 0 && log.isWarnEnabled()) {
+            log.warn(String.format("%d of %d lines are not BBANs of %s, the first is line %d.",
+                    statistics.rejected, statistics.rows, countryFormat, statistics.firstRejectedLine));
+        }
+        return statistics;
+    }
+
+    private static int lastLineEnd(byte[] buffer, int filled) {
+        for (int i = filled - 1; i >= 0; i--) {
+            if (buffer[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static void write(Chunk chunk, WritableByteChannel out, Statistics statistics) throws IOException {
+        if (chunk.firstRejected >= 0 && statistics.firstRejectedLine < 0) {
+            statistics.firstRejectedLine = statistics.rows + chunk.firstRejected + 1;
+        }
+        statistics.rows += chunk.rows;
+        statistics.rejected += chunk.rejected;
+        statistics.bytes += chunk.length;
+        ByteBuffer buffer = ByteBuffer.wrap(chunk.output, 0, chunk.length);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Converts the lines of a chunk, the last line of the chunk may lack its line break.
+     */
+    private Chunk convert(byte[] input) {
+        int bbanLength = layout.length;
+        // every line gains at most the country code and the check digits
+        byte[] output = new byte[input.length + 4 * (input.length / (bbanLength + 1) + 1) + 1];
+        char[] bban = new char[bbanLength];
+        Chunk chunk = new Chunk(output);
+        int length = 0;
+        int from = 0;
+        while (from < input.length) {
+            int to = from;
+            while (to < input.length && input[to] != '\n') {
+                to++;
+            }
+            int lineEnd = to > from && input[to - 1] == '\r' ? to - 1 : to;
+            if (toBban(input, from, lineEnd, bban)) {
+                int checkNumber = Helper.checkNumber(bban, countryFormat.getCountryISO());
+                output[length++] = countryCode[0];
+                output[length++] = countryCode[1];
+                output[length++] = (byte) ('0' + checkNumber / 10);
+                output[length++] = (byte) ('0' + checkNumber % 10);
+                System.arraycopy(input, from, output, length, bbanLength);
+                length += bbanLength;
+            } else {
+                if (chunk.firstRejected < 0) {
+                    chunk.firstRejected = chunk.rows;
+                }
+                chunk.rejected++;
+            }
+            output[length++] = '\n';
+            chunk.rows++;
+            from = to + 1;
+        }
+        chunk.length = length;
+        return chunk;
+    }
+
+    private boolean toBban(byte[] input, int from, int to, char[] bban) {
+        if (to - from != bban.length) {
+            return false;
+        }
+        for (int i = 0; i < bban.length; i++) {
+            char c = (char) input[from + i];
+            if (BbanCodec.digitOf(c, layout[i]) < 0) {
+                return false;
+            }
+            bban[i] = c;
+        }
+        return true;
+    }
+
+    /**
+     * The converted lines of a chunk of the input.
+     */
+    private static final class Chunk {
+        private final byte[] output;
+        private int length;
+        private long rows;
+        private long rejected;
+        // the index of the first rejected row within the chunk, -1 if none
+        private long firstRejected = -1;
+
+        private Chunk(byte[] output) {
+            this.output = output;
+        }
+    }
+
+    /**
+     * The outcome of a run.
+     */
+    public static final class Statistics {
+        private final int threads;
+        private long rows;
+        private long rejected;
+        private long firstRejectedLine = -1;
+        private long bytes;
+        private long elapsedNanos;
+
+        private Statistics(int threads) {
+            this.threads = threads;
+        }
+
+        /**
+         * @return the number of lines read
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * @return the number of lines which were not BBANs of the country
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * @return the number, starting at 1, of the first line which was not a BBAN of the country, -1 if none
+         */
+        public long getFirstRejectedLine() {
+            return firstRejectedLine;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d BBANs (%d rejected, %d bytes written) with %d threads in %.3f s: %.0f rows/s, " +
+                            "%.1f MB/s", rows, rejected, bytes, threads, elapsedNanos / 1e9, getRowsPerSecond(),
+                    elapsedNanos == 0 ? 0 : bytes * 1e9 / elapsedNanos / (1 << 20));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        CountryISO country = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path in = null;
+        Path out = null;
+        try {
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--country":
+                        country = CountryISO.forCaseInsensitiveCode(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--in":
+                        in = Paths.get(value);
+                        break;
+                    case "--out":
+                        out = Paths.get(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            country = null;
+        }
+        if (country == null || in == null || out == null) {
+            System.err.println("Usage: BbanConverter --country DE --in bbans.txt --out ibans.txt [--threads 8]");
+            System.exit(1);
+        }
+        System.out.println(new BbanConverter(country, threads).convert(in, out));
+    }
+}
@@ -0,0 +1,262 @@
+package com.jojos.challenge.iban.cli;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.api.IbanApi;
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormatProvider;
+import com.jojos.challenge.iban.country.CountryFormatProviderFactory;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.format.LayoutIbanFormatter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Command line entry point generating a large number of unique IBANs of one country into a file.
+ *
+ * Usage: {@code java -jar iban-generator-utility-1.0-SNAPSHOT-jar-with-dependencies.jar --country DE
+ * --count 1000000 [--threads 8] [--format compact|paper|masked] [--node-id 0 --node-count 1] --out ibans.txt}
+ *
+ * The worker threads claim blocks of the requested count, generate them with their own source of randomness
+ * into their own buffer and append full buffers to the file, so nothing but the registry grows with the count.
+ * The order of the IBANs in the file is therefore arbitrary.
+ *
+ * Hosts of a fleet given distinct node ids generate disjoint files, see {@link IbanApi#enableNodePartition(int, int)}.
+ */
+public class BulkGenerator {
+    private static final Logger log = LoggerFactory.getLogger(BulkGenerator.class);
+
+    private static final int BLOCK_SIZE = 4096;
+    private static final int BUFFER_SIZE = 1 << 20;
+    // consecutive failures of generateFor, each already retried internally, after which the space is deemed full
+    private static final int MAX_FAILED_ATTEMPTS = 1000;
+
+    public enum Format {
+        /** e.g. DE89370400440532013000 */
+        COMPACT,
+        /** e.g. DE89 3704 0044 0532 0130 00 */
+        PAPER,
+        /** e.g. DE** 3704 0044 **** **30 00 */
+        MASKED
+    }
+
+    private final CountryISO country;
+    private final long count;
+    private final int threads;
+    private final Format format;
+    private final LayoutIbanFormatter ibanFormatter = new LayoutIbanFormatter();
+    private final CountryFormatProvider countryFormatProvider =
+            CountryFormatProviderFactory.getDefaultCountryFormatProvider();
+
+    /**
+     * @param country the country of the IBANs
+     * @param count the number of IBANs to generate
+     * @param threads the number of generating threads
+     * @param format the output format of the IBANs
+     * @throws IbanException if the country is not supported.
+     */
+    public BulkGenerator(CountryISO country, long count, int threads, Format format) throws IbanException {
+        if (count < 0 || threads < 1) {
+            throw new IllegalArgumentException(String.format("Invalid count %d or threads %d.", count, threads));
+        }
+        if (!countryFormatProvider.isCountrySupported(country)) {
+            String errorMsg = String.format("%s country not supported.", country);
+            log.error(errorMsg);
+            throw new IbanException(errorMsg);
+        }
+        this.country = country;
+        this.count = count;
+        this.threads = threads;
+        this.format = format;
+    }
+
+    /**
+     * Generates the IBANs into the file, replacing it if it exists.
+     *
+     * @param out the output file
+     * @return the statistics of the run
+     * @throws IOException if writing fails
+     */
+    public Statistics generate(Path out) throws IOException {
+        AtomicLong claimed = new AtomicLong();
+        long start = System.nanoTime();
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try (FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CompletionService<Void> workers = new ExecutorCompletionService<>(executorService);
+            for (int i = 0; i < threads; i++) {
+                workers.submit(() -> {
+                    work(claimed, channel);
+                    return null;
+                });
+            }
+            // in the order of completion, so that the first failing worker stops the others
+            for (int i = 0; i < threads; i++) {
+                workers.take().get();
+            }
+            return new Statistics(count, threads, channel.size(), System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IbanException(e.getCause().getMessage());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void work(AtomicLong claimed, FileChannel channel) throws IOException {
+        Random random = ThreadLocalRandom.current();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        char[] line = new char[LayoutIbanFormatter.MAX_LENGTH];
+        long from;
+        while ((from = claimed.getAndAdd(BLOCK_SIZE)) < count && !Thread.currentThread().isInterrupted()) {
+            long blockSize = Math.min(BLOCK_SIZE, count - from);
+            int failedAttempts = 0;
+            for (long i = 0; i < blockSize; ) {
+                Iban iban = IbanApi.generateFor(country, ibanFormatter, countryFormatProvider, random);
+                if (iban == null) {
+                    // repeatedly collided with already generated IBANs, try again unless the space is exhausted
+                    if (++failedAttempts == MAX_FAILED_ATTEMPTS) {
+                        String errorMsg = String.format(
+                                "Failed to generate a unique IBAN of %s %d times in a row, giving up.",
+                                country, MAX_FAILED_ATTEMPTS);
+                        log.error(errorMsg);
+                        throw new IbanException(errorMsg);
+                    }
+                    continue;
+                }
+                failedAttempts = 0;
+                int length = format == Format.COMPACT ? ibanFormatter.writeCompact(iban, line, 0) :
+                        format == Format.PAPER ? ibanFormatter.writeHumanReadable(iban, line, 0) :
+                                ibanFormatter.writeMasked(iban, line, 0);
+                if (buffer.remaining() < length + 1) {
+                    flush(buffer, channel);
+                }
+                for (int c = 0; c < length; c++) {
+                    buffer.put((byte) line[c]);
+                }
+                buffer.put((byte) '\n');
+                i++;
+            }
+        }
+        flush(buffer, channel);
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        // writes of a channel are serialized, each buffer lands in the file as a whole
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * The outcome of a run.
+     */
+    public static final class Statistics {
+        private final long count;
+        private final int threads;
+        private final long bytes;
+        private final long elapsedNanos;
+
+        Statistics(long count, int threads, long bytes, long elapsedNanos) {
+            this.count = count;
+            this.threads = threads;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getIbansPerSecond() {
+            return elapsedNanos == 0 ? 0 : count * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d IBANs (%d bytes) with %d threads in %.3f s: %.0f IBANs/s, %.1f MB/s",
+                    count, bytes, threads, elapsedNanos / 1e9, getIbansPerSecond(),
+                    elapsedNanos == 0 ? 0 : bytes * 1e9 / elapsedNanos / (1 << 20));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        CountryISO country = null;
+        long count = -1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Format format = Format.COMPACT;
+        Path out = null;
+        int nodeId = 0;
+        int nodeCount = 1;
+        try {
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--country":
+                        country = CountryISO.forCaseInsensitiveCode(value);
+                        break;
+                    case "--count":
+                        count = Long.parseLong(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--format":
+                        format = Format.valueOf(value.toUpperCase());
+                        break;
+                    case "--node-id":
+                        nodeId = Integer.parseInt(value);
+                        break;
+                    case "--node-count":
+                        nodeCount = Integer.parseInt(value);
+                        break;
+                    case "--out":
+                        out = Paths.get(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            country = null;
+        }
+        if (country == null || count < 0 || out == null) {
+            System.err.println("Usage: BulkGenerator --country DE --count 1000000 [--threads 8] " +
+                    "[--format compact|paper|masked] [--node-id 0 --node-count 1] --out ibans.txt");
+            System.exit(1);
+        }
+        if (nodeCount > 1) {
+            IbanApi.enableNodePartition(nodeId, nodeCount);
+        }
+        System.out.println(new BulkGenerator(country, count, threads, format).generate(out));
+    }
+}
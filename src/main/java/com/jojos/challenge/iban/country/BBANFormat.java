@@ -82,6 +82,10 @@ public class BBANFormat {
             return charType;
         }
 
+        public BBANSubType getBbanSubType() {
+            return bbanSubType;
+        }
+
     }
 
     /**
@@ -1,5 +1,8 @@
 package com.jojos.challenge.iban.country;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 import static com.jojos.challenge.iban.country.BBANFormat.BBANFormatElement;
 import static com.jojos.challenge.iban.country.BBANFormat.CharType;
 import static com.jojos.challenge.iban.country.BBANFormat.BBANSubType;
@@ -53,6 +56,14 @@ public enum CountryFormat {
 //            withElement(BBANFormatElement.of(8, CharType.N, BBANSubType.ACCOUNT_NUMBER)).
 //            createBBANFormat());
 
+    private static final Map<CountryISO, CountryFormat> BY_COUNTRY = new EnumMap<>(CountryISO.class);
+
+    static {
+        for (CountryFormat countryFormat : values()) {
+            BY_COUNTRY.put(countryFormat.getCountryISO(), countryFormat);
+        }
+    }
+
     private final CountryISO countryISO;
     private final int numberOfChars;
     private final BBANFormat bbanFormat;
@@ -82,11 +93,6 @@ public enum CountryFormat {
      * @return a country format
      */
     public static CountryFormat valueOf(CountryISO countryISO) {
-        for (CountryFormat countryFormat : values()) {
-            if (countryFormat.getCountryISO() == countryISO) {
-                return countryFormat;
-            }
-        }
-        return null;
+        return countryISO == null ? null : BY_COUNTRY.get(countryISO);
     }
 }
@@ -6,16 +6,16 @@ package com.jojos.challenge.iban.country;
  * Created by karanikasg@gmail.com.
  */
 public class CountryFormatProviderFactory {
-    private static volatile CountryFormatProvider defaultCountryFormatProvider;
 
     public static CountryFormatProvider getDefaultCountryFormatProvider() {
-        if (defaultCountryFormatProvider == null) {
-            synchronized (CountryFormatProviderFactory.class) {
-                if (defaultCountryFormatProvider == null) {
-                    defaultCountryFormatProvider = new CountryFormatProviderLimitedImpl();
-                }
-            }
-        }
-        return defaultCountryFormatProvider;
+        return DefaultCountryFormatProviderHolder.INSTANCE;
+    }
+
+    /**
+     * Lazy initialization holder. The JVM initializes it on first access, callers never contend on a monitor
+     * afterwards.
+     */
+    private static class DefaultCountryFormatProviderHolder {
+        private static final CountryFormatProvider INSTANCE = new CountryFormatProviderLimitedImpl();
     }
 }
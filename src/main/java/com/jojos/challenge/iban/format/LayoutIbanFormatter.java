@@ -0,0 +1,265 @@
+package com.jojos.challenge.iban.format;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.country.CountryISO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An {@link IbanFormatter} following the IBAN layout of every country, e.g. {@code DEkk bbbb bbbb cccc cccc cc},
+ * as listed in {@value #LAYOUTS}.
+ *
+ * Every layout is compiled once into a copy plan: for every output character, the index of the compact IBAN
+ * character to copy or a space. Formatting then copies the characters of the IBAN straight into a buffer of the
+ * final size, without intermediate strings or regular expressions. Besides the compact and the paper forms,
+ * {@link #asMaskedString(Iban)} writes the paper form showing only the country code, the bank code and the last
+ * {@value #VISIBLE_SUFFIX} characters, for logs and reports.
+ *
+ * The {@code write} methods write the same forms into a caller's buffer without allocating, for bulk output.
+ *
+ * Countries without a layout are grouped by four characters, like {@link DefaultIbanFormatter}.
+ */
+public class LayoutIbanFormatter implements IbanFormatter {
+    private static final Logger log = LoggerFactory.getLogger(LayoutIbanFormatter.class);
+
+    static final String LAYOUTS = "supported_country_formats.txt";
+
+    /**
+     * The length of the longest paper form: 34 characters and a space every four.
+     */
+    public static final int MAX_LENGTH = 42;
+
+    private static final char MASK = '*';
+    private static final int VISIBLE_SUFFIX = 4;
+    private static final char BANK_CODE = 'b';
+    // marks an output space in a copy plan
+    private static final int SPACE = -1;
+
+    /**
+     * {@inheritDoc}
+     *
+     * The groups of the layout of the country, separated by single spaces.
+     */
+    @Override
+    public String asHumanReadableString(Iban iban) {
+        Plan plan = Plans.planFor(iban.getCountryFormat().getCountryISO(), length(iban));
+        return format(iban, plan, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String asString(Iban iban) {
+        char[] buffer = new char[length(iban)];
+        writeCompact(iban, buffer, 0, buffer.length);
+        return new String(buffer);
+    }
+
+    /**
+     * The paper form of the iban with all the characters but the country code, the bank code and the last
+     * {@value #VISIBLE_SUFFIX} replaced by {@code *}, e.g. {@code DE** 3704 0044 **** **30 00}.
+     *
+     * @param iban the iban to format
+     * @return the masked string
+     */
+    public String asMaskedString(Iban iban) {
+        Plan plan = Plans.planFor(iban.getCountryFormat().getCountryISO(), length(iban));
+        return format(iban, plan, true);
+    }
+
+    /**
+     * Writes the form of {@link #asString(Iban)} without allocating.
+     *
+     * @param iban the iban to format
+     * @param buffer the buffer, with room for the {@link #MAX_LENGTH} characters of any IBAN
+     * @param offset the index of the first character to write
+     * @return the index after the last written character
+     */
+    public int writeCompact(Iban iban, char[] buffer, int offset) {
+        writeCompact(iban, buffer, offset, length(iban));
+        return offset + length(iban);
+    }
+
+    /**
+     * Writes the form of {@link #asHumanReadableString(Iban)} without allocating.
+     *
+     * @param iban the iban to format
+     * @param buffer the buffer, with room for the {@link #MAX_LENGTH} characters of any IBAN
+     * @param offset the index of the first character to write
+     * @return the index after the last written character
+     */
+    public int writeHumanReadable(Iban iban, char[] buffer, int offset) {
+        Plan plan = Plans.planFor(iban.getCountryFormat().getCountryISO(), length(iban));
+        return write(iban, plan, false, buffer, offset);
+    }
+
+    /**
+     * Writes the form of {@link #asMaskedString(Iban)} without allocating.
+     *
+     * @param iban the iban to format
+     * @param buffer the buffer, with room for the {@link #MAX_LENGTH} characters of any IBAN
+     * @param offset the index of the first character to write
+     * @return the index after the last written character
+     */
+    public int writeMasked(Iban iban, char[] buffer, int offset) {
+        Plan plan = Plans.planFor(iban.getCountryFormat().getCountryISO(), length(iban));
+        return write(iban, plan, true, buffer, offset);
+    }
+
+    private static String format(Iban iban, Plan plan, boolean masked) {
+        char[] buffer = new char[plan.sources.length];
+        write(iban, plan, masked, buffer, 0);
+        return new String(buffer);
+    }
+
+    private static int write(Iban iban, Plan plan, boolean masked, char[] buffer, int offset) {
+        String code = iban.getCountryFormat().getCountryISO().getCode();
+        int[] checkDigits = iban.getCheckDigits();
+        char[] bban = iban.getBban();
+        for (int i = 0; i < plan.sources.length; i++) {
+            int source = plan.sources[i];
+            char c;
+            if (source == SPACE) {
+                c = ' ';
+            } else if (masked && !plan.visible[source]) {
+                c = MASK;
+            } else if (source >= 4) {
+                c = bban[source - 4];
+            } else {
+                c = source < 2 ? code.charAt(source) : (char) ('0' + checkDigits[source - 2]);
+            }
+            buffer[offset + i] = c;
+        }
+        return offset + plan.sources.length;
+    }
+
+    private static int length(Iban iban) {
+        return 4 + iban.getBban().length;
+    }
+
+    private static void writeCompact(Iban iban, char[] buffer, int offset, int length) {
+        String code = iban.getCountryFormat().getCountryISO().getCode();
+        int[] checkDigits = iban.getCheckDigits();
+        buffer[offset] = code.charAt(0);
+        buffer[offset + 1] = code.charAt(1);
+        buffer[offset + 2] = (char) ('0' + checkDigits[0]);
+        buffer[offset + 3] = (char) ('0' + checkDigits[1]);
+        System.arraycopy(iban.getBban(), 0, buffer, offset + 4, length - 4);
+    }
+
+    /**
+     * The copy plan of a layout.
+     */
+    static final class Plan {
+        // per output character, the index of the compact character or SPACE
+        private final int[] sources;
+        // per compact character, whether it is shown when masked
+        private final boolean[] visible;
+
+        private Plan(int[] sources, boolean[] visible) {
+            this.sources = sources;
+            this.visible = visible;
+        }
+
+        /**
+         * @param layout the layout, e.g. {@code DEkk bbbb bbbb cccc cccc cc}
+         * @return the plan or null if the layout is malformed
+         */
+        static Plan compile(String layout) {
+            int length = 0;
+            for (int i = 0; i < layout.length(); i++) {
+                if (layout.charAt(i) != ' ') {
+                    length++;
+                }
+            }
+            if (length < 4 || layout.charAt(0) == ' ' || layout.charAt(layout.length() - 1) == ' ' ||
+                    layout.contains("  ")) {
+                return null;
+            }
+            int[] sources = new int[layout.length()];
+            boolean[] visible = new boolean[length];
+            int source = 0;
+            for (int i = 0; i < layout.length(); i++) {
+                char c = layout.charAt(i);
+                if (c == ' ') {
+                    sources[i] = SPACE;
+                } else {
+                    sources[i] = source;
+                    visible[source] = source < 2 || c == BANK_CODE || source >= length - VISIBLE_SUFFIX;
+                    source++;
+                }
+            }
+            return new Plan(sources, visible);
+        }
+
+        /**
+         * @return the plan grouping by four characters
+         */
+        static Plan groupsOfFour(int length) {
+            StringBuilder layout = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                if (i > 0 && i % 4 == 0) {
+                    layout.append(' ');
+                }
+                layout.append(i < 2 ? 'X' : 'x');
+            }
+            return compile(layout.toString());
+        }
+    }
+
+    /**
+     * Lazy initialization holder of the plans of all the countries of the layout file.
+     */
+    private static class Plans {
+        private static final Map<CountryISO, Plan> PLANS = load();
+        private static final Map<Integer, Plan> FALLBACKS = new ConcurrentHashMap<>();
+
+        private static Plan planFor(CountryISO countryISO, int length) {
+            Plan plan = PLANS.get(countryISO);
+            if (plan != null && plan.visible.length == length) {
+                return plan;
+            }
+            return FALLBACKS.computeIfAbsent(length, Plan::groupsOfFour);
+        }
+
+        private static Map<CountryISO, Plan> load() {
+            Map<CountryISO, Plan> plans = new EnumMap<>(CountryISO.class);
+            InputStream in = LayoutIbanFormatter.class.getClassLoader().getResourceAsStream(LAYOUTS);
+            if (in == null) {
+                log.warn(String.format("%s not found, IBANs are grouped by four.", LAYOUTS));
+                return plans;
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    // e.g. DE;22;18n;DEkk bbbb bbbb cccc cccc cc
+                    String[] fields = line.split(";");
+                    if (line.startsWith("#") || fields.length < 4) {
+                        continue;
+                    }
+                    CountryISO countryISO = CountryISO.forCaseInsensitiveCode(fields[0].trim());
+                    Plan plan = Plan.compile(fields[3].trim());
+                    if (countryISO == null || plan == null ||
+                            !fields[1].trim().equals(String.valueOf(plan.visible.length))) {
+                        log.warn(String.format("Skipped the malformed layout %s.", line));
+                        continue;
+                    }
+                    plans.put(countryISO, plan);
+                }
+            } catch (IOException e) {
+                log.error(String.format("Failed to read %s, IBANs are grouped by four.", LAYOUTS), e);
+            }
+            return plans;
+        }
+    }
+}
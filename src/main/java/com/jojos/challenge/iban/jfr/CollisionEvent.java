@@ -0,0 +1,23 @@
+package com.jojos.challenge.iban.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.jojos.iban.Collision")
+@Label("IBAN Collision")
+@Category("IBAN Generator")
+@Description("Generated IBANs which had been generated before and are regenerated")
+final class CollisionEvent extends Event {
+
+    @Label("Country")
+    String country;
+
+    @Label("Count")
+    int count;
+
+    @Label("Attempt")
+    int attempt;
+}
@@ -0,0 +1,35 @@
+package com.jojos.challenge.iban.jfr;
+
+import com.jojos.challenge.iban.country.CountryISO;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.jojos.iban.Generation")
+@Label("IBAN Generation")
+@Category("IBAN Generator")
+@Description("The generation of IBANs of a country, from the first random BBAN to the reservation")
+@StackTrace(false)
+final class GenerationEvent extends Event implements IbanEvents.Generation {
+
+    @Label("Country")
+    String country;
+
+    @Label("Count")
+    int count;
+
+    @Label("Retries")
+    @Description("The regenerations caused by collisions or excluded IBANs")
+    int retries;
+
+    @Override
+    public void end(CountryISO country, int count, int retries) {
+        this.country = country.getCode();
+        this.count = count;
+        this.retries = retries;
+        commit();
+    }
+}
@@ -0,0 +1,116 @@
+package com.jojos.challenge.iban.jfr;
+
+import com.jojos.challenge.iban.country.CountryISO;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Java Flight Recorder events of the generation path, correlating latency spikes with collisions and the
+ * growth of the registry without logging every IBAN:
+ * <ul>
+ *     <li>{@code com.jojos.iban.Generation}, the duration of a generation with its country and retries</li>
+ *     <li>{@code com.jojos.iban.Collision}, a generated IBAN which had been generated before</li>
+ *     <li>{@code com.jojos.iban.RegistryThreshold}, the registry of a country reaching a size milestone, i.e. a
+ *     power of two, independent of the registry implementation</li>
+ *     <li>{@code com.jojos.iban.Throughput}, the IBANs generated per country, every second by default</li>
+ * </ul>
+ *
+ * The event classes are never touched before the flight recorder is initialized, as their first use would
+ * initialize it, which takes hundreds of milliseconds. Instead a {@link FlightRecorderListener} registers the
+ * events, the periodic throughput hook included, while the recorder initializes, i.e. before any recording applies
+ * its settings, so that recordings started at runtime, e.g. by {@code jcmd JFR.start}, record them as well as
+ * recordings started with the JVM. Until then every call costs a flag check. JVMs without JFR never register.
+ */
+public final class IbanEvents {
+
+    /**
+     * An ongoing generation, timed from {@link #beginGeneration()}.
+     */
+    public interface Generation {
+        /**
+         * Commits the event of the generation.
+         *
+         * @param country the country of the generated IBANs
+         * @param count the number of generated IBANs
+         * @param retries the number of regenerations caused by collisions or exclusions
+         */
+        void end(CountryISO country, int count, int retries);
+    }
+
+    static final Generation DISABLED = (country, count, retries) -> { };
+
+    private static volatile boolean active;
+
+    static {
+        if (isJfrPresent()) {
+            try {
+                listen();
+            } catch (LinkageError e) {
+                // the listener was loaded by a class loader other than the recorder's, e.g. a mocking one
+            }
+        }
+    }
+
+    private IbanEvents() {
+    }
+
+    /**
+     * @return the generation to end once the IBAN is reserved
+     */
+    public static Generation beginGeneration() {
+        return isActive() ? JfrEvents.beginGeneration() : DISABLED;
+    }
+
+    /**
+     * @param country the country of the colliding IBANs
+     * @param count the number of IBANs which had been generated before
+     * @param attempt the attempt of the generation, starting at 0
+     */
+    public static void collision(CountryISO country, int count, int attempt) {
+        if (isActive()) {
+            JfrEvents.collision(country, count, attempt);
+        }
+    }
+
+    /**
+     * Counts generated IBANs for the throughput event and, if its event is enabled, checks the registry size.
+     *
+     * @param country the country of the generated IBANs
+     * @param count the number of generated IBANs
+     * @param registrySize the size of the registry of a country, only applied if the threshold event is enabled
+     */
+    public static void generated(CountryISO country, int count, ToLongFunction<CountryISO> registrySize) {
+        if (isActive()) {
+            JfrEvents.generated(country, count, registrySize);
+        }
+    }
+
+    private static boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Called right away if the recorder is already initialized.
+     */
+    private static void listen() {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                // JfrEvents is not touched before, its initialization registers the events
+                JfrEvents.register();
+                active = true;
+            }
+        });
+    }
+
+    private static boolean isJfrPresent() {
+        try {
+            Class.forName("jdk.jfr.FlightRecorder", false, IbanEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
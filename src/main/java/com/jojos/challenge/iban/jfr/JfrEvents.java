@@ -0,0 +1,100 @@
+package com.jojos.challenge.iban.jfr;
+
+import com.jojos.challenge.iban.country.CountryISO;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Creates the events of {@link IbanEvents}. The class is initialized, and the throughput event registered,
+ * by {@link #register()} while the flight recorder initializes.
+ */
+final class JfrEvents {
+
+    // the first size milestone of a registry, doubling with every milestone reached, whatever the registry
+    private static final long FIRST_THRESHOLD = 1;
+
+    private static final EventType GENERATION = EventType.getEventType(GenerationEvent.class);
+    private static final EventType COLLISION = EventType.getEventType(CollisionEvent.class);
+    private static final EventType REGISTRY_THRESHOLD = EventType.getEventType(RegistryThresholdEvent.class);
+    private static final EventType THROUGHPUT = EventType.getEventType(ThroughputEvent.class);
+
+    private static final LongAdder[] GENERATED = new LongAdder[CountryISO.values().length];
+    // per country, the next registry size to report
+    private static final AtomicLongArray NEXT_THRESHOLDS = new AtomicLongArray(CountryISO.values().length);
+
+    static {
+        for (int i = 0; i < GENERATED.length; i++) {
+            GENERATED[i] = new LongAdder();
+            NEXT_THRESHOLDS.set(i, FIRST_THRESHOLD);
+        }
+        FlightRecorder.addPeriodicEvent(ThroughputEvent.class, JfrEvents::emitThroughput);
+    }
+
+    private JfrEvents() {
+    }
+
+    /**
+     * Initializes the class, nothing else to do.
+     */
+    static void register() {
+    }
+
+    static IbanEvents.Generation beginGeneration() {
+        if (!GENERATION.isEnabled()) {
+            return IbanEvents.DISABLED;
+        }
+        GenerationEvent event = new GenerationEvent();
+        event.begin();
+        return event;
+    }
+
+    static void collision(CountryISO country, int count, int attempt) {
+        if (COLLISION.isEnabled()) {
+            CollisionEvent event = new CollisionEvent();
+            event.country = country.getCode();
+            event.count = count;
+            event.attempt = attempt;
+            event.commit();
+        }
+    }
+
+    static void generated(CountryISO country, int count, ToLongFunction<CountryISO> registrySize) {
+        if (THROUGHPUT.isEnabled()) {
+            GENERATED[country.ordinal()].add(count);
+        }
+        if (REGISTRY_THRESHOLD.isEnabled()) {
+            long size = registrySize.applyAsLong(country);
+            long threshold = NEXT_THRESHOLDS.get(country.ordinal());
+            if (size >= threshold) {
+                long next = threshold;
+                while (next <= size) {
+                    next <<= 1;
+                }
+                // only the thread moving the threshold reports it
+                if (NEXT_THRESHOLDS.compareAndSet(country.ordinal(), threshold, next)) {
+                    RegistryThresholdEvent event = new RegistryThresholdEvent();
+                    event.country = country.getCode();
+                    event.size = size;
+                    event.threshold = next >>> 1;
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    private static void emitThroughput() {
+        for (CountryISO country : CountryISO.values()) {
+            long count = GENERATED[country.ordinal()].sumThenReset();
+            if (count > 0) {
+                ThroughputEvent event = new ThroughputEvent();
+                event.country = country.getCode();
+                event.count = count;
+                event.commit();
+            }
+        }
+    }
+}
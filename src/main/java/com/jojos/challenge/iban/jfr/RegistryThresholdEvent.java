@@ -0,0 +1,25 @@
+package com.jojos.challenge.iban.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.jojos.iban.RegistryThreshold")
+@Label("IBAN Registry Threshold")
+@Category("IBAN Generator")
+@Description("The registry of a country reached a size milestone, a power of two")
+@StackTrace(false)
+final class RegistryThresholdEvent extends Event {
+
+    @Label("Country")
+    String country;
+
+    @Label("Size")
+    long size;
+
+    @Label("Threshold")
+    long threshold;
+}
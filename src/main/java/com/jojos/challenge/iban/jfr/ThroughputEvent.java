@@ -0,0 +1,24 @@
+package com.jojos.challenge.iban.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+@Name("com.jojos.iban.Throughput")
+@Label("IBAN Throughput")
+@Category("IBAN Generator")
+@Description("The IBANs of a country generated since the previous period")
+@Period("1 s")
+@StackTrace(false)
+final class ThroughputEvent extends Event {
+
+    @Label("Country")
+    String country;
+
+    @Label("Count")
+    long count;
+}
@@ -0,0 +1,312 @@
+package com.jojos.challenge.iban.lease;
+
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.prefix.PrefixSpace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Hands out disjoint blocks of the IBAN space of every country to all the JVMs sharing a control file, e.g. the
+ * forks of a parallel test run, without any server.
+ *
+ * The control file is a single page on local disk, memory-mapped by every JVM. It holds, per country, the key of a
+ * {@link PrefixSpace} enumerating the whole BBAN space and the next index of that space to hand out. A JVM leases a
+ * block of indexes by reading and advancing the index under a lock of its 8 bytes of the file, then hands out the
+ * BBANs of the block from memory. Since the enumeration is a bijection and the blocks never overlap, BBANs of
+ * different JVMs never collide. The counters only grow, so IBANs stay unique across runs as long as the file is
+ * kept; delete it to start over.
+ *
+ * The second half of the page holds the counters of up to {@value #PREFIX_SLOTS} prefixes, see
+ * {@link #nextBban(CountryFormat, String)}, found by a hash of the country and the prefix. Prefixes of equal
+ * hashes share a counter, which only wastes indexes.
+ *
+ * Only the first JVM to open the file writes the keys, under a lock of the whole file.
+ *
+ * Countries whose BBAN cannot be encoded into a long are not leased, see {@link #nextBban(CountryFormat)}.
+ */
+public class BlockLeases implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(BlockLeases.class);
+
+    private static final long MAGIC = 0x4942414E4C454153L;
+    private static final int FILE_SIZE = 4096;
+    private static final int HEADER_SIZE = 64;
+    // per country: the key, then the next index; per prefix: the hash, then the next index
+    private static final int SLOT_SIZE = 16;
+    private static final int PREFIX_TABLE = FILE_SIZE / 2;
+    private static final int PREFIX_SLOTS = (FILE_SIZE - PREFIX_TABLE) / SLOT_SIZE;
+
+    private final Path file;
+    private final int blockSize;
+    private final FileChannel channel;
+    private final MappedByteBuffer page;
+    private final Map<CountryFormat, Block> blocks = new EnumMap<>(CountryFormat.class);
+    // by country code and prefix, guarded by blocks
+    private final Map<String, Block> prefixBlocks = new HashMap<>();
+    private volatile boolean closed;
+
+    private BlockLeases(Path file, int blockSize, FileChannel channel, MappedByteBuffer page) {
+        this.file = file;
+        this.blockSize = blockSize;
+        this.channel = channel;
+        this.page = page;
+    }
+
+    /**
+     * Opens the control file, creating and initializing it if needed.
+     *
+     * @param file the control file, shared by all the JVMs
+     * @param blockSize the number of BBANs leased at once, larger blocks touch the shared page less often
+     * @return the leases of this JVM
+     * @throws IOException if the file cannot be mapped.
+     * @throws IbanException if the file is not a control file.
+     */
+    public static BlockLeases open(Path file, int blockSize) throws IOException, IbanException {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException(String.format("Invalid block size %d.", blockSize));
+        }
+        if (HEADER_SIZE + CountryFormat.values().length * SLOT_SIZE > PREFIX_TABLE) {
+            throw new IllegalStateException("Too many countries for the control file.");
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer page = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+            page.order(ByteOrder.nativeOrder());
+            initialize(file, channel, page);
+            return new BlockLeases(file, blockSize, channel, page);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * File locks are held by the whole JVM, so concurrent opens within the JVM are serialized first.
+     */
+    private static synchronized void initialize(Path file, FileChannel channel, MappedByteBuffer page)
+            throws IOException {
+        try (FileLock ignored = channel.lock()) {
+            long magic = page.getLong(0);
+            if (magic == MAGIC) {
+                return;
+            }
+            if (magic != 0) {
+                String errorMsg = String.format("%s is not an IBAN lease control file.", file);
+                log.error(errorMsg);
+                throw new IbanException(errorMsg);
+            }
+            for (CountryFormat countryFormat : CountryFormat.values()) {
+                page.putLong(slot(countryFormat), ThreadLocalRandom.current().nextLong());
+            }
+            page.force();
+            page.putLong(0, MAGIC);
+            page.force();
+            log.info(String.format("Initialized the IBAN lease control file %s.", file));
+        }
+    }
+
+    /**
+     * Hands out the next BBAN leased by this JVM, leasing a new block when the current one is used up.
+     *
+     * @param countryFormat the format of the country in question
+     * @return the bban, never handed out by any JVM sharing the control file, or null if the BBAN of the country
+     * cannot be encoded into a long
+     * @throws IbanException if the whole space of the country has been leased.
+     */
+    public char[] nextBban(CountryFormat countryFormat) throws IbanException {
+        Block block;
+        synchronized (blocks) {
+            block = blocks.get(countryFormat);
+            if (block == null) {
+                block = newBlock(countryFormat);
+                blocks.put(countryFormat, block);
+            }
+        }
+        return block.space == null ? null : block.next();
+    }
+
+    /**
+     * Hands out the next BBAN of the prefix leased by this JVM, leasing a new block when the current one is used up.
+     *
+     * @param countryFormat the format of the country in question
+     * @param prefix the leading characters of the BBAN
+     * @return the bban, never handed out for the prefix by any JVM sharing the control file
+     * @throws IbanException if the prefix does not fit the country, the whole space of the prefix has been leased
+     * or the control file has no room for another prefix.
+     */
+    public char[] nextBban(CountryFormat countryFormat, String prefix) throws IbanException {
+        String key = countryFormat.getCountryISO().getCode() + prefix;
+        Block block;
+        synchronized (blocks) {
+            block = prefixBlocks.get(key);
+            if (block == null) {
+                long hash = hash(key);
+                PrefixSpace space = PrefixSpace.of(countryFormat, prefix, page.getLong(slot(countryFormat)) ^ hash);
+                block = new Block(countryFormat + " with prefix " + prefix, space, claim(key, hash));
+                prefixBlocks.put(key, block);
+            }
+        }
+        return block.next();
+    }
+
+    private Block newBlock(CountryFormat countryFormat) {
+        try {
+            return new Block(countryFormat.toString(),
+                    PrefixSpace.of(countryFormat, "", page.getLong(slot(countryFormat))), slot(countryFormat) + 8);
+        } catch (IbanException e) {
+            log.warn(String.format("%s is not leased, its BBANs are random.", countryFormat));
+            return new Block(countryFormat.toString(), null, slot(countryFormat) + 8);
+        }
+    }
+
+    /**
+     * @return the index of the first BBAN of a new block of the counter
+     */
+    private long lease(int counter) {
+        if (closed) {
+            throw new IllegalStateException("The leases are closed.");
+        }
+        return getAndAdd(counter, blockSize);
+    }
+
+    /**
+     * Finds the counter of a prefix in the prefix table, taking a free slot for a new prefix.
+     *
+     * @return the offset of the counter
+     * @throws IbanException if the file cannot be locked or the table is full.
+     */
+    private int claim(String key, long hash) throws IbanException {
+        synchronized (BlockLeases.class) {
+            try (FileLock ignored = channel.lock(PREFIX_TABLE, FILE_SIZE - PREFIX_TABLE, false)) {
+                for (int offset = PREFIX_TABLE; offset < FILE_SIZE; offset += SLOT_SIZE) {
+                    long slotHash = page.getLong(offset);
+                    if (slotHash == 0) {
+                        page.putLong(offset, hash);
+                    }
+                    if (slotHash == 0 || slotHash == hash) {
+                        return offset + 8;
+                    }
+                }
+            } catch (IOException e) {
+                String errorMsg = String.format("Failed to lock %s: %s", file, e);
+                log.error(errorMsg, e);
+                throw new IbanException(errorMsg);
+            }
+        }
+        String errorMsg = String.format("No room for prefix %s left in %s, %d prefixes are leased.",
+                key, file, PREFIX_SLOTS);
+        log.error(errorMsg);
+        throw new IbanException(errorMsg);
+    }
+
+    /**
+     * @param countryFormat the format of the country in question
+     * @return the number of BBANs of the country leased so far by all the JVMs
+     */
+    public long getLeased(CountryFormat countryFormat) {
+        return getAndAdd(slot(countryFormat) + 8, 0);
+    }
+
+    /**
+     * Reads and advances a counter of the page under a lock of its bytes, atomic across processes. File locks are
+     * held by the whole JVM, so the threads and control files of this JVM take turns first.
+     *
+     * @return the value of the counter before the add
+     * @throws IbanException if the file cannot be locked.
+     */
+    private long getAndAdd(int offset, long delta) throws IbanException {
+        synchronized (BlockLeases.class) {
+            try (FileLock ignored = channel.lock(offset, 8, delta == 0)) {
+                long value = page.getLong(offset);
+                if (delta != 0) {
+                    page.putLong(offset, value + delta);
+                }
+                return value;
+            } catch (IOException e) {
+                String errorMsg = String.format("Failed to lock %s: %s", file, e);
+                log.error(errorMsg, e);
+                throw new IbanException(errorMsg);
+            }
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Closes the control file. The unused part of the current blocks is lost, other JVMs are not affected.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        channel.close();
+    }
+
+    private static int slot(CountryFormat countryFormat) {
+        return HEADER_SIZE + countryFormat.ordinal() * SLOT_SIZE;
+    }
+
+    /**
+     * @return a hash of the country code and prefix, never 0 which marks a free slot
+     */
+    private static long hash(String key) {
+        long hash = 0;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash + key.charAt(i)) * 0x9E3779B97F4A7C15L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private final class Block {
+        private final String name;
+        private final PrefixSpace space;
+        // the offset of the counter in the page
+        private final int counter;
+        private long next;
+        private long end;
+
+        private Block(String name, PrefixSpace space, int counter) {
+            this.name = name;
+            this.space = space;
+            this.counter = counter;
+        }
+
+        private synchronized char[] next() {
+            char[] bban;
+            do {
+                if (next == end) {
+                    long start = lease(counter);
+                    if (start >= space.getSize()) {
+                        String errorMsg = String.format("All the IBANs of %s have been leased from %s.",
+                                name, file);
+                        log.error(errorMsg);
+                        throw new IbanException(errorMsg);
+                    }
+                    next = start;
+                    end = Math.min(start + blockSize, space.getSize());
+                }
+                // null for the indexes without a solvable national check digit
+                bban = space.bbanAt(next++);
+            } while (bban == null);
+            return bban;
+        }
+    }
+}
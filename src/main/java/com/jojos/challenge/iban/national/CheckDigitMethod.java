@@ -0,0 +1,179 @@
+package com.jojos.challenge.iban.national;
+
+/**
+ * A weighted modulus national check digit method, defined by a table rather than by code.
+ *
+ * The digits of the account number are multiplied by their weight and summed, optionally summing the digits of
+ * every product first (cross sum). The check digit is then either the one making the sum including the check
+ * digit divisible by the modulus ({@link Rule#ZERO_SUM}) or the complement of the remainder of the sum without the
+ * check digit ({@link Rule#COMPLEMENT}).
+ *
+ * The check digit is always solved for, never searched for by rejection. {@link Rule#ZERO_SUM} with a modulus
+ * above 10 has draws without a solving digit, those are fixed by incrementing the digit at the bump index once,
+ * which changes the sum by a weight the unsolvable remainder does not share.
+ */
+public final class CheckDigitMethod {
+
+    public enum Rule {
+        /**
+         * The weighted sum including the check digit must be divisible by the modulus.
+         */
+        ZERO_SUM,
+        /**
+         * The check digit is the modulus minus the remainder of the weighted sum, 0 if that is not a single digit.
+         */
+        COMPLEMENT
+    }
+
+    /**
+     * Deutsche Bundesbank method 00: weights 2, 1, 2, ... from the right, cross sums of the products,
+     * modulus 10, the check digit is the last of the 10 account digits.
+     */
+    public static final CheckDigitMethod DE_00 = new CheckDigitMethod("DE-00",
+            new int[]{2, 1, 2, 1, 2, 1, 2, 1, 2, 0}, 9, 10, true, Rule.COMPLEMENT, -1);
+
+    /**
+     * Deutsche Bundesbank method 06: weights 2, 3, 4, 5, 6, 7, 2, ... from the right, modulus 11,
+     * the check digit is the last of the 10 account digits, 0 if the complement is 10 or 11.
+     */
+    public static final CheckDigitMethod DE_06 = new CheckDigitMethod("DE-06",
+            new int[]{4, 3, 2, 7, 6, 5, 4, 3, 2, 0}, 9, 11, false, Rule.COMPLEMENT, -1);
+
+    /**
+     * Dutch eleven test (elfproef): weights 10 down to 1, the weighted sum of the 10 account digits must be
+     * divisible by 11. When the last digit cannot be solved the digit of weight 2 is incremented.
+     */
+    public static final CheckDigitMethod NL_ELFPROEF = new CheckDigitMethod("NL-11",
+            new int[]{10, 9, 8, 7, 6, 5, 4, 3, 2, 1}, 9, 11, false, Rule.ZERO_SUM, 8);
+
+    private final String name;
+    private final int[] weights;
+    private final int checkIndex;
+    private final int modulus;
+    private final boolean crossSum;
+    private final Rule rule;
+    private final int bumpIndex;
+
+    /**
+     * @param name a short name of the method
+     * @param weights the weight of every account digit, left to right
+     * @param checkIndex the index of the check digit within the account digits
+     * @param modulus the modulus
+     * @param crossSum true if the digits of every product are summed
+     * @param rule how the check digit derives from the weighted sum
+     * @param bumpIndex the index of the digit to increment when the check digit cannot be solved,
+     *                  -1 if the rule always has a solution
+     */
+    public CheckDigitMethod(String name, int[] weights, int checkIndex, int modulus, boolean crossSum, Rule rule,
+                            int bumpIndex) {
+        this.name = name;
+        this.weights = weights.clone();
+        this.checkIndex = checkIndex;
+        this.modulus = modulus;
+        this.crossSum = crossSum;
+        this.rule = rule;
+        this.bumpIndex = bumpIndex;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the number of account digits the method covers
+     */
+    public int getLength() {
+        return weights.length;
+    }
+
+    /**
+     * @return the index of the check digit within the account digits
+     */
+    public int getCheckIndex() {
+        return checkIndex;
+    }
+
+    /**
+     * @return the index of the digit incremented when the check digit cannot be solved, -1 if never
+     */
+    public int getBumpIndex() {
+        return bumpIndex;
+    }
+
+    /**
+     * Overwrites the check digit of the account digits starting at the offset so that they pass the method.
+     * Runs in constant time.
+     *
+     * @param bban the bban, modified in place
+     * @param offset the index of the first account digit
+     */
+    public void apply(char[] bban, int offset) {
+        int check = checkDigit(bban, offset);
+        // the bump changes the sum by a value coprime to the modulus, a couple of bumps at most are needed
+        for (int i = 0; check < 0 && i < 10; i++) {
+            int bumped = offset + bumpIndex;
+            bban[bumped] = bban[bumped] == '9' ? '0' : (char) (bban[bumped] + 1);
+            check = checkDigit(bban, offset);
+        }
+        bban[offset + checkIndex] = (char) ('0' + check);
+    }
+
+    /**
+     * Overwrites the check digit of the account digits starting at the offset so that they pass the method, without
+     * bumping any other digit. Runs in constant time.
+     *
+     * @param bban the bban, modified in place
+     * @param offset the index of the first account digit
+     * @return false if no check digit makes the account digits pass the method, the bban is then left unchanged
+     */
+    public boolean solve(char[] bban, int offset) {
+        int check = checkDigit(bban, offset);
+        if (check < 0) {
+            return false;
+        }
+        bban[offset + checkIndex] = (char) ('0' + check);
+        return true;
+    }
+
+    /**
+     * @param bban the bban
+     * @param offset the index of the first account digit
+     * @return true if the account digits pass the method
+     */
+    public boolean isValid(char[] bban, int offset) {
+        int check = checkDigit(bban, offset);
+        return check >= 0 && bban[offset + checkIndex] == '0' + check;
+    }
+
+    /**
+     * @return the check digit of the account digits or -1 if no digit satisfies the method.
+     */
+    private int checkDigit(char[] bban, int offset) {
+        int sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (i != checkIndex) {
+                sum += contribution(bban[offset + i] - '0', weights[i]);
+            }
+        }
+        if (rule == Rule.COMPLEMENT) {
+            int check = modulus - sum % modulus;
+            return check > 9 ? 0 : check;
+        }
+        for (int check = 0; check <= 9; check++) {
+            if ((sum + contribution(check, weights[checkIndex])) % modulus == 0) {
+                return check;
+            }
+        }
+        return -1;
+    }
+
+    private int contribution(int digit, int weight) {
+        int product = digit * weight;
+        return crossSum ? product / 10 + product % 10 : product;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,180 @@
+package com.jojos.challenge.iban.national;
+
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.BBANFormat;
+import com.jojos.challenge.iban.country.CountryFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.jojos.challenge.iban.country.BBANFormat.BBANFormatElement;
+import static com.jojos.challenge.iban.country.BBANFormat.BBANSubType;
+
+/**
+ * The national check digit methods applied to the account number of the countries having one.
+ * <ul>
+ *     <li>{@link CountryFormat#Germany}: {@link CheckDigitMethod#DE_00} unless another method is registered for
+ *          the bank code (BLZ), see {@link #register(CountryFormat, String, CheckDigitMethod)}</li>
+ *     <li>{@link CountryFormat#Netherlands}: {@link CheckDigitMethod#NL_ELFPROEF}</li>
+ * </ul>
+ * All the methods of a country must share the check digit and bump positions, so that they are known without a
+ * bank code.
+ */
+public class NationalCheckDigits {
+    private static final Logger log = LoggerFactory.getLogger(NationalCheckDigits.class);
+
+    private static final Map<CountryFormat, Scheme> SCHEMES = new EnumMap<>(CountryFormat.class);
+
+    static {
+        SCHEMES.put(CountryFormat.Germany, new Scheme(CountryFormat.Germany, CheckDigitMethod.DE_00));
+        SCHEMES.put(CountryFormat.Netherlands, new Scheme(CountryFormat.Netherlands, CheckDigitMethod.NL_ELFPROEF));
+    }
+
+    /**
+     * Overwrites the national check digit of the bban, if the country has one. Runs in constant time.
+     *
+     * @param countryFormat the format of the country in question
+     * @param bban the bban, modified in place
+     */
+    public static void apply(CountryFormat countryFormat, char[] bban) {
+        Scheme scheme = SCHEMES.get(countryFormat);
+        if (scheme != null) {
+            scheme.methodFor(bban).apply(bban, scheme.accountOffset);
+        }
+    }
+
+    /**
+     * Overwrites the national check digit of the bban, if the country has one, without altering any other digit.
+     * Runs in constant time.
+     *
+     * @param countryFormat the format of the country in question
+     * @param bban the bban, modified in place
+     * @return false if no national check digit makes the bban pass, e.g. about 1 in 11 Dutch draws, the bban is
+     * then left unchanged
+     */
+    public static boolean solve(CountryFormat countryFormat, char[] bban) {
+        Scheme scheme = SCHEMES.get(countryFormat);
+        return scheme == null || scheme.methodFor(bban).solve(bban, scheme.accountOffset);
+    }
+
+    /**
+     * @param countryFormat the format of the country in question
+     * @param bban the bban
+     * @return true if the country has no national check digit or the bban passes it
+     */
+    public static boolean isValid(CountryFormat countryFormat, char[] bban) {
+        Scheme scheme = SCHEMES.get(countryFormat);
+        return scheme == null || scheme.methodFor(bban).isValid(bban, scheme.accountOffset);
+    }
+
+    /**
+     * @param countryFormat the format of the country in question
+     * @return the index of the national check digit within the bban or -1 if the country has none
+     */
+    public static int checkPosition(CountryFormat countryFormat) {
+        Scheme scheme = SCHEMES.get(countryFormat);
+        return scheme == null ? -1 : scheme.accountOffset + scheme.defaultMethod.getCheckIndex();
+    }
+
+    /**
+     * @param countryFormat the format of the country in question
+     * @return the index within the bban of the digit incremented when the national check digit cannot be solved,
+     * -1 if the country has none
+     */
+    public static int bumpPosition(CountryFormat countryFormat) {
+        Scheme scheme = SCHEMES.get(countryFormat);
+        return scheme == null || scheme.defaultMethod.getBumpIndex() < 0 ? -1 :
+                scheme.accountOffset + scheme.defaultMethod.getBumpIndex();
+    }
+
+    /**
+     * A prefix covering the national check digit, or the digit the method increments when the check digit cannot be
+     * solved, fixes the outcome of the method: the check digit can then only be verified, not applied.
+     *
+     * @param countryFormat the format of the country in question
+     * @param prefix the leading characters of the bban
+     * @return true unless the bbans starting with the prefix cannot pass the national check digit
+     */
+    public static boolean isValidPrefix(CountryFormat countryFormat, String prefix) {
+        Scheme scheme = SCHEMES.get(countryFormat);
+        int bumpPosition = bumpPosition(countryFormat);
+        if (scheme == null || checkPosition(countryFormat) >= prefix.length() &&
+                (bumpPosition < 0 || bumpPosition >= prefix.length())) {
+            return true;
+        }
+        char[] bban = new char[countryFormat.getBbanFormat().getNumberOfCharacters()];
+        Arrays.fill(bban, '0');
+        prefix.getChars(0, prefix.length(), bban, 0);
+        scheme.methodFor(bban).apply(bban, scheme.accountOffset);
+        return new String(bban, 0, prefix.length()).equals(prefix);
+    }
+
+    /**
+     * Registers the method used by a bank of a country with national check digits.
+     *
+     * @param countryFormat the format of the country in question
+     * @param bankCode the bank code, e.g. the BLZ
+     * @param method the check digit method of the bank
+     * @throws IbanException if the country has no national check digit or the method does not fit its scheme.
+     */
+    public static void register(CountryFormat countryFormat, String bankCode, CheckDigitMethod method)
+            throws IbanException {
+        Scheme scheme = SCHEMES.get(countryFormat);
+        if (scheme == null || bankCode.length() != scheme.bankCodeLength ||
+                method.getLength() != scheme.defaultMethod.getLength() ||
+                method.getCheckIndex() != scheme.defaultMethod.getCheckIndex() ||
+                method.getBumpIndex() != scheme.defaultMethod.getBumpIndex()) {
+            String errorMsg = String.format("Method %s for bank code %s does not fit the national check digits of %s.",
+                    method, bankCode, countryFormat);
+            log.error(errorMsg);
+            throw new IbanException(errorMsg);
+        }
+        scheme.bankMethods.put(bankCode, method);
+    }
+
+    private static final class Scheme {
+        private final CheckDigitMethod defaultMethod;
+        private final Map<String, CheckDigitMethod> bankMethods = new ConcurrentHashMap<>();
+        private final int bankCodeOffset;
+        private final int bankCodeLength;
+        private final int accountOffset;
+
+        private Scheme(CountryFormat countryFormat, CheckDigitMethod defaultMethod) {
+            this.defaultMethod = defaultMethod;
+            int position = 0;
+            int bankCodeOffset = -1;
+            int bankCodeLength = 0;
+            int accountOffset = -1;
+            for (BBANFormatElement element : countryFormat.getBbanFormat().getBbanFormatElements()) {
+                if (element.getBbanSubType() == BBANSubType.BANK_CODE) {
+                    bankCodeOffset = position;
+                    bankCodeLength = element.getNumberOfChars();
+                } else if (element.getBbanSubType() == BBANSubType.ACCOUNT_NUMBER &&
+                        element.getCharType() == BBANFormat.CharType.N &&
+                        element.getNumberOfChars() == defaultMethod.getLength()) {
+                    accountOffset = position;
+                }
+                position += element.getNumberOfChars();
+            }
+            if (bankCodeOffset < 0 || accountOffset < 0) {
+                throw new IllegalStateException(String.format("%s does not fit the format of %s.",
+                        defaultMethod, countryFormat));
+            }
+            this.bankCodeOffset = bankCodeOffset;
+            this.bankCodeLength = bankCodeLength;
+            this.accountOffset = accountOffset;
+        }
+
+        private CheckDigitMethod methodFor(char[] bban) {
+            if (bankMethods.isEmpty()) {
+                return defaultMethod;
+            }
+            CheckDigitMethod method = bankMethods.get(new String(bban, bankCodeOffset, bankCodeLength));
+            return method == null ? defaultMethod : method;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.jojos.challenge.iban.partition;
+
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.BBANFormat;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.national.NationalCheckDigits;
+import com.jojos.challenge.iban.util.BbanCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.jojos.challenge.iban.country.BBANFormat.BBANFormatElement;
+import static com.jojos.challenge.iban.country.BBANFormat.BBANSubType;
+
+/**
+ * Splits the IBAN space of every country between the nodes of a generator fleet without any coordination.
+ *
+ * The leading characters of the ACCOUNT_NUMBER element are reserved for the node id, written in the radix of the
+ * element's char type, e.g. 2 digits for up to 100 nodes. IBANs of different nodes therefore always differ in
+ * those characters and never collide, as long as every node has a distinct id and all share the node count.
+ * The reserved characters must lie before the national check digit and the digit the check digit method adjusts.
+ */
+public class NodePartition {
+    private static final Logger log = LoggerFactory.getLogger(NodePartition.class);
+
+    private final int nodeId;
+    private final int nodeCount;
+    private final Map<CountryFormat, Layout> layouts = new ConcurrentHashMap<>();
+
+    /**
+     * @param nodeId the id of this node in {@code [0, nodeCount)}
+     * @param nodeCount the number of nodes of the fleet
+     */
+    public NodePartition(int nodeId, int nodeCount) {
+        if (nodeCount < 1 || nodeId < 0 || nodeId >= nodeCount) {
+            throw new IllegalArgumentException(String.format("Invalid node id %d of %d nodes.", nodeId, nodeCount));
+        }
+        this.nodeId = nodeId;
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * Writes the node id into the account number of the bban and solves its national check digit again.
+     *
+     * @param countryFormat the format of the country in question
+     * @param bban the bban, modified in place
+     * @throws IbanException if the account number of the country cannot hold the node id.
+     */
+    public void stamp(CountryFormat countryFormat, char[] bban) throws IbanException {
+        Layout layout = layoutFor(countryFormat);
+        System.arraycopy(layout.stamp, 0, bban, layout.offset, layout.stamp.length);
+        if (NationalCheckDigits.checkPosition(countryFormat) >= 0) {
+            NationalCheckDigits.apply(countryFormat, bban);
+        }
+    }
+
+    /**
+     * @param countryFormat the format of the country in question
+     * @return the number of distinct BBANs this node can generate for the country
+     * @throws IbanException if the account number of the country cannot hold the node id.
+     */
+    public BigInteger capacity(CountryFormat countryFormat) throws IbanException {
+        Layout layout = layoutFor(countryFormat);
+        int checkPosition = NationalCheckDigits.checkPosition(countryFormat);
+        BigInteger capacity = BigInteger.ONE;
+        int position = 0;
+        for (BBANFormatElement element : countryFormat.getBbanFormat().getBbanFormatElements()) {
+            for (int i = 0; i < element.getNumberOfChars(); i++, position++) {
+                boolean reserved = position >= layout.offset && position < layout.offset + layout.stamp.length;
+                if (!reserved && position != checkPosition) {
+                    capacity = capacity.multiply(BigInteger.valueOf(BbanCodec.radix(element.getCharType())));
+                }
+            }
+        }
+        return capacity;
+    }
+
+    /**
+     * Logs the capacity of this node for every country, meant to be called once at startup.
+     *
+     * @param countryFormats the countries the node generates IBANs for
+     */
+    public void report(Iterable<CountryFormat> countryFormats) {
+        for (CountryFormat countryFormat : countryFormats) {
+            try {
+                log.info(String.format("Node %d of %d: %s IBANs of %s (%d account characters reserved).",
+                        nodeId, nodeCount, capacity(countryFormat), countryFormat,
+                        layoutFor(countryFormat).stamp.length));
+            } catch (IbanException e) {
+                // already logged
+            }
+        }
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    private Layout layoutFor(CountryFormat countryFormat) throws IbanException {
+        Layout layout = layouts.get(countryFormat);
+        if (layout == null) {
+            layout = createLayout(countryFormat);
+            layouts.put(countryFormat, layout);
+        }
+        return layout;
+    }
+
+    private Layout createLayout(CountryFormat countryFormat) throws IbanException {
+        int position = 0;
+        for (BBANFormatElement element : countryFormat.getBbanFormat().getBbanFormatElements()) {
+            if (element.getBbanSubType() == BBANSubType.ACCOUNT_NUMBER) {
+                return createLayout(countryFormat, position, element);
+            }
+            position += element.getNumberOfChars();
+        }
+        String errorMsg = String.format("%s has no account number to hold the node id.", countryFormat);
+        log.error(errorMsg);
+        throw new IbanException(errorMsg);
+    }
+
+    private Layout createLayout(CountryFormat countryFormat, int offset, BBANFormatElement element)
+            throws IbanException {
+        BBANFormat.CharType charType = element.getCharType();
+        int radix = BbanCodec.radix(charType);
+        int length = 0;
+        for (long ids = 1; ids < nodeCount && radix > 1; ids *= radix) {
+            length++;
+        }
+        // the reserved characters must end before the ones the national check digit method writes
+        int limit = element.getNumberOfChars();
+        for (int position : new int[]{NationalCheckDigits.checkPosition(countryFormat),
+                NationalCheckDigits.bumpPosition(countryFormat)}) {
+            if (position >= offset && position < offset + limit) {
+                limit = position - offset;
+            }
+        }
+        if ((nodeCount > 1 && radix == 1) || length > limit) {
+            String errorMsg = String.format("The account number of %s cannot hold %d node ids.",
+                    countryFormat, nodeCount);
+            log.error(errorMsg);
+            throw new IbanException(errorMsg);
+        }
+        char[] stamp = new char[length];
+        int id = nodeId;
+        for (int i = length - 1; i >= 0; i--) {
+            stamp[i] = BbanCodec.charOf(id % radix, charType);
+            id /= radix;
+        }
+        return new Layout(offset, stamp);
+    }
+
+    private static final class Layout {
+        private final int offset;
+        private final char[] stamp;
+
+        private Layout(int offset, char[] stamp) {
+            this.offset = offset;
+            this.stamp = stamp;
+        }
+    }
+}
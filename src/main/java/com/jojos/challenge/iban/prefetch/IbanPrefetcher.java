@@ -0,0 +1,209 @@
+package com.jojos.challenge.iban.prefetch;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.api.IbanApi;
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormatProvider;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.format.IbanFormatter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Keeps a bounded buffer of already generated, and therefore already reserved, IBANs per country so that
+ * latency sensitive callers only pay for a poll.
+ *
+ * Background producer threads refill a buffer up to its capacity as soon as it drains down to the low
+ * watermark. Consumers never block: {@link #poll(CountryISO)} returns null when the buffer is empty and the
+ * caller is expected to generate inline.
+ *
+ * IBANs still buffered when the prefetcher is closed stay reserved, they are simply never handed out.
+ */
+public class IbanPrefetcher implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(IbanPrefetcher.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final IbanFormatter ibanFormatter;
+    private final CountryFormatProvider countryFormatProvider;
+    private final int capacity;
+    private final int lowWatermark;
+    private final Map<CountryISO, Slot> slots = new EnumMap<>(CountryISO.class);
+    private final List<Thread> producers = new ArrayList<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile boolean running;
+
+    /**
+     * @param ibanFormatter implementation of iban output formatter
+     * @param countryFormatProvider implementation of the {@link CountryFormatProvider} interface.
+     * @param countries the countries to prefetch IBANs for
+     * @param capacity the number of IBANs to keep per country, the high watermark
+     * @param lowWatermark the number of buffered IBANs at or below which a country is refilled
+     * @param producerThreads the number of background threads, the countries are distributed among them
+     * @throws IbanException if a country is not supported by the provider.
+     */
+    public IbanPrefetcher(IbanFormatter ibanFormatter,
+                          CountryFormatProvider countryFormatProvider,
+                          Collection<CountryISO> countries,
+                          int capacity,
+                          int lowWatermark,
+                          int producerThreads) throws IbanException {
+        if (countries.isEmpty() || capacity < 1 || lowWatermark < 0 || lowWatermark >= capacity ||
+                producerThreads < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid prefetch configuration: countries %s, capacity %d, low watermark %d, producer threads %d.",
+                    countries, capacity, lowWatermark, producerThreads));
+        }
+        this.ibanFormatter = ibanFormatter;
+        this.countryFormatProvider = countryFormatProvider;
+        this.capacity = capacity;
+        this.lowWatermark = lowWatermark;
+
+        List<List<Slot>> assignments = new ArrayList<>();
+        for (int i = 0; i < Math.min(producerThreads, countries.size()); i++) {
+            assignments.add(new ArrayList<>());
+        }
+        int i = 0;
+        for (CountryISO country : countries) {
+            if (!countryFormatProvider.isCountrySupported(country)) {
+                String errorMsg = String.format("%s country not supported.", country);
+                log.error(errorMsg);
+                throw new IbanException(errorMsg);
+            }
+            Slot slot = new Slot(country, new MpmcRingBuffer<>(capacity));
+            slots.put(country, slot);
+            assignments.get(i++ % assignments.size()).add(slot);
+        }
+        for (List<Slot> assignment : assignments) {
+            Thread producer = new Thread(() -> produce(assignment), "iban-prefetcher-" + producers.size());
+            producer.setDaemon(true);
+            for (Slot slot : assignment) {
+                slot.producer = producer;
+            }
+            producers.add(producer);
+        }
+    }
+
+    /**
+     * Starts the producer threads.
+     *
+     * @return this prefetcher
+     */
+    public IbanPrefetcher start() {
+        running = true;
+        producers.forEach(Thread::start);
+        log.info(String.format("Prefetching %d IBANs for %s with %d threads.",
+                capacity, slots.keySet(), producers.size()));
+        return this;
+    }
+
+    /**
+     * Takes a prefetched IBAN of the country.
+     *
+     * @param country the country in question
+     * @return the IBAN or null if the country is not prefetched or its buffer is empty.
+     */
+    public Iban poll(CountryISO country) {
+        Slot slot = slots.get(country);
+        if (slot == null) {
+            misses.increment();
+            return null;
+        }
+        Iban iban = slot.buffer.poll();
+        if (iban == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        if (slot.buffer.size() <= lowWatermark) {
+            LockSupport.unpark(slot.producer);
+        }
+        return iban;
+    }
+
+    /**
+     * @param country the country in question
+     * @return the number of IBANs currently buffered for the country
+     */
+    public int available(CountryISO country) {
+        Slot slot = slots.get(country);
+        return slot == null ? 0 : slot.buffer.size();
+    }
+
+    public IbanFormatter getIbanFormatter() {
+        return ibanFormatter;
+    }
+
+    public CountryFormatProvider getCountryFormatProvider() {
+        return countryFormatProvider;
+    }
+
+    /**
+     * @return the number of polls served from a buffer
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of polls that found no IBAN
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Stops the producer threads.
+     */
+    @Override
+    public void close() {
+        running = false;
+        producers.forEach(LockSupport::unpark);
+    }
+
+    private void produce(List<Slot> assignment) {
+        try {
+            while (running) {
+                boolean refilled = false;
+                for (Slot slot : assignment) {
+                    if (slot.buffer.size() <= lowWatermark) {
+                        refilled = true;
+                        // this thread is the only producer of the slot, consumers can only make room
+                        while (running && slot.buffer.size() < capacity) {
+                            Iban iban = IbanApi.generateFor(slot.country, ibanFormatter, countryFormatProvider);
+                            if (iban != null) {
+                                slot.buffer.offer(iban);
+                            }
+                        }
+                    }
+                }
+                if (!refilled) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Prefetching stopped unexpectedly.", e);
+        }
+    }
+
+    private static final class Slot {
+        private final CountryISO country;
+        private final MpmcRingBuffer<Iban> buffer;
+        private volatile Thread producer;
+
+        private Slot(CountryISO country, MpmcRingBuffer<Iban> buffer) {
+            this.country = country;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.jojos.challenge.iban.prefix;
+
+/**
+ * A keyed pseudo random bijection of {@code [0, domain)}.
+ *
+ * A balanced Feistel network permutes the smallest even power of two covering the domain. Values falling outside
+ * the domain are encrypted again (cycle walking) until they fall inside, which is a bijection of the domain itself.
+ * Since the power of two is less than four times the domain, less than four encryptions are needed on average.
+ */
+final class FeistelPermutation {
+
+    private static final int ROUNDS = 4;
+
+    private final long domain;
+    private final int halfBits;
+    private final long halfMask;
+    private final long[] roundKeys = new long[ROUNDS];
+
+    /**
+     * @param domain the size of the domain, at most 2^62
+     * @param key the key selecting the permutation
+     */
+    FeistelPermutation(long domain, long key) {
+        if (domain < 1 || domain > 1L << 62) {
+            throw new IllegalArgumentException(String.format("Invalid domain %d.", domain));
+        }
+        this.domain = domain;
+        int bits = 64 - Long.numberOfLeadingZeros(domain - 1);
+        this.halfBits = (bits + 1) / 2;
+        this.halfMask = (1L << halfBits) - 1;
+        for (int i = 0; i < ROUNDS; i++) {
+            key = mix(key + 0x9E3779B97F4A7C15L);
+            roundKeys[i] = key;
+        }
+    }
+
+    /**
+     * @param index a value in {@code [0, domain)}
+     * @return the permuted value in {@code [0, domain)}
+     */
+    long permute(long index) {
+        long value = index;
+        do {
+            value = encrypt(value);
+        } while (value >= domain);
+        return value;
+    }
+
+    private long encrypt(long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (long roundKey : roundKeys) {
+            long next = left ^ (mix(right ^ roundKey) & halfMask);
+            left = right;
+            right = next;
+        }
+        return left << halfBits | right;
+    }
+
+    /**
+     * The finalizer of SplitMix64, every input bit affects every output bit.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
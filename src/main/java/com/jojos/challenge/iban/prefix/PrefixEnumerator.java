@@ -0,0 +1,295 @@
+package com.jojos.challenge.iban.prefix;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.format.IbanFormatter;
+import com.jojos.challenge.iban.national.NationalCheckDigits;
+import com.jojos.challenge.iban.util.BbanCodec;
+import com.jojos.challenge.iban.util.Helper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static com.jojos.challenge.iban.country.BBANFormat.CharType;
+
+/**
+ * Enumerates the IBANs of a country sharing a fixed BBAN prefix in ascending order, e.g. every account of a
+ * German BLZ from {@code 0000000000} up.
+ *
+ * Consecutive IBANs differ by one step of the account number, so instead of recomputing the mod-97 of the whole
+ * IBAN the remainder is updated for the changed characters only: a character at a position contributes its value
+ * times {@code 10^k mod 97}, k being the number of digits after it. A step changes one character and the
+ * characters it carries over from, i.e. a little more than one on average. When the national check digit lies after
+ * the prefix it is skipped by the enumeration and solved for, as by {@link PrefixSpace}, and the remainder is
+ * corrected for the changed check digit. Account numbers whose check digit cannot be solved, about 1 in 11 of the
+ * Dutch ones, are skipped. A prefix covering the check digit must already pass it, it is never altered.
+ *
+ * BBANs with {@link CharType#C} characters expand to a varying number of digits, their check digits are computed
+ * the usual way.
+ *
+ * The enumerator is a {@link Spliterator}, so {@code StreamSupport.stream(enumerator, true)} enumerates in
+ * parallel: every split takes over half of the remaining range and positions itself once. The enumeration is
+ * exhaustive: the IBANs are neither reserved in the registry of {@link com.jojos.challenge.iban.api.IbanApi} nor
+ * checked against its exclusions. Instances are not thread safe.
+ */
+public class PrefixEnumerator implements Spliterator<Iban> {
+    private static final Logger log = LoggerFactory.getLogger(PrefixEnumerator.class);
+
+    private final Space space;
+    private final IbanFormatter ibanFormatter;
+    private final char[] bban;
+    private long index;
+    private final long end;
+    // the index whose bban is held, -1 if none
+    private long positioned = -1;
+    // the sum of the bban characters times their powers, mod 97
+    private int remainder;
+    // false if the national check digit of the held bban cannot be solved, the bban is then skipped
+    private boolean solvable;
+
+    private PrefixEnumerator(Space space, IbanFormatter ibanFormatter, long from, long to) {
+        this.space = space;
+        this.ibanFormatter = ibanFormatter;
+        this.bban = new char[space.codec.getLength()];
+        this.index = from;
+        this.end = to;
+    }
+
+    /**
+     * @param countryFormat the format of the country in question
+     * @param prefix the leading characters of the BBAN
+     * @param ibanFormatter the formatter of the enumerated IBANs
+     * @return the enumerator of all the IBANs starting with the prefix
+     * @throws IbanException if the prefix is longer than the BBAN, does not match the format of the country or
+     * covers an invalid national check digit.
+     */
+    public static PrefixEnumerator of(CountryFormat countryFormat, String prefix, IbanFormatter ibanFormatter)
+            throws IbanException {
+        Space space = new Space(countryFormat, prefix);
+        return new PrefixEnumerator(space, ibanFormatter, 0, space.size);
+    }
+
+    /**
+     * An enumerator of a part of the IBANs of this one, e.g. the share of one of many processes.
+     *
+     * @param from the index of the first IBAN, 0 being the first IBAN of the prefix
+     * @param to the index after the last IBAN
+     * @return the enumerator of the range
+     */
+    public PrefixEnumerator range(long from, long to) {
+        if (from < 0 || from > to || to > space.size) {
+            throw new IllegalArgumentException(String.format("Invalid range [%d, %d) of %d IBANs.",
+                    from, to, space.size));
+        }
+        return new PrefixEnumerator(space, ibanFormatter, from, to);
+    }
+
+    /**
+     * @return the number of account numbers starting with the prefix, the indexes of {@link #range(long, long)}.
+     * The IBANs enumerated are fewer when some national check digits cannot be solved.
+     */
+    public long getSize() {
+        return space.size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super Iban> action) {
+        while (index < end) {
+            if (positioned >= 0 && positioned == index - 1) {
+                step();
+            } else if (positioned != index) {
+                position(index);
+            }
+            positioned = index++;
+            if (solvable) {
+                int checkNumber = space.incremental ? 98 - (remainder + space.countryRemainder) % 97 :
+                        Helper.checkNumber(bban, space.codec.getCountryFormat().getCountryISO());
+                action.accept(new Iban(space.codec.getCountryFormat(),
+                        new int[]{checkNumber / 10, checkNumber % 10}, bban.clone(), ibanFormatter));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The first half of the remaining range is handed to the returned enumerator.
+     */
+    @Override
+    public Spliterator<Iban> trySplit() {
+        long middle = index + (end - index) / 2;
+        if (middle == index) {
+            return null;
+        }
+        PrefixEnumerator prefix = new PrefixEnumerator(space, ibanFormatter, index, middle);
+        index = middle;
+        return prefix;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Exact unless some national check digits cannot be solved, an upper bound then.
+     */
+    @Override
+    public long estimateSize() {
+        return end - index;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int characteristics() {
+        int characteristics = ORDERED | DISTINCT | NONNULL | IMMUTABLE;
+        return space.sized ? characteristics | SIZED | SUBSIZED : characteristics;
+    }
+
+    /**
+     * Writes the bban of an index and computes its remainder from scratch.
+     */
+    private void position(long index) {
+        long value = index;
+        for (int i = space.free.length - 1; i >= 0; i--) {
+            int position = space.free[i];
+            CharType charType = space.codec.charTypeAt(position);
+            int radix = BbanCodec.radix(charType);
+            bban[position] = BbanCodec.charOf((int) (value % radix), charType);
+            value /= radix;
+        }
+        System.arraycopy(space.prefix, 0, bban, 0, space.prefix.length);
+        solvable = true;
+        if (space.check >= 0) {
+            bban[space.check] = '0';
+            solvable = NationalCheckDigits.solve(space.codec.getCountryFormat(), bban);
+        }
+        if (space.incremental) {
+            remainder = 0;
+            for (int i = 0; i < bban.length; i++) {
+                remainder = (remainder + valueOf(bban[i]) * space.powers[i]) % 97;
+            }
+        }
+    }
+
+    /**
+     * Moves the bban to the next index, updating the remainder by the changed characters only.
+     */
+    private void step() {
+        int delta = 0;
+        for (int i = space.free.length - 1; i >= 0; i--) {
+            int position = space.free[i];
+            CharType charType = space.codec.charTypeAt(position);
+            char previous = bban[position];
+            int digit = BbanCodec.digitOf(previous, charType) + 1;
+            boolean carry = digit == BbanCodec.radix(charType);
+            bban[position] = BbanCodec.charOf(carry ? 0 : digit, charType);
+            delta += (valueOf(bban[position]) - valueOf(previous)) * space.powers[position];
+            if (!carry) {
+                break;
+            }
+        }
+        if (space.check >= 0) {
+            // an unsolvable check digit keeps its previous value, the remainder still matches the bban
+            delta -= valueOf(bban[space.check]) * space.powers[space.check];
+            solvable = NationalCheckDigits.solve(space.codec.getCountryFormat(), bban);
+            delta += valueOf(bban[space.check]) * space.powers[space.check];
+        }
+        remainder = Math.floorMod(remainder + delta, 97);
+    }
+
+    /**
+     * @param c a letter or a digit
+     * @return the value of the character such that A = 10, B = 11, and Z = 35
+     */
+    private static int valueOf(char c) {
+        if (c <= '9') {
+            return c - '0';
+        }
+        return c >= 'a' ? c - 'a' + 10 : c - 'A' + 10;
+    }
+
+    /**
+     * What the enumerators of a prefix share.
+     */
+    private static final class Space {
+        private final BbanCodec codec;
+        private final char[] prefix;
+        // the enumerated positions, in increasing order
+        private final int[] free;
+        // the position of the national check digit if it lies after the prefix, -1 otherwise
+        private final int check;
+        // false if some account numbers have no solvable national check digit and are skipped
+        private final boolean sized;
+        private final long size;
+        private final boolean incremental;
+        // per bban position 10^k mod 97, k being the number of digits after the position
+        private final int[] powers;
+        // the contribution of the country code and the 00 check digits
+        private final int countryRemainder;
+
+        private Space(CountryFormat countryFormat, String prefix) throws IbanException {
+            codec = BbanCodec.forCountry(countryFormat);
+            if (prefix.length() > codec.getLength()) {
+                String errorMsg = String.format("Prefix %s is longer than the BBAN of %s.", prefix, countryFormat);
+                log.error(errorMsg);
+                throw new IbanException(errorMsg);
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (BbanCodec.digitOf(prefix.charAt(i), codec.charTypeAt(i)) < 0) {
+                    String errorMsg = String.format("Invalid character %c at position %d of prefix %s for %s.",
+                            prefix.charAt(i), i, prefix, countryFormat);
+                    log.error(errorMsg);
+                    throw new IbanException(errorMsg);
+                }
+            }
+            if (!NationalCheckDigits.isValidPrefix(countryFormat, prefix)) {
+                String errorMsg = String.format("Prefix %s does not pass the national check digit of %s.",
+                        prefix, countryFormat);
+                log.error(errorMsg);
+                throw new IbanException(errorMsg);
+            }
+            this.prefix = prefix.toCharArray();
+
+            int checkPosition = NationalCheckDigits.checkPosition(countryFormat);
+            int[] free = new int[codec.getLength() - prefix.length()];
+            int freeCount = 0;
+            long size = 1;
+            boolean incremental = true;
+            for (int position = 0; position < codec.getLength(); position++) {
+                incremental &= codec.charTypeAt(position) != CharType.C;
+                if (position < prefix.length()) {
+                    continue;
+                }
+                if (position != checkPosition) {
+                    free[freeCount++] = position;
+                    size *= BbanCodec.radix(codec.charTypeAt(position));
+                }
+            }
+            this.free = Arrays.copyOf(free, freeCount);
+            this.check = checkPosition >= prefix.length() ? checkPosition : -1;
+            // only methods that would bump another digit have account numbers without a check digit
+            this.sized = check < 0 || NationalCheckDigits.bumpPosition(countryFormat) < 0;
+            this.size = size;
+            this.incremental = incremental;
+
+            // the country code and the check digits 00 follow the bban, 6 digits
+            powers = new int[codec.getLength()];
+            int power = 1_000_000 % 97;
+            for (int position = codec.getLength() - 1; position >= 0; position--) {
+                powers[position] = power;
+                power = power * (codec.charTypeAt(position) == CharType.A ? 100 : 10) % 97;
+            }
+            String code = countryFormat.getCountryISO().getCode();
+            countryRemainder = (valueOf(code.charAt(0)) * 10_000 + valueOf(code.charAt(1)) * 100) % 97;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.jojos.challenge.iban.prefix;
+
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.national.NationalCheckDigits;
+import com.jojos.challenge.iban.util.BbanCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The BBANs of a country sharing a fixed prefix, e.g. the BANK_CODE of a German BLZ or of a Dutch bank.
+ *
+ * Instead of sampling the whole BBAN space and filtering, the free characters after the prefix are handed out
+ * by a counter mapped through a keyed {@link FeistelPermutation}. Every BBAN of the prefix is therefore handed
+ * out at most once and in an order that looks random, and the cost of {@link #nextBban()} does not grow with the
+ * number of BBANs already handed out.
+ *
+ * When the national check digit of the country lies after the prefix, it is left out of the enumeration and
+ * solved for with {@link NationalCheckDigits#solve(CountryFormat, char[])}, which alters no other digit: distinct
+ * indexes always give distinct BBANs. The indexes without a solvable check digit, about 1 in 11 of the Dutch ones,
+ * are skipped rather than bumped to another BBAN. A prefix covering the check digit must already pass it, it is
+ * never altered.
+ *
+ * Spaces larger than 2^62 are truncated to their first 2^62 BBANs.
+ */
+public class PrefixSpace {
+    private static final Logger log = LoggerFactory.getLogger(PrefixSpace.class);
+
+    private final BbanCodec codec;
+    private final String prefix;
+    private final long prefixValue;
+    // the first index of the permutation handed out by this space
+    private final long offset;
+    private final long size;
+    // the weight of the national check digit, not enumerated, 0 if it lies within the prefix
+    private final long checkWeight;
+    // false if the prefix covers the national check digit, which has been verified instead
+    private final boolean solved;
+    private final FeistelPermutation permutation;
+    private final AtomicLong issued = new AtomicLong();
+
+    private PrefixSpace(BbanCodec codec, String prefix, long prefixValue, long offset, long size,
+                        long checkWeight, boolean solved, FeistelPermutation permutation) {
+        this.codec = codec;
+        this.prefix = prefix;
+        this.prefixValue = prefixValue;
+        this.offset = offset;
+        this.size = size;
+        this.checkWeight = checkWeight;
+        this.solved = solved;
+        this.permutation = permutation;
+    }
+
+    /**
+     * @param countryFormat the format of the country in question
+     * @param prefix the leading characters of the BBAN
+     * @return the space of the BBANs starting with the prefix
+     * @throws IbanException if the prefix is longer than the BBAN, does not match the format of the country or
+     * covers an invalid national check digit.
+     */
+    public static PrefixSpace of(CountryFormat countryFormat, String prefix) throws IbanException {
+        return of(countryFormat, prefix, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Spaces of the same prefix and key enumerate their BBANs in the same order, even in different JVMs.
+     *
+     * @param countryFormat the format of the country in question
+     * @param prefix the leading characters of the BBAN
+     * @param key the key of the permutation
+     * @return the space of the BBANs starting with the prefix
+     * @throws IbanException if the prefix is longer than the BBAN, does not match the format of the country or
+     * covers an invalid national check digit.
+     */
+    public static PrefixSpace of(CountryFormat countryFormat, String prefix, long key) throws IbanException {
+        BbanCodec codec = BbanCodec.forCountry(countryFormat);
+        if (prefix.length() > codec.getLength()) {
+            String errorMsg = String.format("Prefix %s is longer than the BBAN of %s.", prefix, countryFormat);
+            log.error(errorMsg);
+            throw new IbanException(errorMsg);
+        }
+        long prefixValue = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            int digit = BbanCodec.digitOf(prefix.charAt(i), codec.charTypeAt(i));
+            if (digit < 0) {
+                String errorMsg = String.format("Invalid character %c at position %d of prefix %s for %s.",
+                        prefix.charAt(i), i, prefix, countryFormat);
+                log.error(errorMsg);
+                throw new IbanException(errorMsg);
+            }
+            prefixValue += digit * codec.weightAt(i);
+        }
+        if (!NationalCheckDigits.isValidPrefix(countryFormat, prefix)) {
+            String errorMsg = String.format("Prefix %s does not pass the national check digit of %s.",
+                    prefix, countryFormat);
+            log.error(errorMsg);
+            throw new IbanException(errorMsg);
+        }
+        long size = prefix.isEmpty() ? codec.getCapacity() : codec.weightAt(prefix.length() - 1);
+        int checkPosition = NationalCheckDigits.checkPosition(countryFormat);
+        long checkWeight = 0;
+        if (checkPosition >= prefix.length()) {
+            checkWeight = codec.weightAt(checkPosition);
+            size /= BbanCodec.radix(codec.charTypeAt(checkPosition));
+        }
+        boolean solved = checkPosition < 0 || checkPosition >= prefix.length();
+        size = Math.min(size, 1L << 62);
+        return new PrefixSpace(codec, prefix, prefixValue, 0, size, checkWeight, solved,
+                new FeistelPermutation(size, key));
+    }
+
+    /**
+     * One of several disjoint parts of this space, e.g. the share of one node of a fleet. The parts of spaces of
+     * the same prefix and key never hand out the same BBAN.
+     *
+     * @param part the index of the part in {@code [0, parts)}
+     * @param parts the number of parts
+     * @return a space of about {@code getSize() / parts} BBANs, none handed out yet
+     */
+    public PrefixSpace part(int part, int parts) {
+        if (parts < 1 || part < 0 || part >= parts) {
+            throw new IllegalArgumentException(String.format("Invalid part %d of %d parts.", part, parts));
+        }
+        long from = boundary(part, parts);
+        long to = boundary(part + 1, parts);
+        return new PrefixSpace(codec, prefix, prefixValue, offset + from, to - from, checkWeight, solved,
+                permutation);
+    }
+
+    /**
+     * Hands out the next BBAN of the prefix.
+     *
+     * @return the bban or null if all the BBANs of the prefix have been handed out.
+     */
+    public char[] nextBban() {
+        char[] bban;
+        do {
+            long index = issued.getAndIncrement();
+            if (index >= size) {
+                // keep the counter from wrapping around under sustained calls
+                issued.set(size);
+                return null;
+            }
+            bban = bbanAt(index);
+        } while (bban == null);
+        return bban;
+    }
+
+    /**
+     * Maps an index of the space to its BBAN, without counting it as handed out.
+     *
+     * @param index a value in {@code [0, size)}
+     * @return the bban at the index, distinct indexes giving distinct bbans, or null if its national check digit
+     * cannot be solved
+     */
+    public char[] bbanAt(long index) {
+        long value = permutation.permute(offset + index);
+        if (checkWeight > 0) {
+            // insert a 0 digit, national check digits are decimal
+            value = value / checkWeight * checkWeight * 10 + value % checkWeight;
+        }
+        char[] bban = codec.decode(prefixValue + value);
+        if (solved && !NationalCheckDigits.solve(codec.getCountryFormat(), bban)) {
+            return null;
+        }
+        return bban;
+    }
+
+    /**
+     * @return {@code size * part / parts} without overflowing
+     */
+    private long boundary(int part, int parts) {
+        return size / parts * part + size % parts * part / parts;
+    }
+
+    public BbanCodec getCodec() {
+        return codec;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * @return the number of indexes of this part, i.e. of the BBANs starting with the prefix with any national check
+     * digit, an upper bound of the BBANs handed out when some check digits cannot be solved
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of indexes used so far, including the skipped ones
+     */
+    public long getIssued() {
+        return Math.min(issued.get(), size);
+    }
+}
@@ -0,0 +1,154 @@
+package com.jojos.challenge.iban.reactive;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.api.IbanApi;
+import com.jojos.challenge.iban.country.CountryFormatProvider;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.format.IbanFormatter;
+import com.jojos.challenge.iban.registry.IbanRegistry;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An endless {@link Publisher} of unique IBANs of one country, generated only on subscriber demand.
+ *
+ * Each subscriber gets its own subscription. A {@link Subscription#request(long)} is served by a task of the
+ * executor with a single {@link IbanApi#generateBatch(CountryISO, int, IbanFormatter, CountryFormatProvider)},
+ * i.e. one batched generation and one {@link IbanRegistry#reserveAll(List)}, as long as the demand does not
+ * exceed {@value #MAX_BATCH}. Larger demand is served in batches of that size, one per task: the task resubmits
+ * itself while demand remains, so that even an unbounded request leaves the executor to its other tasks. The IBANs
+ * stay unique across all subscribers.
+ *
+ * The Reactive Streams interfaces are the Java 8 equivalent of {@code java.util.concurrent.Flow}, on Java 9 and
+ * later {@code org.reactivestreams.FlowAdapters.toFlowPublisher} exposes the publisher as a
+ * {@code Flow.Publisher}.
+ */
+public class IbanPublisher implements Publisher<Iban> {
+
+    static final int MAX_BATCH = 4096;
+
+    private final CountryISO country;
+    private final IbanFormatter ibanFormatter;
+    private final CountryFormatProvider countryFormatProvider;
+    private final Executor executor;
+
+    /**
+     * @param country The country for which valid IBANs are published
+     * @param ibanFormatter implementation of iban output formatter
+     * @param countryFormatProvider implementation of the {@link CountryFormatProvider} interface.
+     * @param executor the executor generating and emitting the IBANs
+     */
+    public IbanPublisher(CountryISO country,
+                         IbanFormatter ibanFormatter,
+                         CountryFormatProvider countryFormatProvider,
+                         Executor executor) {
+        this.country = country;
+        this.ibanFormatter = ibanFormatter;
+        this.countryFormatProvider = countryFormatProvider;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Iban> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        IbanSubscription subscription = new IbanSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private final class IbanSubscription implements Subscription, Runnable {
+        private final Subscriber<? super Iban> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        // the number of pending drain requests, only the thread moving it from 0 schedules a drain
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+
+        private IbanSubscription(Subscriber<? super Iban> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException(
+                        String.format("Non-positive request %d, see rule 3.9 of the Reactive Streams specification.", n));
+            } else {
+                requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                execute();
+            }
+        }
+
+        private void execute() {
+            try {
+                executor.execute(this);
+            } catch (RuntimeException e) {
+                cancelled = true;
+                subscriber.onError(e);
+            }
+        }
+
+        /**
+         * Emits one batch of the demand, then resubmits itself if demand remains. Only one thread at a time runs
+         * it, so the subscriber is signalled serially.
+         */
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                if (cancelled) {
+                    return;
+                }
+                if (invalidRequest != null) {
+                    cancelled = true;
+                    subscriber.onError(invalidRequest);
+                    return;
+                }
+                long demand = requested.get();
+                if (demand > 0) {
+                    List<Iban> ibans;
+                    try {
+                        ibans = IbanApi.generateBatch(country, (int) Math.min(demand, MAX_BATCH),
+                                ibanFormatter, countryFormatProvider);
+                    } catch (RuntimeException e) {
+                        cancelled = true;
+                        subscriber.onError(e);
+                        return;
+                    }
+                    for (Iban iban : ibans) {
+                        if (cancelled) {
+                            return;
+                        }
+                        subscriber.onNext(iban);
+                    }
+                    if (demand != Long.MAX_VALUE) {
+                        demand = requested.addAndGet(-ibans.size());
+                    }
+                    if (demand > 0) {
+                        // the drain stays with this subscription, the pending requests are served by the next task
+                        execute();
+                        return;
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.jojos.challenge.iban.registry;
+
+import java.util.Arrays;
+
+/**
+ * An immutable sorted set of non negative longs, stored as the deltas between consecutive values in unsigned
+ * LEB128 varints, the same encoding as {@link RegistrySnapshot}.
+ *
+ * Every {@value #SAMPLE_INTERVAL}th value is also kept uncompressed together with the offset of the deltas
+ * following it. A membership query binary searches the samples and then decodes at most
+ * {@value #SAMPLE_INTERVAL} - 1 deltas, which costs less than half a byte per value on top of the deltas.
+ */
+final class CompressedBlock {
+
+    static final int SAMPLE_INTERVAL = 32;
+
+    private final byte[] deltas;
+    private final long[] samples;
+    private final int[] offsets;
+    private final int size;
+
+    private CompressedBlock(byte[] deltas, long[] samples, int[] offsets, int size) {
+        this.deltas = deltas;
+        this.samples = samples;
+        this.offsets = offsets;
+        this.size = size;
+    }
+
+    /**
+     * @param sortedValues values sorted ascending, without duplicates
+     * @param length the number of values to encode
+     * @return the block of the values
+     */
+    static CompressedBlock encode(long[] sortedValues, int length) {
+        Writer writer = new Writer(length, (long) length * 5);
+        for (int i = 0; i < length; i++) {
+            writer.add(sortedValues[i]);
+        }
+        return writer.finish();
+    }
+
+    /**
+     * Merges two blocks in one pass over their deltas, without decoding them into arrays.
+     *
+     * @return the block of the union of the values of both blocks
+     */
+    static CompressedBlock merge(CompressedBlock a, CompressedBlock b) {
+        Writer writer = new Writer(a.size + b.size, (long) a.deltas.length + b.deltas.length);
+        Cursor x = new Cursor(a);
+        Cursor y = new Cursor(b);
+        while (x.hasNext() && y.hasNext()) {
+            long vx = x.peek();
+            long vy = y.peek();
+            if (vx <= vy) {
+                writer.add(vx);
+                x.next();
+                if (vx == vy) {
+                    y.next();
+                }
+            } else {
+                writer.add(vy);
+                y.next();
+            }
+        }
+        for (Cursor rest = x.hasNext() ? x : y; rest.hasNext(); rest.next()) {
+            writer.add(rest.peek());
+        }
+        return writer.finish();
+    }
+
+    boolean contains(long value) {
+        if (size == 0 || value < samples[0]) {
+            return false;
+        }
+        int sample = Arrays.binarySearch(samples, value);
+        if (sample >= 0) {
+            return true;
+        }
+        // the last sample below the value
+        sample = -sample - 2;
+        long current = samples[sample];
+        int end = Math.min(SAMPLE_INTERVAL - 1, size - 1 - sample * SAMPLE_INTERVAL);
+        int offset = offsets[sample];
+        for (int i = 0; i < end; i++) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = deltas[offset++];
+                delta |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            current += delta;
+            if (current >= value) {
+                return current == value;
+            }
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getMemoryFootprint() {
+        return deltas.length + samples.length * 8L + offsets.length * 4L;
+    }
+
+    long[] toArray() {
+        long[] values = new long[size];
+        Cursor cursor = new Cursor(this);
+        for (int i = 0; i < size; i++, cursor.next()) {
+            values[i] = cursor.peek();
+        }
+        return values;
+    }
+
+    /**
+     * Iterates the values of a block in ascending order.
+     */
+    private static final class Cursor {
+        private final CompressedBlock block;
+        private int index;
+        private int offset;
+        private long current;
+
+        private Cursor(CompressedBlock block) {
+            this.block = block;
+            this.current = block.size > 0 ? block.samples[0] : 0;
+            this.offset = block.size > 0 ? block.offsets[0] : 0;
+        }
+
+        private boolean hasNext() {
+            return index < block.size;
+        }
+
+        private long peek() {
+            return current;
+        }
+
+        private void next() {
+            index++;
+            if (index >= block.size) {
+                return;
+            }
+            if (index % SAMPLE_INTERVAL == 0) {
+                current = block.samples[index / SAMPLE_INTERVAL];
+                offset = block.offsets[index / SAMPLE_INTERVAL];
+                return;
+            }
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = block.deltas[offset++];
+                delta |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            current += delta;
+        }
+    }
+
+    /**
+     * Appends ascending values to a growing block.
+     */
+    private static final class Writer {
+        private final long[] samples;
+        private final int[] offsets;
+        private byte[] deltas;
+        private int length;
+        private int size;
+        private long previous;
+
+        private Writer(int capacity, long expectedBytes) {
+            int sampleCount = (capacity + SAMPLE_INTERVAL - 1) / SAMPLE_INTERVAL;
+            this.samples = new long[sampleCount];
+            this.offsets = new int[sampleCount];
+            this.deltas = new byte[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(16, expectedBytes))];
+        }
+
+        private void add(long value) {
+            if (size % SAMPLE_INTERVAL == 0) {
+                samples[size / SAMPLE_INTERVAL] = value;
+                offsets[size / SAMPLE_INTERVAL] = length;
+            } else {
+                long delta = value - previous;
+                if (deltas.length - length < 10) {
+                    deltas = Arrays.copyOf(deltas, (int) Math.min(Integer.MAX_VALUE - 8, deltas.length * 3L / 2));
+                }
+                while ((delta & ~0x7fL) != 0) {
+                    deltas[length++] = (byte) ((delta & 0x7f) | 0x80);
+                    delta >>>= 7;
+                }
+                deltas[length++] = (byte) delta;
+            }
+            previous = value;
+            size++;
+        }
+
+        private CompressedBlock finish() {
+            int sampleCount = (size + SAMPLE_INTERVAL - 1) / SAMPLE_INTERVAL;
+            return new CompressedBlock(Arrays.copyOf(deltas, length), Arrays.copyOf(samples, sampleCount),
+                    Arrays.copyOf(offsets, sampleCount), size);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.jojos.challenge.iban.registry;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.util.BbanCodec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An {@link IbanRegistry} keeping a few bytes per reserved IBAN, so that a single JVM can enforce uniqueness
+ * over hundreds of millions of IBANs.
+ *
+ * Every country keeps the {@link BbanCodec} encoded BBANs of its IBANs in two parts:
+ * <ul>
+ *     <li>a small mutable write buffer, an open addressing hash set of longs</li>
+ *     <li>immutable {@link CompressedBlock}s of sorted deltas in varints. A varint byte holds 7 bits of the
+ *     average gap between reserved BBANs, e.g. 5 bytes per IBAN for 100 million German IBANs</li>
+ * </ul>
+ * A full write buffer is sealed into a new block. Blocks are then merged in the background of the sealing thread,
+ * outside the lock of the country, whenever the newest block has grown to at least half of the one before,
+ * so that a country has a logarithmic number of blocks. Membership queries look into the buffer and every block.
+ *
+ * Reservations of a country are serialized by a lock. Countries whose BBAN cannot be encoded into a long are
+ * kept in a {@link ConcurrentMapIbanRegistry}.
+ */
+public class CompressedIbanRegistry implements IbanRegistry {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final Shard[] shards = new Shard[CountryFormat.values().length];
+    private final IbanRegistry fallback = new ConcurrentMapIbanRegistry();
+
+    public CompressedIbanRegistry() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize the number of IBANs of a country buffered before they are compressed
+     */
+    public CompressedIbanRegistry(int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException(String.format("Invalid buffer size %d.", bufferSize));
+        }
+        for (CountryFormat countryFormat : CountryFormat.values()) {
+            try {
+                shards[countryFormat.ordinal()] = new Shard(BbanCodec.forCountry(countryFormat), bufferSize);
+            } catch (IbanException e) {
+                // not encodable, kept by the fallback
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean reserve(Iban iban) {
+        Shard shard = shards[iban.getCountryFormat().ordinal()];
+        if (shard == null) {
+            return fallback.reserve(iban);
+        }
+        long value = shard.codec.encode(iban.getBban());
+        boolean reserved;
+        shard.lock.lock();
+        try {
+            reserved = shard.add(value);
+        } finally {
+            shard.lock.unlock();
+        }
+        shard.compact();
+        return reserved;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The lock of a country is taken once per run of consecutive ibans of that country.
+     */
+    @Override
+    public List<Iban> reserveAll(List<Iban> ibans) {
+        List<Iban> reserved = new ArrayList<>(ibans.size());
+        int from = 0;
+        while (from < ibans.size()) {
+            CountryFormat countryFormat = ibans.get(from).getCountryFormat();
+            int to = from + 1;
+            while (to < ibans.size() && ibans.get(to).getCountryFormat() == countryFormat) {
+                to++;
+            }
+            Shard shard = shards[countryFormat.ordinal()];
+            if (shard == null) {
+                reserved.addAll(fallback.reserveAll(ibans.subList(from, to)));
+            } else {
+                long[] values = new long[to - from];
+                for (int i = from; i < to; i++) {
+                    values[i - from] = shard.codec.encode(ibans.get(i).getBban());
+                }
+                shard.lock.lock();
+                try {
+                    for (int i = from; i < to; i++) {
+                        if (shard.add(values[i - from])) {
+                            reserved.add(ibans.get(i));
+                        }
+                    }
+                } finally {
+                    shard.lock.unlock();
+                }
+                shard.compact();
+            }
+            from = to;
+        }
+        return reserved;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isReserved(Iban iban) {
+        Shard shard = shards[iban.getCountryFormat().ordinal()];
+        if (shard == null) {
+            return fallback.isReserved(iban);
+        }
+        long value = shard.codec.tryEncode(iban.getBban(), 0);
+        shard.lock.lock();
+        try {
+            return value >= 0 && shard.contains(value);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long size(CountryISO countryISO) {
+        CountryFormat countryFormat = CountryFormat.valueOf(countryISO);
+        Shard shard = countryFormat == null ? null : shards[countryFormat.ordinal()];
+        if (shard == null) {
+            return fallback.size(countryISO);
+        }
+        shard.lock.lock();
+        try {
+            return shard.size();
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] snapshot(CountryFormat countryFormat) {
+        Shard shard = shards[countryFormat.ordinal()];
+        if (shard == null) {
+            return fallback.snapshot(countryFormat);
+        }
+        CompressedBlock[] blocks;
+        long[] buffered;
+        shard.lock.lock();
+        try {
+            blocks = shard.blocks;
+            buffered = shard.buffer.toSortedArray();
+        } finally {
+            shard.lock.unlock();
+        }
+        // the blocks are immutable, they are decoded outside of the lock
+        long[] result = buffered;
+        for (CompressedBlock block : blocks) {
+            result = SortedLongs.union(result, block.toArray());
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bulkLoad(CountryFormat countryFormat, long[] sortedBbans) {
+        Shard shard = shards[countryFormat.ordinal()];
+        if (shard == null) {
+            fallback.bulkLoad(countryFormat, sortedBbans);
+            return;
+        }
+        if (sortedBbans.length == 0) {
+            return;
+        }
+        CompressedBlock block = CompressedBlock.encode(sortedBbans, sortedBbans.length);
+        shard.lock.lock();
+        try {
+            shard.append(block);
+        } finally {
+            shard.lock.unlock();
+        }
+        shard.compact();
+    }
+
+    /**
+     * @param countryFormat the format of the country in question
+     * @return the number of bytes holding the reserved IBANs of the country, buffer included
+     */
+    public long getMemoryFootprint(CountryFormat countryFormat) {
+        Shard shard = shards[countryFormat.ordinal()];
+        if (shard == null) {
+            return 0;
+        }
+        shard.lock.lock();
+        try {
+            long bytes = shard.buffer.getMemoryFootprint();
+            for (CompressedBlock block : shard.blocks) {
+                bytes += block.getMemoryFootprint();
+            }
+            return bytes;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    private static final class Shard {
+        private final BbanCodec codec;
+        private final int bufferSize;
+        private final ReentrantLock lock = new ReentrantLock();
+        // only one thread merges the blocks of a country at a time
+        private final ReentrantLock compactionLock = new ReentrantLock();
+        private final LongHashSet buffer;
+        // oldest and largest first, replaced as a whole under the lock
+        private CompressedBlock[] blocks = new CompressedBlock[0];
+
+        private Shard(BbanCodec codec, int bufferSize) {
+            this.codec = codec;
+            this.bufferSize = bufferSize;
+            this.buffer = new LongHashSet(bufferSize);
+        }
+
+        /**
+         * Must be called with the lock held.
+         */
+        private boolean add(long value) {
+            if (contains(value) || !buffer.add(value)) {
+                return false;
+            }
+            if (buffer.size() >= bufferSize) {
+                append(CompressedBlock.encode(buffer.toSortedArray(), buffer.size()));
+                buffer.clear();
+            }
+            return true;
+        }
+
+        /**
+         * Must be called with the lock held.
+         */
+        private boolean contains(long value) {
+            if (buffer.contains(value)) {
+                return true;
+            }
+            for (int i = blocks.length - 1; i >= 0; i--) {
+                if (blocks[i].contains(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private long size() {
+            long size = buffer.size();
+            for (CompressedBlock block : blocks) {
+                size += block.size();
+            }
+            return size;
+        }
+
+        private void append(CompressedBlock block) {
+            CompressedBlock[] newBlocks = Arrays.copyOf(blocks, blocks.length + 1);
+            newBlocks[blocks.length] = block;
+            blocks = newBlocks;
+        }
+
+        /**
+         * Merges the newest blocks while the newest has at least half the size of the one before. The merge
+         * itself runs without the lock, reservations only wait for the blocks to be swapped.
+         */
+        private void compact() {
+            if (!compactionLock.tryLock()) {
+                return;
+            }
+            try {
+                while (true) {
+                    CompressedBlock older;
+                    CompressedBlock newer;
+                    lock.lock();
+                    try {
+                        int n = blocks.length;
+                        if (n < 2 || blocks[n - 2].size() > 2L * blocks[n - 1].size()) {
+                            return;
+                        }
+                        older = blocks[n - 2];
+                        newer = blocks[n - 1];
+                    } finally {
+                        lock.unlock();
+                    }
+                    CompressedBlock merged = CompressedBlock.merge(older, newer);
+                    lock.lock();
+                    try {
+                        // blocks sealed meanwhile were appended after the merged pair
+                        List<CompressedBlock> newBlocks = new ArrayList<>(Arrays.asList(blocks));
+                        int index = newBlocks.indexOf(older);
+                        newBlocks.remove(index + 1);
+                        newBlocks.set(index, merged);
+                        blocks = newBlocks.toArray(new CompressedBlock[newBlocks.size()]);
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            } finally {
+                compactionLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.jojos.challenge.iban.registry;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.util.BbanCodec;
+import com.jojos.challenge.iban.util.SystemHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The default {@link IbanRegistry}. Generated IBANs are kept in a concurrent map per country, keyed by
+ * {@link Iban#asKey()}.
+ *
+ * IBANs passed to {@link #bulkLoad(CountryFormat, long[])} are not put into the maps one by one. They are kept
+ * as a sorted array of encoded BBANs per country which is binary searched before touching the maps.
+ */
+public class ConcurrentMapIbanRegistry implements IbanRegistry {
+
+    private final ConcurrentMap<CountryISO, Map<String, Iban>> ibans = new ConcurrentHashMap<>();
+    private final ConcurrentMap<CountryFormat, long[]> loaded = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean reserve(Iban iban) {
+        if (isLoaded(iban)) {
+            return false;
+        }
+        // the actual point of synchronization is inside the helper function
+        return SystemHelper.addToContainedMap(ibans, iban.getCountryFormat().getCountryISO(), iban.asKey(), iban) == null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The map of a country is looked up once per run of consecutive ibans of that country.
+     */
+    @Override
+    public List<Iban> reserveAll(List<Iban> ibans) {
+        List<Iban> reserved = new ArrayList<>(ibans.size());
+        CountryISO countryISO = null;
+        Map<String, Iban> countryIbans = null;
+        for (Iban iban : ibans) {
+            if (isLoaded(iban)) {
+                continue;
+            }
+            if (iban.getCountryFormat().getCountryISO() != countryISO) {
+                countryISO = iban.getCountryFormat().getCountryISO();
+                countryIbans = ibans(countryISO);
+            }
+            if (countryIbans.putIfAbsent(iban.asKey(), iban) == null) {
+                reserved.add(iban);
+            }
+        }
+        return reserved;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isReserved(Iban iban) {
+        if (isLoaded(iban)) {
+            return true;
+        }
+        Map<String, Iban> countryIbans = ibans.get(iban.getCountryFormat().getCountryISO());
+        return countryIbans != null && countryIbans.containsKey(iban.asKey());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long size(CountryISO countryISO) {
+        Map<String, Iban> countryIbans = ibans.get(countryISO);
+        long size = countryIbans == null ? 0 : countryIbans.size();
+        CountryFormat countryFormat = CountryFormat.valueOf(countryISO);
+        long[] sortedBbans = countryFormat == null ? null : loaded.get(countryFormat);
+        return sortedBbans == null ? size : size + sortedBbans.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] snapshot(CountryFormat countryFormat) {
+        BbanCodec codec = BbanCodec.forCountry(countryFormat);
+        Map<String, Iban> countryIbans = ibans.get(countryFormat.getCountryISO());
+        long[] generated = countryIbans == null ? new long[0] : countryIbans.values().stream()
+                .mapToLong(iban -> codec.encode(iban.getBban()))
+                .sorted()
+                .toArray();
+        long[] sortedBbans = loaded.get(countryFormat);
+        return sortedBbans == null ? generated : SortedLongs.union(sortedBbans, generated);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bulkLoad(CountryFormat countryFormat, long[] sortedBbans) {
+        loaded.merge(countryFormat, sortedBbans, SortedLongs::union);
+    }
+
+    private Map<String, Iban> ibans(CountryISO countryISO) {
+        Map<String, Iban> countryIbans = ibans.get(countryISO);
+        if (countryIbans == null) {
+            Map<String, Iban> newMap = new ConcurrentHashMap<>();
+            countryIbans = ibans.putIfAbsent(countryISO, newMap);
+            if (countryIbans == null) {
+                countryIbans = newMap;
+            }
+        }
+        return countryIbans;
+    }
+
+    private boolean isLoaded(Iban iban) {
+        if (loaded.isEmpty()) {
+            return false;
+        }
+        long[] sortedBbans = loaded.get(iban.getCountryFormat());
+        return sortedBbans != null &&
+                Arrays.binarySearch(sortedBbans, BbanCodec.forCountry(iban.getCountryFormat()).encode(iban.getBban())) >= 0;
+    }
+}
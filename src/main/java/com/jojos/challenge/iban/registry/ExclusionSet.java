@@ -0,0 +1,315 @@
+package com.jojos.challenge.iban.registry;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.util.BbanCodec;
+import com.jojos.challenge.iban.util.Helper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A read-only set of IBANs that must never be generated, e.g. real customer accounts.
+ *
+ * Every country keeps the {@link BbanCodec} encoded BBANs of its IBANs in a sorted long array, plus a table of
+ * up to 2^16 equally wide value ranges pointing into the array. A lookup encodes the BBAN, picks its range with
+ * one division and binary searches the few entries of the range, without allocating.
+ *
+ * {@link #load(Path)} reads a text file of one IBAN per line, compact or with spaces. The file is memory-mapped
+ * in chunks parsed in parallel, then the values of every country are sorted in parallel. Lines that are not IBANs
+ * of a country whose BBAN can be encoded are skipped.
+ */
+public final class ExclusionSet {
+    private static final Logger log = LoggerFactory.getLogger(ExclusionSet.class);
+
+    public static final ExclusionSet EMPTY = new ExclusionSet(new EnumMap<>(CountryFormat.class));
+
+    private static final int MAX_BUCKETS = 1 << 16;
+    private static final int CHUNK_SIZE = 1 << 26;
+    // lines starting in a chunk must end within that many bytes after it
+    private static final int MAX_LINE_LENGTH = 256;
+    private static final int MAX_IBAN_LENGTH = 34;
+
+    private final Map<CountryFormat, Country> countries;
+
+    private ExclusionSet(Map<CountryFormat, Country> countries) {
+        this.countries = countries;
+    }
+
+    /**
+     * @param countryFormat the format of the country in question
+     * @param bban the bban
+     * @return true if the IBAN of the bban is excluded
+     */
+    public boolean contains(CountryFormat countryFormat, char[] bban) {
+        Country country = countries.get(countryFormat);
+        return country != null && country.contains(country.codec.tryEncode(bban, 0));
+    }
+
+    /**
+     * @param iban the iban
+     * @return true if the iban is excluded
+     */
+    public boolean contains(Iban iban) {
+        return contains(iban.getCountryFormat(), iban.getBban());
+    }
+
+    public boolean isEmpty() {
+        return countries.isEmpty();
+    }
+
+    /**
+     * @param countryFormat the format of the country in question
+     * @return the number of excluded IBANs of the country
+     */
+    public int size(CountryFormat countryFormat) {
+        Country country = countries.get(countryFormat);
+        return country == null ? 0 : country.values.length;
+    }
+
+    /**
+     * @param ibans the ibans to exclude, in their compact form
+     * @return the set of the ibans, invalid ones being skipped
+     */
+    public static ExclusionSet of(List<? extends CharSequence> ibans) {
+        Parser parser = new Parser();
+        for (CharSequence iban : ibans) {
+            parser.startLine();
+            for (int i = 0; i < iban.length(); i++) {
+                parser.append((byte) iban.charAt(i));
+            }
+            parser.endLine();
+        }
+        return build(Arrays.asList(parser), parser.skipped);
+    }
+
+    /**
+     * Loads a file of one IBAN per line, parsing chunks of it on the common fork join pool.
+     *
+     * @param file the file
+     * @return the set of the IBANs of the file
+     * @throws IOException if reading fails
+     */
+    public static ExclusionSet load(Path file) throws IOException {
+        return load(file, CHUNK_SIZE);
+    }
+
+    static ExclusionSet load(Path file, int chunkSize) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunks = (int) ((size + chunkSize - 1) / chunkSize);
+            AtomicLong skipped = new AtomicLong();
+            List<Parser> parsers = IntStream.range(0, chunks).parallel()
+                    .mapToObj(chunk -> parseChunk(channel, size, (long) chunk * chunkSize, chunkSize,
+                            skipped))
+                    .collect(Collectors.toList());
+            ExclusionSet exclusionSet = build(parsers, skipped.get());
+            log.info(String.format("Loaded %d excluded IBANs from %s in %d ms.", exclusionSet.countries.values()
+                    .stream().mapToLong(country -> country.values.length).sum(), file,
+                    (System.nanoTime() - start) / 1_000_000));
+            return exclusionSet;
+        } catch (ChunkException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Parses the lines starting within {@code [from, from + chunkSize)}.
+     */
+    private static Parser parseChunk(FileChannel channel, long size, long from, int chunkSize, AtomicLong skipped) {
+        long mapFrom = Math.max(0, from - 1);
+        long to = Math.min(size, from + chunkSize);
+        long mapTo = Math.min(size, to + MAX_LINE_LENGTH);
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapFrom, mapTo - mapFrom);
+        } catch (IOException e) {
+            throw new ChunkException(e);
+        }
+        Parser parser = new Parser();
+        int position = 0;
+        if (from > 0) {
+            // the line crossing the start of the chunk belongs to the previous one
+            while (position < buffer.limit() && buffer.get(position) != '\n') {
+                position++;
+            }
+            position++;
+        }
+        int end = (int) (to - mapFrom);
+        while (position < end) {
+            parser.startLine();
+            byte b;
+            while (position < buffer.limit() && (b = buffer.get(position)) != '\n') {
+                parser.append(b);
+                position++;
+            }
+            parser.endLine();
+            position++;
+        }
+        skipped.addAndGet(parser.skipped);
+        return parser;
+    }
+
+    private static ExclusionSet build(List<Parser> parsers, long skipped) {
+        if (skipped > 0) {
+            log.warn(String.format("Skipped %d lines which are not IBANs of an encodable country.", skipped));
+        }
+        Map<CountryFormat, Country> countries = new EnumMap<>(CountryFormat.class);
+        for (CountryFormat countryFormat : CountryFormat.values()) {
+            int length = 0;
+            for (Parser parser : parsers) {
+                length += parser.sizes[countryFormat.ordinal()];
+            }
+            if (length == 0) {
+                continue;
+            }
+            long[] values = new long[length];
+            int offset = 0;
+            for (Parser parser : parsers) {
+                int count = parser.sizes[countryFormat.ordinal()];
+                if (count > 0) {
+                    System.arraycopy(parser.values[countryFormat.ordinal()], 0, values, offset, count);
+                    offset += count;
+                }
+            }
+            Arrays.parallelSort(values);
+            int distinct = 0;
+            for (int i = 0; i < values.length; i++) {
+                if (i == 0 || values[i] != values[distinct - 1]) {
+                    values[distinct++] = values[i];
+                }
+            }
+            countries.put(countryFormat, new Country(BbanCodec.forCountry(countryFormat),
+                    distinct == values.length ? values : Arrays.copyOf(values, distinct)));
+        }
+        return new ExclusionSet(countries);
+    }
+
+    private static final class Country {
+        private final BbanCodec codec;
+        private final long[] values;
+        private final long bucketWidth;
+        // bucketStarts[b] is the index of the first value of bucket b, the last entry being the length
+        private final int[] bucketStarts;
+
+        private Country(BbanCodec codec, long[] values) {
+            this.codec = codec;
+            this.values = values;
+            int buckets = Math.min(MAX_BUCKETS, Integer.highestOneBit(Math.max(1, values.length)));
+            this.bucketWidth = codec.getCapacity() / buckets + 1;
+            this.bucketStarts = new int[buckets + 1];
+            int index = 0;
+            for (int bucket = 0; bucket <= buckets; bucket++) {
+                while (index < values.length && values[index] / bucketWidth < bucket) {
+                    index++;
+                }
+                bucketStarts[bucket] = index;
+            }
+        }
+
+        private boolean contains(long value) {
+            if (value < 0) {
+                return false;
+            }
+            int bucket = (int) (value / bucketWidth);
+            return Arrays.binarySearch(values, bucketStarts[bucket], bucketStarts[bucket + 1], value) >= 0;
+        }
+    }
+
+    /**
+     * Collects the encoded BBANs of the lines of one chunk, per country.
+     */
+    private static final class Parser {
+        private final long[][] values = new long[CountryFormat.values().length][];
+        private final int[] sizes = new int[CountryFormat.values().length];
+        private final BbanCodec[] codecs = new BbanCodec[CountryFormat.values().length];
+        private final boolean[] unencodable = new boolean[CountryFormat.values().length];
+        private final char[] line = new char[MAX_IBAN_LENGTH];
+        private int length;
+        private long skipped;
+
+        private void startLine() {
+            length = 0;
+        }
+
+        private void append(byte b) {
+            if (b == ' ' || b == '\r' || b == '\t') {
+                return;
+            }
+            // overlong lines are recognized by their length
+            if (length < line.length) {
+                line[length] = (char) b;
+            }
+            length++;
+        }
+
+        private void endLine() {
+            if (length == 0) {
+                return;
+            }
+            long value = -1;
+            CountryFormat countryFormat = null;
+            if (length >= 4 && length <= line.length) {
+                CountryISO countryISO = Helper.countryOf(line[0], line[1]);
+                countryFormat = countryISO == null ? null : CountryFormat.valueOf(countryISO);
+                BbanCodec codec = countryFormat == null ? null : codecFor(countryFormat);
+                if (codec != null && countryFormat.getNumberOfChars() == length) {
+                    value = codec.tryEncode(line, 4);
+                }
+            }
+            if (value < 0) {
+                skipped++;
+                return;
+            }
+            int ordinal = countryFormat.ordinal();
+            long[] countryValues = values[ordinal];
+            if (countryValues == null) {
+                countryValues = values[ordinal] = new long[1024];
+            } else if (sizes[ordinal] == countryValues.length) {
+                countryValues = values[ordinal] = Arrays.copyOf(countryValues, countryValues.length * 2);
+            }
+            countryValues[sizes[ordinal]++] = value;
+        }
+
+        private BbanCodec codecFor(CountryFormat countryFormat) {
+            BbanCodec codec = codecs[countryFormat.ordinal()];
+            if (codec == null && !unencodable[countryFormat.ordinal()]) {
+                try {
+                    codec = codecs[countryFormat.ordinal()] = BbanCodec.forCountry(countryFormat);
+                } catch (IbanException e) {
+                    unencodable[countryFormat.ordinal()] = true;
+                }
+            }
+            return codec;
+        }
+    }
+
+    /**
+     * Carries an {@link IOException} out of the parallel stream.
+     */
+    private static final class ChunkException extends RuntimeException {
+        private ChunkException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.jojos.challenge.iban.registry;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.util.BbanCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps track of the IBANs handed out by the generator so that none of them is generated twice.
+ *
+ * Implementations must be thread safe. Bulk operations work on BBANs encoded by {@link BbanCodec}.
+ */
+public interface IbanRegistry {
+
+    /**
+     * Reserves the iban.
+     *
+     * @param iban the iban to reserve
+     * @return true if the iban was not reserved before, false otherwise.
+     */
+    boolean reserve(Iban iban);
+
+    /**
+     * Reserves a batch of ibans in one call.
+     *
+     * @param ibans the ibans to reserve
+     * @return the ibans that were not reserved before, in their original order.
+     */
+    default List<Iban> reserveAll(List<Iban> ibans) {
+        List<Iban> reserved = new ArrayList<>(ibans.size());
+        for (Iban iban : ibans) {
+            if (reserve(iban)) {
+                reserved.add(iban);
+            }
+        }
+        return reserved;
+    }
+
+    /**
+     * Checks if the iban is already reserved.
+     *
+     * @param iban the iban in question
+     * @return true if it's reserved, false otherwise.
+     */
+    boolean isReserved(Iban iban);
+
+    /**
+     * The number of reserved IBANs for the country. It might be approximate while other threads are reserving.
+     *
+     * @param countryISO the country in question
+     * @return the number of reserved IBANs
+     */
+    long size(CountryISO countryISO);
+
+    /**
+     * A point-in-time copy of the reserved IBANs of the country.
+     *
+     * @param countryFormat the format of the country in question
+     * @return the {@link BbanCodec} encoded BBANs, sorted ascending and without duplicates.
+     */
+    long[] snapshot(CountryFormat countryFormat);
+
+    /**
+     * Reserves all the IBANs in one go, typically the result of a previous {@link #snapshot(CountryFormat)}.
+     *
+     * @param countryFormat the format of the country in question
+     * @param sortedBbans {@link BbanCodec} encoded BBANs, sorted ascending and without duplicates.
+     *                    Ownership of the array passes to the registry.
+     */
+    void bulkLoad(CountryFormat countryFormat, long[] sortedBbans);
+}
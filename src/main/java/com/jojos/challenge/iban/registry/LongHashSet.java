@@ -0,0 +1,80 @@
+package com.jojos.challenge.iban.registry;
+
+import java.util.Arrays;
+
+/**
+ * A fixed capacity open addressing hash set of non negative longs with linear probing. Not thread safe.
+ */
+final class LongHashSet {
+
+    private static final long EMPTY = -1;
+
+    private final long[] table;
+    private final int mask;
+    private int size;
+
+    /**
+     * @param capacity the number of values the set holds, the table is kept at most half full
+     */
+    LongHashSet(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+        this.table = new long[tableSize];
+        this.mask = tableSize - 1;
+        Arrays.fill(table, EMPTY);
+    }
+
+    /**
+     * @param value a non negative value
+     * @return true if the value was added, false if it was already in the set.
+     */
+    boolean add(long value) {
+        int index = indexOf(value);
+        if (table[index] == value) {
+            return false;
+        }
+        table[index] = value;
+        size++;
+        return true;
+    }
+
+    boolean contains(long value) {
+        return table[indexOf(value)] == value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(table, EMPTY);
+        size = 0;
+    }
+
+    long[] toSortedArray() {
+        long[] values = new long[size];
+        int i = 0;
+        for (long value : table) {
+            if (value != EMPTY) {
+                values[i++] = value;
+            }
+        }
+        Arrays.sort(values);
+        return values;
+    }
+
+    long getMemoryFootprint() {
+        return table.length * 8L;
+    }
+
+    /**
+     * @return the index of the value or of the empty slot it would go to
+     */
+    private int indexOf(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        int index = (int) (hash ^ (hash >>> 32)) & mask;
+        while (table[index] != EMPTY && table[index] != value) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+}
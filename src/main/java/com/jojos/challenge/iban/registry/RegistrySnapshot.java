@@ -0,0 +1,219 @@
+package com.jojos.challenge.iban.registry;
+
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.util.BbanCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes and reads point-in-time snapshots of an {@link IbanRegistry}, one binary file per country.
+ *
+ * The file consists of a header followed by the {@link BbanCodec} encoded BBANs of the reserved IBANs, sorted
+ * ascending and stored as deltas from the previous value in unsigned LEB128 varints:
+ * <pre>
+ *     int       magic "IBNS"
+ *     byte      version
+ *     byte[2]   country code, ISO 3166-1 alpha-2
+ *     long      number of entries
+ *     varint... deltas
+ * </pre>
+ * Restoring decodes the file straight into a sorted array in a single sequential pass and hands it to
+ * {@link IbanRegistry#bulkLoad(CountryFormat, long[])}.
+ */
+public class RegistrySnapshot {
+    private static final Logger log = LoggerFactory.getLogger(RegistrySnapshot.class);
+
+    private static final int MAGIC = 0x49424e53;
+    private static final byte VERSION = 1;
+    private static final int HEADER_LENGTH = 4 + 1 + 2 + 8;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final String FILE_PREFIX = "iban-registry-";
+    private static final String FILE_SUFFIX = ".snapshot";
+
+    /**
+     * The file of the country inside the snapshot directory.
+     *
+     * @param directory the snapshot directory
+     * @param countryISO the country in question
+     * @return the snapshot file of the country
+     */
+    public static Path fileFor(Path directory, CountryISO countryISO) {
+        return directory.resolve(FILE_PREFIX + countryISO.getCode() + FILE_SUFFIX);
+    }
+
+    /**
+     * Writes a snapshot of every country format having reserved IBANs into the directory,
+     * replacing existing snapshots of those countries.
+     *
+     * @param registry the registry to take the snapshot from
+     * @param directory the snapshot directory, it is created if missing
+     * @return the number of IBANs written
+     * @throws IOException if writing fails
+     */
+    public static long writeAll(IbanRegistry registry, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        long total = 0;
+        for (CountryFormat countryFormat : CountryFormat.values()) {
+            if (registry.size(countryFormat.getCountryISO()) > 0) {
+                total += write(registry, countryFormat, fileFor(directory, countryFormat.getCountryISO()));
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Restores every country snapshot found in the directory.
+     *
+     * @param registry the registry to load the IBANs into
+     * @param directory the snapshot directory
+     * @return the number of IBANs restored
+     * @throws IOException if reading fails
+     * @throws IbanException if a snapshot file is corrupt
+     */
+    public static long restoreAll(IbanRegistry registry, Path directory) throws IOException, IbanException {
+        long total = 0;
+        for (CountryFormat countryFormat : CountryFormat.values()) {
+            Path file = fileFor(directory, countryFormat.getCountryISO());
+            if (Files.isRegularFile(file)) {
+                total += restore(registry, file);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Writes a snapshot of the country into the file. The file is written next to the target
+     * and moved into place once complete.
+     *
+     * @param registry the registry to take the snapshot from
+     * @param countryFormat the format of the country in question
+     * @param file the snapshot file
+     * @return the number of IBANs written
+     * @throws IOException if writing fails
+     */
+    public static long write(IbanRegistry registry, CountryFormat countryFormat, Path file) throws IOException {
+        long[] sortedBbans = registry.snapshot(countryFormat);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp), BUFFER_SIZE))) {
+            String code = countryFormat.getCountryISO().getCode();
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(code.charAt(0));
+            out.writeByte(code.charAt(1));
+            out.writeLong(sortedBbans.length);
+            long previous = 0;
+            for (long bban : sortedBbans) {
+                writeVarLong(out, bban - previous);
+                previous = bban;
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info(String.format("Snapshot of %d %s IBANs written to %s.",
+                sortedBbans.length, countryFormat.getCountryISO(), file));
+        return sortedBbans.length;
+    }
+
+    /**
+     * Restores a snapshot file into the registry.
+     *
+     * @param registry the registry to load the IBANs into
+     * @param file the snapshot file
+     * @return the number of IBANs restored
+     * @throws IOException if reading fails
+     * @throws IbanException if the snapshot file is corrupt
+     */
+    public static long restore(IbanRegistry registry, Path file) throws IOException, IbanException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.flip();
+            fill(channel, buffer, HEADER_LENGTH);
+            if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                throw corrupt(file, "unknown header");
+            }
+            CountryISO countryISO = CountryISO.forCaseInsensitiveCode(
+                    new String(new char[]{(char) buffer.get(), (char) buffer.get()}));
+            CountryFormat countryFormat = CountryFormat.valueOf(countryISO);
+            long count = buffer.getLong();
+            if (countryFormat == null || count < 0 || count > Integer.MAX_VALUE - 8) {
+                throw corrupt(file, "unsupported country or size");
+            }
+            // every entry takes at least one byte, checked before allocating the array
+            if (count > channel.size() - HEADER_LENGTH) {
+                throw corrupt(file, "size beyond the end of the file");
+            }
+
+            long capacity = BbanCodec.forCountry(countryFormat).getCapacity();
+            long[] sortedBbans = new long[(int) count];
+            long previous = 0;
+            for (int i = 0; i < sortedBbans.length; i++) {
+                if (buffer.remaining() < 10) {
+                    fill(channel, buffer, Math.min(10, remainingBytes(channel, buffer)));
+                }
+                long value = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    if (!buffer.hasRemaining()) {
+                        throw corrupt(file, "truncated");
+                    }
+                    b = buffer.get();
+                    value |= (long) (b & 0x7f) << shift;
+                    shift += 7;
+                } while (b < 0 && shift < 64);
+                previous += value;
+                if ((i > 0 && value == 0) || previous < 0 || previous >= capacity) {
+                    throw corrupt(file, "entries not sorted or out of range");
+                }
+                sortedBbans[i] = previous;
+            }
+            registry.bulkLoad(countryFormat, sortedBbans);
+            log.info(String.format("Restored %d %s IBANs from %s.", count, countryISO, file));
+            return count;
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Compacts the buffer and reads from the channel until at least {@code minimum} bytes are available.
+     */
+    private static void fill(FileChannel channel, ByteBuffer buffer, int minimum) throws IOException {
+        buffer.compact();
+        while (buffer.position() < minimum) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of snapshot file.");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static int remainingBytes(FileChannel channel, ByteBuffer buffer) throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, buffer.remaining() + channel.size() - channel.position());
+    }
+
+    private static IbanException corrupt(Path file, String reason) {
+        String errorMsg = String.format("Corrupt registry snapshot %s: %s.", file, reason);
+        log.error(errorMsg);
+        return new IbanException(errorMsg);
+    }
+}
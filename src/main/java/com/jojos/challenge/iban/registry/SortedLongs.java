@@ -0,0 +1,47 @@
+package com.jojos.challenge.iban.registry;
+
+import java.util.Arrays;
+
+/**
+ * Helper functions for arrays of longs which are sorted ascending and contain no duplicates.
+ */
+final class SortedLongs {
+
+    private SortedLongs() {
+    }
+
+    /**
+     * Merges two sorted arrays in one pass.
+     *
+     * @param a sorted array without duplicates
+     * @param b sorted array without duplicates
+     * @return a new sorted array without duplicates containing the values of both arrays.
+     */
+    static long[] union(long[] a, long[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+        if (a.length == 0) {
+            return b;
+        }
+        long[] result = new long[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[k++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[k++] = b[j++];
+            } else {
+                result[k++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            result[k++] = a[i++];
+        }
+        while (j < b.length) {
+            result[k++] = b[j++];
+        }
+        return k == result.length ? result : Arrays.copyOf(result, k);
+    }
+}
@@ -0,0 +1,87 @@
+package com.jojos.challenge.iban.util;
+
+import java.util.Random;
+
+/**
+ * Walker's alias method: draws one of {@code n} outcomes with given weights in constant time.
+ *
+ * The table is built once in {@code O(n)} (Vose's variant): every column holds the probability of its own outcome
+ * and the outcome filling the rest of the column, its alias. A draw picks a column uniformly and then either the
+ * column's outcome or its alias, with a single random number for both.
+ *
+ * Instances are immutable and thread safe.
+ */
+public final class AliasTable {
+
+    private final double[] probabilities;
+    private final int[] aliases;
+
+    /**
+     * @param weights the non-negative weights of the outcomes, at least one positive
+     */
+    public AliasTable(double[] weights) {
+        int n = weights.length;
+        double sum = 0;
+        for (double weight : weights) {
+            if (!(weight >= 0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("Invalid weight " + weight);
+            }
+            sum += weight;
+        }
+        if (!(sum > 0)) {
+            throw new IllegalArgumentException("At least one weight must be positive.");
+        }
+        probabilities = new double[n];
+        aliases = new int[n];
+        // the scaled weights, averaging 1, split into the columns below and above the average
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sum;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] -= 1 - scaled[less];
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // what is left is 1 up to rounding errors
+        while (largeCount > 0) {
+            probabilities[large[--largeCount]] = 1;
+        }
+        while (smallCount > 0) {
+            probabilities[small[--smallCount]] = 1;
+        }
+    }
+
+    /**
+     * @param random the source of randomness
+     * @return the index of the drawn outcome
+     */
+    public int sample(Random random) {
+        double u = random.nextDouble() * probabilities.length;
+        int column = (int) u;
+        return u - column < probabilities[column] ? column : aliases[column];
+    }
+
+    /**
+     * @return the number of outcomes
+     */
+    public int size() {
+        return probabilities.length;
+    }
+}
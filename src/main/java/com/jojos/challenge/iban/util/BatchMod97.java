@@ -0,0 +1,166 @@
+package com.jojos.challenge.iban.util;
+
+import com.jojos.challenge.iban.country.CountryISO;
+
+/**
+ * The ISO 7064 mod-97 of {@link Helper#generateCheckDigits(char[], CountryISO)} computed for many IBANs in lockstep.
+ *
+ * A block of up to {@link #LANES} IBANs is laid out as a structure of arrays: for every position of the rearranged
+ * IBAN the character values of all the lanes are contiguous. Shorter IBANs are left padded with zeros, which does
+ * not change the remainder, so IBANs of different countries share a block. The kernel then walks the positions
+ * once, updating the 64 bit accumulators of all the lanes with the same operations, and reduces them modulo 97 only
+ * every {@value #POSITIONS_PER_REDUCTION} positions.
+ *
+ * Instances hold the block buffers and are not thread safe, use one per thread.
+ */
+public final class BatchMod97 {
+
+    public static final int LANES = 64;
+
+    /**
+     * The longest IBAN of the registry is 34 characters.
+     */
+    static final int MAX_LENGTH = 34;
+
+    /**
+     * Every position multiplies an accumulator by at most 100, 97 * 100^8 still fits into a long.
+     */
+    private static final int POSITIONS_PER_REDUCTION = 8;
+
+    // values[position * LANES + lane]: 0-9 for digits, 10-35 for letters
+    private final int[] values = new int[MAX_LENGTH * LANES];
+    private final long[] accumulators = new long[LANES];
+    private final int[] remainders = new int[LANES];
+
+    /**
+     * Validates the check digits of many IBANs. The IBANs must be well-formed, i.e. only contain letters
+     * and digits and be at most 34 characters long.
+     *
+     * @param ibans the ibans in their compact form
+     * @param from the index of the first iban
+     * @param to the index after the last iban
+     * @param valid receives true at the index of every iban whose mod-97 is 1
+     */
+    public void validate(CharSequence[] ibans, int from, int to, boolean[] valid) {
+        for (int start = from; start < to; start += LANES) {
+            int lanes = Math.min(LANES, to - start);
+            int positions = 0;
+            for (int lane = 0; lane < lanes; lane++) {
+                positions = Math.max(positions, ibans[start + lane].length());
+            }
+            for (int lane = 0; lane < lanes; lane++) {
+                CharSequence iban = ibans[start + lane];
+                int position = positions - iban.length();
+                clear(lane, position);
+                for (int i = 4; i < iban.length(); i++) {
+                    values[position++ * LANES + lane] = valueOf(iban.charAt(i));
+                }
+                for (int i = 0; i < 4; i++) {
+                    values[position++ * LANES + lane] = valueOf(iban.charAt(i));
+                }
+            }
+            clearLanes(lanes, positions);
+            compute(positions);
+            for (int lane = 0; lane < lanes; lane++) {
+                valid[start + lane] = remainders[lane] == 1;
+            }
+        }
+    }
+
+    /**
+     * Computes the check digits of many BBANs of the same country.
+     *
+     * @param bbans the bban sequences
+     * @param countryISO the country of the bbans
+     * @param from the index of the first bban
+     * @param to the index after the last bban
+     * @param checkNumbers receives the two check digits as a number, at the index of every bban
+     */
+    public void checkNumbers(char[][] bbans, CountryISO countryISO, int from, int to, int[] checkNumbers) {
+        String code = countryISO.getCode();
+        int country0 = valueOf(code.charAt(0));
+        int country1 = valueOf(code.charAt(1));
+        for (int start = from; start < to; start += LANES) {
+            int lanes = Math.min(LANES, to - start);
+            int positions = 0;
+            for (int lane = 0; lane < lanes; lane++) {
+                positions = Math.max(positions, bbans[start + lane].length + 4);
+            }
+            for (int lane = 0; lane < lanes; lane++) {
+                char[] bban = bbans[start + lane];
+                int position = positions - bban.length - 4;
+                clear(lane, position);
+                for (char c : bban) {
+                    values[position++ * LANES + lane] = valueOf(c);
+                }
+                values[position++ * LANES + lane] = country0;
+                values[position++ * LANES + lane] = country1;
+                values[position++ * LANES + lane] = 0;
+                values[position * LANES + lane] = 0;
+            }
+            clearLanes(lanes, positions);
+            compute(positions);
+            for (int lane = 0; lane < lanes; lane++) {
+                checkNumbers[start + lane] = 98 - remainders[lane];
+            }
+        }
+    }
+
+    /**
+     * The kernel: every position appends one value to all the lane accumulators, a letter counting as two
+     * digits. Unrolled by four lanes, the lane count being a multiple of four.
+     */
+    private void compute(int positions) {
+        long[] acc = accumulators;
+        for (int lane = 0; lane < LANES; lane++) {
+            acc[lane] = 0;
+        }
+        for (int position = 0; position < positions; position++) {
+            int base = position * LANES;
+            for (int lane = 0; lane < LANES; lane += 4) {
+                int v0 = values[base + lane];
+                int v1 = values[base + lane + 1];
+                int v2 = values[base + lane + 2];
+                int v3 = values[base + lane + 3];
+                acc[lane] = acc[lane] * (v0 < 10 ? 10 : 100) + v0;
+                acc[lane + 1] = acc[lane + 1] * (v1 < 10 ? 10 : 100) + v1;
+                acc[lane + 2] = acc[lane + 2] * (v2 < 10 ? 10 : 100) + v2;
+                acc[lane + 3] = acc[lane + 3] * (v3 < 10 ? 10 : 100) + v3;
+            }
+            if (position % POSITIONS_PER_REDUCTION == POSITIONS_PER_REDUCTION - 1) {
+                for (int lane = 0; lane < LANES; lane++) {
+                    acc[lane] %= 97;
+                }
+            }
+        }
+        for (int lane = 0; lane < LANES; lane++) {
+            remainders[lane] = (int) (acc[lane] % 97);
+        }
+    }
+
+    private void clear(int lane, int positions) {
+        for (int position = 0; position < positions; position++) {
+            values[position * LANES + lane] = 0;
+        }
+    }
+
+    /**
+     * Zeroes the unused lanes of the last block, their results are ignored.
+     */
+    private void clearLanes(int lanes, int positions) {
+        for (int lane = lanes; lane < LANES; lane++) {
+            clear(lane, positions);
+        }
+    }
+
+    /**
+     * @param c a letter or a digit
+     * @return the value of the character such that A or a = 10, B or b = 11, and Z or z = 35
+     */
+    private static int valueOf(char c) {
+        if (c <= '9') {
+            return c - '0';
+        }
+        return c >= 'a' ? c - 'a' + 10 : c - 'A' + 10;
+    }
+}
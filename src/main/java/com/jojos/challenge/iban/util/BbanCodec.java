@@ -0,0 +1,279 @@
+package com.jojos.challenge.iban.util;
+
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static com.jojos.challenge.iban.country.BBANFormat.BBANFormatElement;
+import static com.jojos.challenge.iban.country.BBANFormat.CharType;
+
+/**
+ * Maps the BBAN of a {@link CountryFormat} to a single {@code long} and back.
+ *
+ * Every BBAN position is treated as a digit of a mixed-radix number, the radix being defined by the
+ * {@link CharType} of the {@link BBANFormatElement} the position belongs to:
+ * <ul>
+ *     <li>{@link CharType#A}: 26 (A-Z)</li>
+ *     <li>{@link CharType#N}: 10 (0-9)</li>
+ *     <li>{@link CharType#C}: 62 (the order of {@link Helper#ALPHANUM})</li>
+ *     <li>{@link CharType#ZEROES}: 1</li>
+ * </ul>
+ * The encoding is a bijection between the valid BBANs of a country and {@code [0, capacity)}. Since the check
+ * digits are derived from the BBAN, the encoded value identifies an IBAN of the country.
+ */
+public final class BbanCodec {
+    private static final Logger log = LoggerFactory.getLogger(BbanCodec.class);
+
+    private static final Map<CountryFormat, BbanCodec> CODECS = new EnumMap<>(CountryFormat.class);
+
+    static {
+        for (CountryFormat countryFormat : CountryFormat.values()) {
+            BbanCodec codec = create(countryFormat);
+            if (codec != null) {
+                CODECS.put(countryFormat, codec);
+            }
+        }
+    }
+
+    private final CountryFormat countryFormat;
+    private final CharType[] layout;
+    private final long[] weights;
+    private final long capacity;
+
+    private BbanCodec(CountryFormat countryFormat, CharType[] layout, long[] weights, long capacity) {
+        this.countryFormat = countryFormat;
+        this.layout = layout;
+        this.weights = weights;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the codec of the country format.
+     *
+     * @param countryFormat the format of the country in question
+     * @return the codec of the country
+     * @throws IbanException if the BBAN space of the country does not fit into a long.
+     */
+    public static BbanCodec forCountry(CountryFormat countryFormat) throws IbanException {
+        BbanCodec codec = CODECS.get(countryFormat);
+        if (codec == null) {
+            String errorMsg = String.format("The BBAN of %s cannot be encoded into a long.", countryFormat);
+            log.error(errorMsg);
+            throw new IbanException(errorMsg);
+        }
+        return codec;
+    }
+
+    private static BbanCodec create(CountryFormat countryFormat) {
+        int length = countryFormat.getBbanFormat().getNumberOfCharacters();
+        CharType[] layout = new CharType[length];
+        int position = 0;
+        for (BBANFormatElement element : countryFormat.getBbanFormat().getBbanFormatElements()) {
+            for (int i = 0; i < element.getNumberOfChars(); i++) {
+                layout[position++] = element.getCharType();
+            }
+        }
+
+        long[] weights = new long[length];
+        long capacity = 1;
+        try {
+            for (int i = length - 1; i >= 0; i--) {
+                weights[i] = capacity;
+                capacity = Math.multiplyExact(capacity, radix(layout[i]));
+            }
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        return new BbanCodec(countryFormat, layout, weights, capacity);
+    }
+
+    /**
+     * The number of distinct values a character of the specific type can take.
+     *
+     * @param charType the type of char
+     * @return the radix of the char type
+     */
+    public static int radix(CharType charType) {
+        switch (charType) {
+            case A:
+                return 26;
+            case N:
+                return 10;
+            case C:
+                return Helper.ALPHANUM.length;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * The numeric value of a character within its char type.
+     *
+     * @param c the character
+     * @param charType the type of char
+     * @return the value in {@code [0, radix(charType))} or -1 if the character is not valid for the type.
+     */
+    public static int digitOf(char c, CharType charType) {
+        switch (charType) {
+            case A:
+                return c >= 'A' && c <= 'Z' ? c - 'A' : -1;
+            case N:
+                return c >= '0' && c <= '9' ? c - '0' : -1;
+            case C:
+                if (c >= 'A' && c <= 'Z') {
+                    return c - 'A';
+                }
+                if (c >= 'a' && c <= 'z') {
+                    return c - 'a' + 26;
+                }
+                return c >= '0' && c <= '9' ? c - '0' + 52 : -1;
+            default:
+                return c == '0' ? 0 : -1;
+        }
+    }
+
+    /**
+     * The character of a numeric value within its char type. Opposite of {@link #digitOf(char, CharType)}.
+     *
+     * @param digit the value in {@code [0, radix(charType))}
+     * @param charType the type of char
+     * @return the character
+     */
+    public static char charOf(int digit, CharType charType) {
+        switch (charType) {
+            case A:
+            case C:
+                return Helper.ALPHANUM[digit];
+            case N:
+                return (char) ('0' + digit);
+            default:
+                return '0';
+        }
+    }
+
+    public CountryFormat getCountryFormat() {
+        return countryFormat;
+    }
+
+    /**
+     * @return the number of BBAN characters
+     */
+    public int getLength() {
+        return layout.length;
+    }
+
+    /**
+     * @return the number of distinct BBANs of the country, i.e. all encoded values are lower than this.
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @param position the position in the BBAN
+     * @return the char type of the position
+     */
+    public CharType charTypeAt(int position) {
+        return layout[position];
+    }
+
+    /**
+     * @param position the position in the BBAN
+     * @return the value by which a unit of the position contributes to the encoded value
+     */
+    public long weightAt(int position) {
+        return weights[position];
+    }
+
+    /**
+     * Encodes the BBAN.
+     *
+     * @param bban the bban sequence
+     * @return the encoded value
+     * @throws IbanException if the bban does not match the format of the country.
+     */
+    public long encode(char[] bban) throws IbanException {
+        long value = bban.length == layout.length ? tryEncode(bban, 0) : -1;
+        if (value < 0) {
+            String errorMsg = String.format("Invalid BBAN %s for %s.", String.valueOf(bban), countryFormat);
+            log.error(errorMsg);
+            throw new IbanException(errorMsg);
+        }
+        return value;
+    }
+
+    /**
+     * Encodes the {@link #getLength()} characters of the sequence starting at the offset, without allocating.
+     *
+     * @param sequence a sequence containing the bban
+     * @param offset the index of the first bban character
+     * @return the encoded value or -1 if the characters do not match the format of the country.
+     */
+    public long tryEncode(CharSequence sequence, int offset) {
+        if (sequence.length() - offset < layout.length) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < layout.length; i++) {
+            int digit = digitOf(sequence.charAt(offset + i), layout[i]);
+            if (digit < 0) {
+                return -1;
+            }
+            value += digit * weights[i];
+        }
+        return value;
+    }
+
+    /**
+     * Same as {@link #tryEncode(CharSequence, int)} for a character array.
+     *
+     * @param bban an array containing the bban
+     * @param offset the index of the first bban character
+     * @return the encoded value or -1 if the characters do not match the format of the country.
+     */
+    public long tryEncode(char[] bban, int offset) {
+        if (bban.length - offset < layout.length) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < layout.length; i++) {
+            int digit = digitOf(bban[offset + i], layout[i]);
+            if (digit < 0) {
+                return -1;
+            }
+            value += digit * weights[i];
+        }
+        return value;
+    }
+
+    /**
+     * Decodes a value into a new BBAN.
+     *
+     * @param value the encoded value
+     * @return the bban
+     */
+    public char[] decode(long value) {
+        char[] bban = new char[layout.length];
+        decode(value, bban, 0);
+        return bban;
+    }
+
+    /**
+     * Decodes a value into the array, starting at the offset.
+     *
+     * @param value the encoded value in {@code [0, capacity)}
+     * @param destination the array to write the BBAN to
+     * @param offset the index of the first bban character
+     */
+    public void decode(long value, char[] destination, int offset) {
+        for (int i = layout.length - 1; i >= 0; i--) {
+            int radix = radix(layout[i]);
+            destination[offset + i] = charOf((int) (value % radix), layout[i]);
+            value /= radix;
+        }
+    }
+}
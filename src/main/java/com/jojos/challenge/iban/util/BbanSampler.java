@@ -0,0 +1,162 @@
+package com.jojos.challenge.iban.util;
+
+import com.jojos.challenge.iban.country.CountryFormat;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.jojos.challenge.iban.country.BBANFormat.BBANFormatElement;
+import static com.jojos.challenge.iban.country.BBANFormat.CharType;
+
+/**
+ * Draws uniformly random BBANs of a country with as few calls to the random generator as possible.
+ *
+ * The BBAN positions are split into consecutive groups whose number of combinations, the product of the radixes
+ * of their {@link CharType}s (see {@link BbanCodec#radix(CharType)}), fits into a positive {@code long}. Every group
+ * costs a single {@link Random#nextLong()}, mapped without bias to a number of its range by Lemire's
+ * multiply-shift method and decoded digit by digit. The 18 digits of a German BBAN need one draw instead of 18.
+ */
+public final class BbanSampler {
+
+    private static final Map<CountryFormat, BbanSampler> SAMPLERS = new EnumMap<>(CountryFormat.class);
+
+    static {
+        for (CountryFormat countryFormat : CountryFormat.values()) {
+            SAMPLERS.put(countryFormat, new BbanSampler(countryFormat));
+        }
+    }
+
+    private final CharType[] layout;
+    // the first position of every group, followed by the length of the bban
+    private final int[] groupStarts;
+    // the number of combinations of every group
+    private final long[] groupBounds;
+    // 2^64 mod the bound of every group, see nextLong
+    private final long[] groupThresholds;
+
+    private BbanSampler(CountryFormat countryFormat) {
+        List<CharType> types = new ArrayList<>();
+        for (BBANFormatElement element : countryFormat.getBbanFormat().getBbanFormatElements()) {
+            for (int i = 0; i < element.getNumberOfChars(); i++) {
+                types.add(element.getCharType());
+            }
+        }
+        layout = types.toArray(new CharType[types.size()]);
+
+        List<Integer> starts = new ArrayList<>();
+        List<Long> bounds = new ArrayList<>();
+        long bound = 1;
+        starts.add(0);
+        for (int i = 0; i < layout.length; i++) {
+            int radix = BbanCodec.radix(layout[i]);
+            if (bound > Long.MAX_VALUE / radix) {
+                bounds.add(bound);
+                starts.add(i);
+                bound = 1;
+            }
+            bound *= radix;
+        }
+        bounds.add(bound);
+        starts.add(layout.length);
+
+        groupStarts = starts.stream().mapToInt(Integer::intValue).toArray();
+        groupBounds = bounds.stream().mapToLong(Long::longValue).toArray();
+        groupThresholds = bounds.stream().mapToLong(BbanSampler::threshold).toArray();
+    }
+
+    /**
+     * @param countryFormat the format of the country in question
+     * @return the sampler of the country
+     */
+    public static BbanSampler forCountry(CountryFormat countryFormat) {
+        return SAMPLERS.get(countryFormat);
+    }
+
+    /**
+     * @return the number of {@link Random#nextLong()} draws a BBAN needs, when none has to be repeated
+     */
+    public int getDrawsPerBban() {
+        return groupBounds.length;
+    }
+
+    /**
+     * @param random the source of randomness
+     * @return a new random bban
+     */
+    public char[] sample(Random random) {
+        char[] bban = new char[layout.length];
+        sample(random, bban, 0);
+        return bban;
+    }
+
+    /**
+     * Writes a random bban into the array.
+     *
+     * @param random the source of randomness
+     * @param destination the array to write the bban to
+     * @param offset the index of the first bban character
+     */
+    public void sample(Random random, char[] destination, int offset) {
+        for (int group = 0; group < groupBounds.length; group++) {
+            long value = nextLong(random, groupBounds[group], groupThresholds[group]);
+            for (int i = groupStarts[group + 1] - 1; i >= groupStarts[group]; i--) {
+                int radix = BbanCodec.radix(layout[i]);
+                destination[offset + i] = BbanCodec.charOf((int) (value % radix), layout[i]);
+                value /= radix;
+            }
+        }
+    }
+
+    /**
+     * Lemire's nearly divisionless unbiased bounded sampling: the high 64 bits of a random 64 bit number times the
+     * bound are uniform in {@code [0, bound)} once the draws whose low 64 bits fall below {@code 2^64 mod bound}
+     * are rejected. Samplers compute the remainder once per group.
+     *
+     * @param random the source of randomness
+     * @param bound the exclusive upper bound, positive
+     * @return a uniformly distributed value in {@code [0, bound)}
+     */
+    static long nextLong(Random random, long bound) {
+        return nextLong(random, bound, threshold(bound));
+    }
+
+    /**
+     * Same as {@link #nextLong(Random, long)} with the rejection threshold computed in advance: on Java 8
+     * {@link Long#remainderUnsigned(long, long)} of a negative dividend allocates {@link java.math.BigInteger}s.
+     */
+    private static long nextLong(Random random, long bound, long threshold) {
+        long x = random.nextLong();
+        long low = x * bound;
+        if (Long.compareUnsigned(low, bound) < 0) {
+            while (Long.compareUnsigned(low, threshold) < 0) {
+                x = random.nextLong();
+                low = x * bound;
+            }
+        }
+        return unsignedMultiplyHigh(x, bound);
+    }
+
+    /**
+     * @return {@code 2^64 mod bound}
+     */
+    private static long threshold(long bound) {
+        return Long.remainderUnsigned(-bound, bound);
+    }
+
+    /**
+     * The high 64 bits of the unsigned 128 bit product, {@code Math.multiplyHigh} only exists from Java 9 on and
+     * is signed.
+     */
+    static long unsignedMultiplyHigh(long x, long y) {
+        long x0 = x & 0xFFFFFFFFL;
+        long x1 = x >>> 32;
+        long y0 = y & 0xFFFFFFFFL;
+        long y1 = y >>> 32;
+        long t = x1 * y0 + ((x0 * y0) >>> 32);
+        long w1 = (t & 0xFFFFFFFFL) + x0 * y1;
+        return x1 * y1 + (t >>> 32) + (w1 >>> 32);
+    }
+}
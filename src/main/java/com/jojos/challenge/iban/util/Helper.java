@@ -1,13 +1,12 @@
 package com.jojos.challenge.iban.util;
 
 import com.jojos.challenge.iban.api.IbanException;
-import com.jojos.challenge.iban.country.BBANFormat;
 import com.jojos.challenge.iban.country.CountryFormat;
 import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.national.NationalCheckDigits;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
 import java.util.Random;
 
 import static com.jojos.challenge.iban.country.BBANFormat.BBANFormatElement;
@@ -25,6 +24,8 @@ public class Helper {
 
     private final static Random random = new Random();
 
+    private final static ThreadLocal<BatchMod97> BATCH_MOD97 = ThreadLocal.withInitial(BatchMod97::new);
+
     /**
      * Extract from the wikipedia:
      * "According to the ECBS "generation of the IBAN shall be the exclusive responsibility of the bank/branch
@@ -54,13 +55,7 @@ public class Helper {
      * @throws IbanException in case the IBAN is invalid or something went wrong with the calculations.
      */
     public static int[] generateCheckDigits(char[] bbanSequence, CountryISO countryISO) throws IbanException {
-        // step one: Check that the total IBAN length is correct as per the country. If not, the IBAN is invalid
-        ensureCorrectIbanLengthOrThrow(countryISO, bbanSequence.length + 4);
-
-        char[] digitSequence = invertZeroPadAndReplaceLettersWithDigits(bbanSequence, countryISO);
-        int remainder = mod97(digitSequence);
-
-        int checkNumber = 98 - remainder;
+        int checkNumber = checkNumber(bbanSequence, countryISO);
 
         int[] result = new int[2];
 
@@ -70,6 +65,37 @@ public class Helper {
         return result;
     }
 
+    /**
+     * Same as {@link #generateCheckDigits(char[], CountryISO)} without allocating: the rearranged sequence is
+     * never built, its characters are appended to the remainder one by one.
+     *
+     * @param bbanSequence the bban sequence
+     * @param countryISO the two letter country code
+     * @return the two check digits as a number in the range 02 to 98
+     * @throws IbanException in case the IBAN is invalid.
+     */
+    public static int checkNumber(char[] bbanSequence, CountryISO countryISO) throws IbanException {
+        // step one: Check that the total IBAN length is correct as per the country. If not, the IBAN is invalid
+        ensureCorrectIbanLengthOrThrow(countryISO, bbanSequence.length + 4);
+
+        int remainder = 0;
+        for (char c : bbanSequence) {
+            if ((c < '0' || c > '9') && (c < 'A' || c > 'Z') && (c < 'a' || c > 'z')) {
+                String errorMsg = String.format("Invalid character %c found", c);
+                log.error(errorMsg);
+                throw new IbanException(errorMsg);
+            }
+            remainder = mod97Append(remainder, c);
+        }
+        String code = countryISO.getCode();
+        remainder = mod97Append(remainder, code.charAt(0));
+        remainder = mod97Append(remainder, code.charAt(1));
+        // the check digits, 00
+        remainder = remainder * 100 % 97;
+
+        return 98 - remainder;
+    }
+
     /**
      * Calculate mod-97 of the sequence as if it was converted, which results in the remainder.
      * Make a so called piece-wise calculation D mod 97
@@ -211,23 +237,151 @@ public class Helper {
         }
     }
 
+    /**
+     * Validates an IBAN in its compact form, i.e. without any spaces, without allocating.
+     * <ul>
+     *     <li>The country must have a known {@link CountryFormat}</li>
+     *     <li>The total IBAN length must be correct as per the country</li>
+     *     <li>Every BBAN character must match the {@link CharType} of its position</li>
+     *     <li>The IBAN, rearranged as described in {@link #generateCheckDigits(char[], CountryISO)}
+     *          but keeping its check digits, must be 1 mod 97</li>
+     * </ul>
+     *
+     * @param iban the iban in question
+     * @return true if the iban is valid, false otherwise.
+     */
+    public static boolean isValid(CharSequence iban) {
+        if (!isWellFormed(iban)) {
+            return false;
+        }
+        int remainder = 0;
+        for (int i = 4; i < iban.length(); i++) {
+            remainder = mod97Append(remainder, iban.charAt(i));
+        }
+        for (int i = 0; i < 4; i++) {
+            remainder = mod97Append(remainder, iban.charAt(i));
+        }
+        return remainder == 1;
+    }
+
+    /**
+     * Same as {@link #isValid(CharSequence)} for many IBANs at once, the check digits being verified by
+     * {@link BatchMod97}.
+     *
+     * @param ibans the ibans in their compact form
+     * @param valid receives the validity of the iban of the same index
+     */
+    public static void areValid(CharSequence[] ibans, boolean[] valid) {
+        CharSequence[] wellFormed = new CharSequence[ibans.length];
+        int[] indexes = new int[ibans.length];
+        int count = 0;
+        for (int i = 0; i < ibans.length; i++) {
+            valid[i] = false;
+            if (isWellFormed(ibans[i])) {
+                wellFormed[count] = ibans[i];
+                indexes[count++] = i;
+            }
+        }
+        boolean[] checked = new boolean[count];
+        BATCH_MOD97.get().validate(wellFormed, 0, count, checked);
+        for (int i = 0; i < count; i++) {
+            valid[indexes[i]] = checked[i];
+        }
+    }
+
+    /**
+     * Same as {@link #generateCheckDigits(char[], CountryISO)} for many BBANs of the same country at once,
+     * computed by {@link BatchMod97}.
+     *
+     * @param bbanSequences the bban sequences
+     * @param countryISO the two letter country code
+     * @return the two check digits of every bban as a number in the range 02 to 98
+     * @throws IbanException in case the length of a bban is invalid for the country.
+     */
+    public static int[] generateCheckNumbers(char[][] bbanSequences, CountryISO countryISO) throws IbanException {
+        for (char[] bbanSequence : bbanSequences) {
+            ensureCorrectIbanLengthOrThrow(countryISO, bbanSequence.length + 4);
+        }
+        int[] checkNumbers = new int[bbanSequences.length];
+        BATCH_MOD97.get().checkNumbers(bbanSequences, countryISO, 0, bbanSequences.length, checkNumbers);
+        return checkNumbers;
+    }
+
+    /**
+     * Looks up a country by the two letters of its code, without allocating.
+     *
+     * @param first the first letter of the code
+     * @param second the second letter of the code
+     * @return the country or null if the letters are not an assigned upper case code
+     */
+    public static CountryISO countryOf(char first, char second) {
+        if (first < 'A' || first > 'Z' || second < 'A' || second > 'Z') {
+            return null;
+        }
+        return CountryTable.COUNTRIES[(first - 'A') * 26 + second - 'A'];
+    }
+
+    /**
+     * Everything {@link #isValid(CharSequence)} verifies but the check digits.
+     */
+    private static boolean isWellFormed(CharSequence iban) {
+        if (iban == null || iban.length() < 4) {
+            return false;
+        }
+        char first = iban.charAt(0);
+        char second = iban.charAt(1);
+        char third = iban.charAt(2);
+        char fourth = iban.charAt(3);
+        if (first < 'A' || first > 'Z' || second < 'A' || second > 'Z' ||
+                third < '0' || third > '9' || fourth < '0' || fourth > '9') {
+            return false;
+        }
+        CountryFormat countryFormat = CountryFormat.valueOf(CountryTable.COUNTRIES[(first - 'A') * 26 + second - 'A']);
+        return countryFormat != null && countryFormat.getNumberOfChars() == iban.length() &&
+                BbanCodec.forCountry(countryFormat).tryEncode(iban, 4) >= 0;
+    }
+
+    /**
+     * Appends a character to a number, letters counting as two digits such that A = 10, B = 11, and Z = 35.
+     *
+     * @param remainder the number mod 97
+     * @param c an upper case letter or a digit
+     * @return the new number mod 97
+     */
+    static int mod97Append(int remainder, char c) {
+        if (c <= '9') {
+            return (remainder * 10 + c - '0') % 97;
+        }
+        int value = c >= 'a' ? c - 'a' + 10 : c - 'A' + 10;
+        return (remainder * 100 + value) % 97;
+    }
+
     /**
      * Returns a character array containing random characters based on the individual
-     * {@link CharType} of each {@link BBANFormatElement}.
+     * {@link CharType} of each {@link BBANFormatElement}. The national check digit of the account number,
+     * if the country has one, is valid.
      *
      * @param countryFormat the format of the country in question
      * @return a character array contains randomly generated elements according to the CharType of each sub-element.
      */
     public static char[] randomForCountry(CountryFormat countryFormat) {
-        BBANFormat bbanFormat = countryFormat.getBbanFormat();
-
-        StringBuilder sb = new StringBuilder();
-        List<BBANFormatElement> formatElements = bbanFormat.getBbanFormatElements();
-        for (BBANFormatElement formatElement : formatElements) {
-            sb.append(SystemHelper.toString(randomForCharType(formatElement.getCharType(), formatElement.getNumberOfChars())));
-        }
+        return randomForCountry(countryFormat, random);
+    }
 
-        return sb.toString().toCharArray();
+    /**
+     * Same as {@link #randomForCountry(CountryFormat)} with the difference that the source of randomness is
+     * declared, e.g. one per thread to avoid contending on a shared {@link Random}.
+     *
+     * @param countryFormat the format of the country in question
+     * @param random the source of randomness
+     * @return a character array contains randomly generated elements according to the CharType of each sub-element.
+     */
+    public static char[] randomForCountry(CountryFormat countryFormat, Random random) {
+        // many characters are decoded from every draw instead of one draw per character
+        char[] bban = BbanSampler.forCountry(countryFormat).sample(random);
+        // the national check digit is solved for, not left to chance
+        NationalCheckDigits.apply(countryFormat, bban);
+        return bban;
     }
 
     /**
@@ -238,6 +392,18 @@ public class Helper {
      * @return a sequence of characters containing random characters based on the char type
      */
     public static char[] randomForCharType(CharType charType, int numberOfChars) {
+        return randomForCharType(charType, numberOfChars, random);
+    }
+
+    /**
+     * Same as {@link #randomForCharType(CharType, int)} with the difference that the source of randomness is
+     * declared.
+     * @param charType the type of char, A, C or N
+     * @param numberOfChars the length of the returned char array
+     * @param random the source of randomness
+     * @return a sequence of characters containing random characters based on the char type
+     */
+    public static char[] randomForCharType(CharType charType, int numberOfChars, Random random) {
         char[] chars = new char[numberOfChars];
 
         switch (charType) {
@@ -266,4 +432,20 @@ public class Helper {
         return chars;
     }
 
+    /**
+     * Lazy initialization holder of the country table, only validation and parsing need it.
+     */
+    private static class CountryTable {
+        /**
+         * Country codes indexed by (first letter - 'A') * 26 + (second letter - 'A'), null if the code is unassigned.
+         */
+        private final static CountryISO[] COUNTRIES = new CountryISO[26 * 26];
+
+        static {
+            for (CountryISO countryISO : CountryISO.values()) {
+                String code = countryISO.getCode();
+                COUNTRIES[(code.charAt(0) - 'A') * 26 + code.charAt(1) - 'A'] = countryISO;
+            }
+        }
+    }
 }
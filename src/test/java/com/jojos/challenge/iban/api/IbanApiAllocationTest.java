@@ -0,0 +1,130 @@
+package com.jojos.challenge.iban.api;
+
+import com.jojos.challenge.iban.bank.BankDirectory;
+import com.jojos.challenge.iban.bank.BankIndex;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.country.CountryFormatProvider;
+import com.jojos.challenge.iban.country.CountryFormatProviderFactory;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.format.LayoutIbanFormatter;
+import com.jojos.challenge.iban.util.Helper;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Test class for the allocations of the hot paths of {@link IbanApi}.
+ *
+ * Every operation runs long enough to be compiled first, then the bytes allocated by the current thread over
+ * {@value #OPERATIONS} operations, as counted by {@code com.sun.management.ThreadMXBean}, must stay within the
+ * declared budget per operation in one of {@value #ROUNDS} rounds. JVMs not counting allocated bytes skip the
+ * tests.
+ */
+public class IbanApiAllocationTest {
+
+    private static final int WARMUP = 50_000;
+    private static final int OPERATIONS = 20_000;
+    private static final int ROUNDS = 5;
+    private static final long GENERATION_BUDGET = 384;
+
+    private static com.sun.management.ThreadMXBean threadMXBean;
+
+    private final LayoutIbanFormatter formatter = new LayoutIbanFormatter();
+    private final CountryFormatProvider provider = CountryFormatProviderFactory.getDefaultCountryFormatProvider();
+    private final Iban iban = IbanApi.generateFor(CountryISO.DE, formatter, provider);
+    private final String compact = iban.asString();
+    private final char[] bban = iban.getBban();
+    private final char[] line = new char[LayoutIbanFormatter.MAX_LENGTH];
+    // keeps the results alive, so that the operations are not optimized away
+    private long sink;
+
+    @BeforeClass
+    public static void setUpClass() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void testCheckDigits() {
+        assertBudget("check number", 0, () -> sink += Helper.checkNumber(bban, CountryISO.DE));
+        assertBudget("check digits", 24, () -> sink += Helper.generateCheckDigits(bban, CountryISO.DE)[1]);
+    }
+
+    @Test
+    public void testValidation() {
+        assertBudget("validation", 0, () -> sink += IbanApi.isValid(compact) ? 1 : 0);
+    }
+
+    @Test
+    public void testBankLookup() {
+        BankIndex index = BankIndex.of(Arrays.asList("DE;37040044;;Commerzbank;COBADEFFXXX", "DE;10070000"));
+        assertBudget("bank lookup", 0, () -> sink += index.lookup(compact) == null ? 0 : 1);
+        assertBudget("bank lookup of an iban", 0, () -> sink += index.lookup(iban) == null ? 0 : 1);
+    }
+
+    @Test
+    public void testFormatting() {
+        assertBudget("compact buffer", 0, () -> sink += formatter.writeCompact(iban, line, 0));
+        assertBudget("paper buffer", 0, () -> sink += formatter.writeHumanReadable(iban, line, 0));
+        assertBudget("masked buffer", 0, () -> sink += formatter.writeMasked(iban, line, 0));
+        assertBudget("compact string", stringBudget(compact.length()), () -> sink += formatter.asString(iban).length());
+        assertBudget("paper string", stringBudget(formatter.asHumanReadableString(iban).length()),
+                () -> sink += formatter.asHumanReadableString(iban).length());
+    }
+
+    @Test
+    public void testGeneration() {
+        CountryFormat countryFormat = CountryFormat.valueOf(CountryISO.DE);
+        Random random = ThreadLocalRandom.current();
+        assertBudget("random bban", charArray(bban.length),
+                () -> sink += Helper.randomForCountry(countryFormat, random).length);
+        BankDirectory directory = BankDirectory.of(Arrays.asList("DE;37040044;3", "DE;10070000;1"));
+        char[] destination = bban.clone();
+        assertBudget("bank code", 0, () -> sink += directory.drawInto(countryFormat, destination, random) ? 1 : 0);
+        // the bban, the check digits, the iban, its key and the map entry, plus the resizes of the map
+        assertBudget("generation", GENERATION_BUDGET,
+                () -> sink += IbanApi.generateFor(CountryISO.DE, formatter, provider, random).getBban().length);
+    }
+
+    /**
+     * @return the bytes of the formatting buffer and of the string, which copies it up to Java 8
+     */
+    private static long stringBudget(int length) {
+        return 2 * charArray(length) + 24;
+    }
+
+    /**
+     * @return the bytes of a char array with compressed class pointers
+     */
+    private static long charArray(int length) {
+        return (16 + 2L * length + 7) / 8 * 8;
+    }
+
+    private void assertBudget(String operation, long budget, Runnable runnable) {
+        for (int i = 0; i < WARMUP; i++) {
+            runnable.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        double perOperation = Double.MAX_VALUE;
+        // the best of a few rounds, a single one may see allocations of the test harness
+        for (int round = 0; round < ROUNDS && perOperation >= budget + 1; round++) {
+            long before = threadMXBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < OPERATIONS; i++) {
+                runnable.run();
+            }
+            long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+            perOperation = Math.min(perOperation, (double) allocated / OPERATIONS);
+        }
+        // the measurement itself allocates a few bytes, far less than one per operation
+        Assert.assertTrue(String.format("%s allocated %.1f bytes per operation, its budget is %d.", operation,
+                perOperation, budget), perOperation < budget + 1);
+    }
+}
@@ -0,0 +1,70 @@
+package com.jojos.challenge.iban.api;
+
+import com.jojos.challenge.iban.country.CountryISO;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Test class for the asynchronous methods of {@link IbanApi}
+ */
+public class IbanApiAsyncTest {
+
+    private static ExecutorService executorService;
+
+    @BeforeClass
+    public static void setup() {
+        executorService = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testGenerateAsync() throws Exception {
+        int runs = 2_000;
+        List<CompletableFuture<Iban>> futures = IntStream.range(0, runs)
+                .mapToObj(value -> IbanApi.generateAsync(CountryISO.DE, executorService))
+                .collect(Collectors.toList());
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[runs])).get();
+
+        Set<String> ibans = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        for (CompletableFuture<Iban> future : futures) {
+            Iban iban = future.get();
+            Assert.assertEquals(CountryISO.DE, iban.getCountryFormat().getCountryISO());
+            ibans.add(iban.asKey());
+        }
+        Assert.assertEquals(runs, ibans.size());
+    }
+
+    @Test
+    public void testGenerateBatchAsync() throws Exception {
+        List<Iban> ibans = IbanApi.generateBatchAsync(CountryISO.NL, 1_000, executorService).get();
+        Assert.assertEquals(1_000, ibans.size());
+        Assert.assertEquals(1_000, ibans.stream().map(Iban::asKey).distinct().count());
+    }
+
+    @Test
+    public void testGenerateAsyncCountryNotSupported() throws InterruptedException {
+        try {
+            IbanApi.generateAsync(CountryISO.GR, executorService).get();
+            Assert.fail("Expected the future to complete exceptionally");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IbanException);
+        }
+    }
+}
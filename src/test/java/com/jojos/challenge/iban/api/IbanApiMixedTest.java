@@ -0,0 +1,72 @@
+package com.jojos.challenge.iban.api;
+
+import com.jojos.challenge.iban.country.CountryISO;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Test class for {@link IbanApi#generateMixed(Map, int)}
+ */
+public class IbanApiMixedTest {
+
+    @Test
+    public void testMixedByWeight() {
+        Map<CountryISO, Double> weights = new EnumMap<>(CountryISO.class);
+        weights.put(CountryISO.DE, 0.6);
+        weights.put(CountryISO.NL, 0.25);
+        weights.put(CountryISO.AT, 0.15);
+        List<Iban> ibans = IbanApi.generateMixed(weights, 20_000);
+
+        Assert.assertEquals(20_000, ibans.size());
+        Map<CountryISO, Integer> counts = new EnumMap<>(CountryISO.class);
+        Set<String> distinct = new HashSet<>();
+        int switches = 0;
+        for (int i = 0; i < ibans.size(); i++) {
+            CountryISO country = ibans.get(i).getCountryFormat().getCountryISO();
+            counts.merge(country, 1, Integer::sum);
+            Assert.assertTrue(IbanApi.isValid(ibans.get(i).asString()));
+            distinct.add(ibans.get(i).asString());
+            if (i > 0 && country != ibans.get(i - 1).getCountryFormat().getCountryISO()) {
+                switches++;
+            }
+        }
+        Assert.assertEquals(20_000, distinct.size());
+        Assert.assertEquals(12_000, counts.get(CountryISO.DE), 400);
+        Assert.assertEquals(5_000, counts.get(CountryISO.NL), 400);
+        Assert.assertEquals(3_000, counts.get(CountryISO.AT), 400);
+        // mixed, not grouped by country: about 1 - (0.36 + 0.0625 + 0.0225) of the neighbours differ
+        Assert.assertTrue(String.valueOf(switches), switches > 10_000);
+    }
+
+    @Test
+    public void testZeroWeightAndEmpty() {
+        Map<CountryISO, Double> weights = new EnumMap<>(CountryISO.class);
+        weights.put(CountryISO.NL, 1.0);
+        weights.put(CountryISO.AT, 0.0);
+        for (Iban iban : IbanApi.generateMixed(weights, 100)) {
+            Assert.assertEquals(CountryISO.NL, iban.getCountryFormat().getCountryISO());
+        }
+        Assert.assertTrue(IbanApi.generateMixed(weights, 0).isEmpty());
+    }
+
+    @Test (expected = IbanException.class)
+    public void testThrowCountryNotSupported() {
+        Map<CountryISO, Double> weights = new EnumMap<>(CountryISO.class);
+        weights.put(CountryISO.NL, 1.0);
+        weights.put(CountryISO.GR, 1.0);
+        IbanApi.generateMixed(weights, 10);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testThrowNegativeCount() {
+        Map<CountryISO, Double> weights = new EnumMap<>(CountryISO.class);
+        weights.put(CountryISO.NL, 1.0);
+        IbanApi.generateMixed(weights, -1);
+    }
+}
@@ -0,0 +1,36 @@
+package com.jojos.challenge.iban.api;
+
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.format.DefaultIbanFormatter;
+import com.jojos.challenge.iban.format.IbanFormatter;
+import com.jojos.challenge.iban.util.Helper;
+
+/**
+ * IBANs of given BBANs for the tests, with the check digits computed the way the generator does. Nothing is
+ * reserved in the registry of {@link IbanApi}.
+ */
+public final class IbanFixtures {
+
+    private IbanFixtures() {
+    }
+
+    /**
+     * @param countryFormat the format of the country in question
+     * @param bban the bban, not copied
+     * @return the IBAN of the bban, formatted by a {@link DefaultIbanFormatter}
+     */
+    public static Iban iban(CountryFormat countryFormat, char[] bban) {
+        return iban(countryFormat, bban, new DefaultIbanFormatter());
+    }
+
+    /**
+     * @param countryFormat the format of the country in question
+     * @param bban the bban, not copied
+     * @param ibanFormatter the formatter of the IBAN
+     * @return the IBAN of the bban
+     */
+    public static Iban iban(CountryFormat countryFormat, char[] bban, IbanFormatter ibanFormatter) {
+        return new Iban(countryFormat, Helper.generateCheckDigits(bban, countryFormat.getCountryISO()), bban,
+                ibanFormatter);
+    }
+}
@@ -0,0 +1,124 @@
+package com.jojos.challenge.iban.audit;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.api.IbanApi;
+import com.jojos.challenge.iban.country.CountryISO;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Test class for {@link AuditSink} and {@link AuditRing}
+ */
+public class AuditSinkTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRingIsFifoAndBounded() {
+        AuditRing ring = new AuditRing(3);
+        Iban iban = IbanApi.generateFor(CountryISO.AT);
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(ring.offer(iban, i));
+        }
+        Assert.assertFalse(ring.offer(iban, 4));
+        List<Long> timestamps = new ArrayList<>();
+        Assert.assertEquals(3, ring.drain((timestamp, drained) -> timestamps.add(timestamp), 3));
+        Assert.assertTrue(ring.offer(iban, 5));
+        Assert.assertEquals(2, ring.drain((timestamp, drained) -> timestamps.add(timestamp), 10));
+        Assert.assertTrue(ring.isEmpty());
+        Assert.assertEquals(asList(0, 1, 2, 3, 5), timestamps);
+    }
+
+    @Test
+    public void testConcurrentProducersRollingFiles() throws Exception {
+        for (AuditSink.Format format : AuditSink.Format.values()) {
+            Path directory = folder.newFolder(format.name()).toPath();
+            AuditSink sink = new AuditSink(directory, format, 1, 4096, 1 << 16).start();
+            Set<String> generated = new HashSet<>();
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<List<Iban>> batches = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                batches.add(IbanApi.generateBatch(CountryISO.DE, 2_500));
+            }
+            for (List<Iban> batch : batches) {
+                batch.forEach(iban -> generated.add(iban.asString()));
+                executor.execute(() -> batch.forEach(sink::record));
+            }
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            sink.close();
+
+            Assert.assertEquals(0, sink.getDropped());
+            Assert.assertEquals(10_000, sink.getWritten());
+            List<Path> files = list(directory);
+            Assert.assertTrue(files.size() > 1);
+            Set<String> audited = new HashSet<>();
+            long now = System.currentTimeMillis();
+            for (Path file : files) {
+                Assert.assertTrue(Files.size(file) <= 4096);
+                AuditSink.read(file, (timestamp, iban) -> {
+                    Assert.assertTrue(timestamp <= now && timestamp > now - 60_000);
+                    audited.add(iban);
+                });
+            }
+            Assert.assertEquals(generated, audited);
+        }
+    }
+
+    @Test
+    public void testSamplingAndNumberingOn() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        Files.createFile(directory.resolve("audit-00007.txt"));
+        AuditSink sink = new AuditSink(directory, AuditSink.Format.TEXT, 10).start();
+        for (Iban iban : IbanApi.generateBatch(CountryISO.NL, 10_000)) {
+            sink.record(iban);
+        }
+        sink.close();
+        Assert.assertTrue(String.valueOf(sink.getWritten()), sink.getWritten() > 700 && sink.getWritten() < 1300);
+        Assert.assertTrue(Files.size(directory.resolve("audit-00008.txt")) > 0);
+    }
+
+    @Test
+    public void testEnabledThroughTheApi() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        AuditSink sink = IbanApi.enableAudit(directory, AuditSink.Format.BINARY, 1);
+        Iban iban = IbanApi.generateFor(CountryISO.DE, "37040044");
+        IbanApi.disableAudit();
+        Assert.assertTrue(sink.getWritten() >= 1);
+        List<String> audited = new ArrayList<>();
+        for (Path file : list(directory)) {
+            AuditSink.read(file, (timestamp, compact) -> audited.add(compact));
+        }
+        Assert.assertTrue(audited.contains(iban.asString()));
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static List<Long> asList(long... values) {
+        List<Long> list = new ArrayList<>();
+        for (long value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,103 @@
+package com.jojos.challenge.iban.bank;
+
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.national.NationalCheckDigits;
+import com.jojos.challenge.iban.util.Helper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Test class for {@link BankDirectory}
+ */
+public class BankDirectoryTest {
+
+    @Test
+    public void testLoad() throws IOException, URISyntaxException {
+        BankDirectory directory = BankDirectory.load(resource());
+        Assert.assertEquals(5, directory.size(CountryFormat.Austria));
+        Assert.assertEquals(10, directory.size(CountryFormat.Germany));
+        Assert.assertEquals(8, directory.size(CountryFormat.Netherlands));
+        Assert.assertEquals("37040044", directory.bankCode(CountryFormat.Germany, 4));
+        Assert.assertEquals("TRIO", directory.bankCode(CountryFormat.Netherlands, 7));
+    }
+
+    @Test
+    public void testMalformedRowsAreSkipped() {
+        BankDirectory directory = BankDirectory.of(Arrays.asList(
+                "# comment",
+                "",
+                "DE;3704004;1;too short;",
+                "DE;3704004X;1;not numeric;",
+                "DE;37040044;0;no weight;",
+                "DE;37040044;x;invalid weight;",
+                "XX;37040044;1;unknown country;",
+                "NL;abna;1;lower case;",
+                "NL;ABNA\r",
+                "DE;37040044"));
+        Assert.assertEquals(1, directory.size(CountryFormat.Germany));
+        Assert.assertEquals(1, directory.size(CountryFormat.Netherlands));
+        Assert.assertEquals(0, directory.size(CountryFormat.Austria));
+        Assert.assertEquals("ABNA", directory.bankCode(CountryFormat.Netherlands, 0));
+        Assert.assertTrue(BankDirectory.EMPTY.isEmpty());
+        Assert.assertFalse(BankDirectory.EMPTY.drawInto(CountryFormat.Germany, new char[18], new Random()));
+    }
+
+    @Test
+    public void testWeights() {
+        BankDirectory directory = BankDirectory.of(Arrays.asList("NL;ABNA;1", "NL;INGB;3", "NL;RABO;;", "NL;SNSB;4"));
+        Random random = new Random(7);
+        Map<String, Integer> counts = new HashMap<>();
+        char[] bban = Helper.randomForCountry(CountryFormat.Netherlands);
+        int draws = 90_000;
+        for (int i = 0; i < draws; i++) {
+            Assert.assertTrue(directory.drawInto(CountryFormat.Netherlands, bban, random));
+            counts.merge(new String(bban, 0, 4), 1, Integer::sum);
+        }
+        Assert.assertEquals(draws / 9, counts.get("ABNA"), draws / 100);
+        Assert.assertEquals(draws / 3, counts.get("INGB"), draws / 100);
+        Assert.assertEquals(draws / 9, counts.get("RABO"), draws / 100);
+        Assert.assertEquals(4 * draws / 9, counts.get("SNSB"), draws / 100);
+    }
+
+    @Test
+    public void testDrawIntoRandomBbans() throws IOException, URISyntaxException {
+        // the steps of IbanApi with a loaded directory, without switching the directory of the whole JVM
+        BankDirectory directory = BankDirectory.load(resource());
+        Random random = new Random(11);
+        for (CountryFormat countryFormat : new CountryFormat[]{CountryFormat.Austria, CountryFormat.Germany,
+                CountryFormat.Netherlands}) {
+            Set<String> codes = new HashSet<>();
+            for (int i = 0; i < directory.size(countryFormat); i++) {
+                codes.add(directory.bankCode(countryFormat, i));
+            }
+            int codeLength = codes.iterator().next().length();
+            for (int i = 0; i < 1000; i++) {
+                char[] bban = Helper.randomForCountry(countryFormat, random);
+                String account = new String(bban, codeLength, bban.length - codeLength - 1);
+                Assert.assertTrue(directory.drawInto(countryFormat, bban, random));
+                NationalCheckDigits.apply(countryFormat, bban);
+                Assert.assertTrue(codes.contains(new String(bban, 0, codeLength)));
+                Assert.assertTrue(NationalCheckDigits.isValid(countryFormat, bban));
+                if (countryFormat != CountryFormat.Netherlands) {
+                    // only the elfproef may bump an account digit
+                    Assert.assertEquals(account, new String(bban, codeLength, bban.length - codeLength - 1));
+                }
+            }
+        }
+    }
+
+    private static Path resource() throws URISyntaxException {
+        return Paths.get(BankDirectoryTest.class.getClassLoader().getResource("bank_directory.csv").toURI());
+    }
+}
@@ -0,0 +1,76 @@
+package com.jojos.challenge.iban.bank;
+
+import com.jojos.challenge.iban.api.IbanApi;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.country.CountryISO;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.jojos.challenge.iban.api.IbanFixtures.iban;
+
+/**
+ * Test class for {@link BankIndex}
+ */
+public class BankIndexTest {
+
+    @Test
+    public void testLookup() throws IOException, URISyntaxException {
+        BankIndex index = BankIndex.load(Paths.get(
+                BankIndexTest.class.getClassLoader().getResource("bank_directory.csv").toURI()));
+        Assert.assertEquals(23, index.size());
+
+        Bank bank = index.lookup("DE89370400440532013000");
+        Assert.assertEquals(CountryISO.DE, bank.getCountryISO());
+        Assert.assertEquals("37040044", bank.getBankCode());
+        Assert.assertEquals("Commerzbank", bank.getName());
+        Assert.assertEquals("COBADEFFXXX", bank.getBic());
+        Assert.assertEquals("ABN AMRO Bank", index.lookup("NL91ABNA0417164300").getName());
+        Assert.assertEquals("GIBAATWW", index.lookup("AT482011112345678901").getBic());
+
+        Assert.assertSame(bank, index.lookup(iban(CountryFormat.Germany, "370400440532013000".toCharArray())));
+        Assert.assertNull(index.lookup("DE89370400450532013000"));
+        Assert.assertNull(index.lookup("NL91abna0417164300"));
+        Assert.assertNull(index.lookup("DE8937"));
+        Assert.assertNull(index.lookup("XX89370400440532013000"));
+        Assert.assertNull(index.lookup((CharSequence) null));
+        Assert.assertNull(BankIndex.EMPTY.lookup("DE89370400440532013000"));
+    }
+
+    @Test
+    public void testFirstRowWins() {
+        BankIndex index = BankIndex.of(Arrays.asList(
+                "DE;37040044;;Commerzbank;COBADEFFXXX",
+                "DE;37040044;;Commerzbank Filiale;COBADEFF370",
+                "DE;10070000",
+                "NL;RABO;1;Rabobank"));
+        Assert.assertEquals(3, index.size());
+        Assert.assertEquals("COBADEFFXXX", index.lookup("DE89370400440532013000").getBic());
+        Assert.assertEquals("", index.lookup("DE00100700000000000000").getName());
+        Assert.assertEquals("", index.lookup("NL00RABO0000000000").getBic());
+    }
+
+    @Test
+    public void testSwap() throws IOException {
+        Path file = Files.createTempFile("banks", ".csv");
+        try {
+            Files.write(file, Collections.singletonList("NL;INGB;1;ING Bank;INGBNL2A"));
+            IbanApi.loadBankIndex(file);
+            Assert.assertEquals("INGBNL2A", IbanApi.lookupBank("NL20INGB0001234567").getBic());
+            Files.write(file, Collections.singletonList("NL;INGB;1;ING;INGBNL2AXXX"));
+            IbanApi.loadBankIndex(file);
+            Assert.assertEquals("INGBNL2AXXX", IbanApi.lookupBank("NL20INGB0001234567").getBic());
+        } finally {
+            IbanApi.clearBankIndex();
+            Files.deleteIfExists(file);
+        }
+        Assert.assertNull(IbanApi.lookupBank("NL20INGB0001234567"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.jojos.challenge.iban.bench;
+
+import com.jojos.challenge.iban.api.IbanApi;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how {@link IbanApi#generateFor} scales with the number of threads, for every registry and every
+ * source of randomness, and samples where the threads spend their time under contention.
+ *
+ * Every registry ({@value IbanApi#REGISTRY_PROPERTY} system property) and workload, each supported country on
+ * its own and all of them mixed, runs in a fresh JVM forked with the class path of this JVM, so that the
+ * registry of one measurement neither grows nor warms up the next. The forked {@link ScalingRun} prints one table
+ * per registry and workload. The arguments are passed to the forked JVMs, e.g. {@code -Xmx4g}:
+ *
+ * {@code java -cp <class path> com.jojos.challenge.iban.bench.ScalingBenchmark -Xmx4g}
+ *
+ * System properties:
+ * <ul>
+ *     <li>{@code registries}, comma separated, defaults to {@code map,compressed}</li>
+ *     <li>{@code workloads}, comma separated country codes or {@code mixed}, defaults to all</li>
+ *     <li>{@code threads}, the maximum number of threads, defaults to the number of processors</li>
+ *     <li>{@code seconds}, the duration of every measurement, after as long a warm-up, defaults to 2</li>
+ *     <li>{@code audit}, {@code text} or {@code binary} to audit the generated IBANs, defaults to none</li>
+ *     <li>{@code sampling}, audit one in n IBANs, defaults to 1</li>
+ * </ul>
+ */
+public class ScalingBenchmark {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<String> registries = Arrays.asList(System.getProperty("registries", "map,compressed").split(","));
+        List<String> workloads = Arrays.asList(System.getProperty("workloads",
+                String.join(",", ScalingRun.defaultWorkloads())).split(","));
+        for (String registry : registries) {
+            for (String workload : workloads) {
+                List<String> command = new ArrayList<>();
+                command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+                command.addAll(Arrays.asList(args));
+                command.add("-D" + IbanApi.REGISTRY_PROPERTY + "=" + registry);
+                forward(command, "threads");
+                forward(command, "seconds");
+                forward(command, "audit");
+                forward(command, "sampling");
+                command.add("-cp");
+                command.add(System.getProperty("java.class.path"));
+                command.add(ScalingRun.class.getName());
+                command.add(workload);
+                Process process = new ProcessBuilder(command).inheritIO().start();
+                if (process.waitFor() != 0) {
+                    throw new IllegalStateException(String.format("The run of %s %s failed.", registry, workload));
+                }
+            }
+        }
+    }
+
+    private static void forward(List<String> command, String property) {
+        String value = System.getProperty(property);
+        if (value != null) {
+            command.add("-D" + property + "=" + value);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.jojos.challenge.iban.bench;
+
+import com.jojos.challenge.iban.api.IbanApi;
+import com.jojos.challenge.iban.audit.AuditSink;
+import com.jojos.challenge.iban.country.CountryFormatProvider;
+import com.jojos.challenge.iban.country.CountryFormatProviderFactory;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.format.DefaultIbanFormatter;
+import com.jojos.challenge.iban.format.IbanFormatter;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The process forked by {@link ScalingBenchmark}: measures the throughput of one workload, a country code or
+ * {@code mixed}, with 1, 2, 4 ... up to {@code threads} threads, first with the shared random of
+ * {@link IbanApi#generateFor(CountryISO)} and then with a {@link ThreadLocalRandom} per thread.
+ *
+ * Meanwhile a sampler takes the stacks of the generating threads every {@value #SAMPLE_MILLIS} ms and attributes
+ * each sample to the innermost frame of a known contention point:
+ * <ul>
+ *     <li>{@code random}, {@link java.util.Random} and its compare and swap loop on the shared seed</li>
+ *     <li>{@code registry}, the concurrent maps of {@code SystemHelper.addToContainedMap} or the registry</li>
+ *     <li>{@code logging}, logback appenders, slf4j and the audit sink</li>
+ *     <li>{@code generation}, anything else</li>
+ * </ul>
+ * plus the share of samples of blocked or waiting threads. Stack samples are taken at safepoints, so they are
+ * biased, but good enough to tell which of these dominates. The share of the wall clock time spent collecting
+ * garbage is reported too, as the registry grows with every measurement.
+ */
+public class ScalingRun {
+
+    private static final int SAMPLE_MILLIS = 5;
+    private static final int STACK_DEPTH = 64;
+    private static final String[] CATEGORIES = {"random", "registry", "logging", "generation"};
+
+    private final CountryISO[] countries;
+    private final IbanFormatter ibanFormatter = new DefaultIbanFormatter();
+    private final CountryFormatProvider countryFormatProvider =
+            CountryFormatProviderFactory.getDefaultCountryFormatProvider();
+    private final long measureNanos;
+
+    private ScalingRun(CountryISO[] countries, long measureNanos) {
+        this.countries = countries;
+        this.measureNanos = measureNanos;
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        String workload = args[0];
+        int maxThreads = Integer.getInteger("threads", Runtime.getRuntime().availableProcessors());
+        long measureNanos = TimeUnit.SECONDS.toNanos(Integer.getInteger("seconds", 2));
+        String audit = System.getProperty("audit");
+        Path auditDirectory = audit == null ? null : Files.createTempDirectory("iban-audit");
+        AuditSink sink = audit == null ? null : IbanApi.enableAudit(auditDirectory,
+                AuditSink.Format.valueOf(audit.toUpperCase()), Integer.getInteger("sampling", 1));
+        ScalingRun run = new ScalingRun(countriesOf(workload), measureNanos);
+
+        System.out.println(String.format("registry %s, workload %s, %d s per measurement",
+                System.getProperty(IbanApi.REGISTRY_PROPERTY, "map"), workload, measureNanos / 1_000_000_000));
+        System.out.println(String.format("%-12s %7s %12s %12s %10s  %8s %8s %8s %10s %8s %6s", "random", "threads",
+                "ops/s", "ops/s/thread", "efficiency", CATEGORIES[0], CATEGORIES[1], CATEGORIES[2], CATEGORIES[3],
+                "blocked", "gc"));
+        for (boolean shared : new boolean[]{true, false}) {
+            double single = 0;
+            for (int threads : threadCounts(maxThreads)) {
+                // the warm-up also keeps the registry size comparable between the thread counts
+                run.measure(shared, threads, false);
+                Result result = run.measure(shared, threads, true);
+                if (threads == 1) {
+                    single = result.opsPerSecond;
+                }
+                System.out.println(String.format("%-12s %7d %12.0f %12.0f %9.0f%%  %7.1f%% %7.1f%% %7.1f%% %9.1f%% %7.1f%% %5.1f%%",
+                        shared ? "shared" : "thread-local", threads, result.opsPerSecond,
+                        result.opsPerSecond / threads, 100 * result.opsPerSecond / (threads * single),
+                        result.share(0), result.share(1), result.share(2), result.share(3),
+                        result.blockedShare(), result.gcShare));
+            }
+        }
+        if (sink != null) {
+            IbanApi.disableAudit();
+            System.out.println(String.format("audit %s: %d written, %d dropped", audit, sink.getWritten(),
+                    sink.getDropped()));
+            try (Stream<Path> files = Files.list(auditDirectory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(auditDirectory);
+        }
+    }
+
+    static List<String> defaultWorkloads() {
+        List<String> workloads = new ArrayList<>();
+        for (CountryISO country : supportedCountries()) {
+            workloads.add(country.getCode());
+        }
+        workloads.add("mixed");
+        return workloads;
+    }
+
+    private static List<CountryISO> supportedCountries() {
+        CountryFormatProvider provider = CountryFormatProviderFactory.getDefaultCountryFormatProvider();
+        List<CountryISO> countries = new ArrayList<>();
+        for (CountryISO country : CountryISO.values()) {
+            if (provider.isCountrySupported(country)) {
+                countries.add(country);
+            }
+        }
+        return countries;
+    }
+
+    private static CountryISO[] countriesOf(String workload) {
+        if ("mixed".equals(workload)) {
+            List<CountryISO> countries = supportedCountries();
+            return countries.toArray(new CountryISO[countries.size()]);
+        }
+        CountryISO country = CountryISO.forCaseInsensitiveCode(workload);
+        if (country == null) {
+            throw new IllegalArgumentException(String.format("Unknown workload %s.", workload));
+        }
+        return new CountryISO[]{country};
+    }
+
+    private static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(maxThreads);
+        return counts;
+    }
+
+    private Result measure(boolean shared, int threadCount, boolean sample) throws InterruptedException {
+        Worker[] workers = new Worker[threadCount];
+        CountDownLatch started = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            workers[i] = new Worker(shared, i, started);
+            workers[i].start();
+        }
+        started.await();
+        Sampler sampler = new Sampler(workers);
+        long startGcMillis = gcMillis();
+        long start = System.nanoTime();
+        long[] startCounts = new long[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            startCounts[i] = workers[i].count;
+        }
+        while (System.nanoTime() - start < measureNanos) {
+            if (sample) {
+                sampler.sample();
+            }
+            TimeUnit.MILLISECONDS.sleep(SAMPLE_MILLIS);
+        }
+        long total = 0;
+        for (int i = 0; i < threadCount; i++) {
+            total += workers[i].count - startCounts[i];
+        }
+        long elapsed = System.nanoTime() - start;
+        double gcShare = 100.0 * TimeUnit.MILLISECONDS.toNanos(gcMillis() - startGcMillis) / elapsed;
+        for (Worker worker : workers) {
+            worker.running = false;
+        }
+        for (Worker worker : workers) {
+            worker.join();
+        }
+        return new Result(total * 1e9 / elapsed, gcShare, sampler);
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private final class Worker extends Thread {
+        private final boolean shared;
+        private final int offset;
+        private final CountDownLatch started;
+        private volatile boolean running = true;
+        // read by the measuring thread, a slightly stale value is fine
+        private volatile long count;
+
+        private Worker(boolean shared, int offset, CountDownLatch started) {
+            super("scaling-" + offset);
+            this.shared = shared;
+            this.offset = offset;
+            this.started = started;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            started.countDown();
+            int next = offset;
+            long generated = 0;
+            while (running) {
+                CountryISO country = countries[next++ % countries.length];
+                if (shared) {
+                    IbanApi.generateFor(country);
+                } else {
+                    IbanApi.generateFor(country, ibanFormatter, countryFormatProvider, ThreadLocalRandom.current());
+                }
+                // publishing every IBAN would make the counter itself a contention point
+                if ((++generated & 0xff) == 0) {
+                    count = generated;
+                }
+            }
+        }
+    }
+
+    /**
+     * Attributes stack samples of the workers to the {@link #CATEGORIES}.
+     */
+    private static final class Sampler {
+        private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        private final long[] threadIds;
+        private final long[] samples = new long[CATEGORIES.length];
+        private long blocked;
+        private long total;
+
+        private Sampler(Worker[] workers) {
+            this.threadIds = new long[workers.length];
+            for (int i = 0; i < workers.length; i++) {
+                threadIds[i] = workers[i].getId();
+            }
+        }
+
+        private void sample() {
+            for (ThreadInfo info : threadMXBean.getThreadInfo(threadIds, STACK_DEPTH)) {
+                if (info == null) {
+                    continue;
+                }
+                total++;
+                if (info.getThreadState() == Thread.State.BLOCKED || info.getThreadState() == Thread.State.WAITING ||
+                        info.getThreadState() == Thread.State.TIMED_WAITING) {
+                    blocked++;
+                }
+                samples[categoryOf(info.getStackTrace())]++;
+            }
+        }
+
+        private static int categoryOf(StackTraceElement[] stack) {
+            for (StackTraceElement frame : stack) {
+                String className = frame.getClassName();
+                if (className.equals("java.util.Random") || className.equals("java.util.concurrent.ThreadLocalRandom")) {
+                    return 0;
+                }
+                if (className.startsWith("java.util.concurrent.ConcurrentHashMap") ||
+                        frame.getMethodName().equals("addToContainedMap") ||
+                        className.startsWith("com.jojos.challenge.iban.registry.")) {
+                    return 1;
+                }
+                if (className.startsWith("ch.qos.logback.") || className.startsWith("org.slf4j.") ||
+                        className.startsWith("com.jojos.challenge.iban.audit.")) {
+                    return 2;
+                }
+            }
+            return 3;
+        }
+    }
+
+    private static final class Result {
+        private final double opsPerSecond;
+        private final double gcShare;
+        private final Sampler sampler;
+
+        private Result(double opsPerSecond, double gcShare, Sampler sampler) {
+            this.opsPerSecond = opsPerSecond;
+            this.gcShare = gcShare;
+            this.sampler = sampler;
+        }
+
+        private double share(int category) {
+            return sampler.total == 0 ? 0 : 100.0 * sampler.samples[category] / sampler.total;
+        }
+
+        private double blockedShare() {
+            return sampler.total == 0 ? 0 : 100.0 * sampler.blocked / sampler.total;
+        }
+    }
+}
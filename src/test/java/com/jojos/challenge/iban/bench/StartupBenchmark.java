@@ -0,0 +1,63 @@
+package com.jojos.challenge.iban.bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures the time to the first generated IBAN of fresh JVMs, the cost every surefire fork pays.
+ *
+ * Forks {@link StartupProbe} with the class path of this JVM and reports, over all the runs, the wall clock time
+ * of the whole process and the time from entering main to the first IBAN. The arguments are passed to the forked
+ * JVMs, so that runs with and without a class data sharing archive can be compared:
+ *
+ * {@code java -cp <class path> com.jojos.challenge.iban.bench.StartupBenchmark -XX:SharedArchiveFile=iban.jsa}
+ *
+ * The number of runs defaults to 20 and is set by the system property {@code runs}.
+ */
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs = Integer.getInteger("runs", 20);
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(Arrays.asList(args));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(StartupProbe.class.getName());
+
+        long[] processNanos = new long[runs];
+        long[] firstIbanNanos = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            String last = null;
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    last = line;
+                }
+            }
+            if (process.waitFor() != 0 || last == null) {
+                throw new IllegalStateException("The probe failed: " + last);
+            }
+            processNanos[run] = System.nanoTime() - start;
+            firstIbanNanos[run] = Long.parseLong(last.trim());
+        }
+        System.out.println(String.format("%d runs of %s", runs, command.subList(1, command.size() - 3)));
+        print("process", processNanos);
+        print("main to first IBAN", firstIbanNanos);
+    }
+
+    private static void print(String name, long[] nanos) {
+        Arrays.sort(nanos);
+        System.out.println(String.format("%-20s min %8.1f ms  median %8.1f ms  max %8.1f ms", name,
+                nanos[0] / 1e6, nanos[nanos.length / 2] / 1e6, nanos[nanos.length - 1] / 1e6));
+    }
+}
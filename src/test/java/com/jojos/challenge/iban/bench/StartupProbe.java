@@ -0,0 +1,17 @@
+package com.jojos.challenge.iban.bench;
+
+import com.jojos.challenge.iban.api.IbanApi;
+import com.jojos.challenge.iban.country.CountryISO;
+
+/**
+ * The process forked by {@link StartupBenchmark}: generates a single IBAN and prints the nanos it took from
+ * entering main. Also the workload to record a class list for a class data sharing archive with.
+ */
+public class StartupProbe {
+
+    public static void main(String[] args) {
+        long start = System.nanoTime();
+        IbanApi.generateFor(CountryISO.DE);
+        System.out.println(System.nanoTime() - start);
+    }
+}
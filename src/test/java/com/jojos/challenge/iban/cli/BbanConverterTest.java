@@ -0,0 +1,83 @@
+package com.jojos.challenge.iban.cli;
+
+import com.jojos.challenge.iban.api.IbanApi;
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryISO;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test class for {@link BbanConverter}
+ */
+public class BbanConverterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testConvertInOrder() throws IOException {
+        // enough lines for several chunks
+        List<String> bbans = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        IbanApi.enumerate(CountryISO.DE, "370400440").range(0, 200_000).forEachRemaining(iban -> {
+            bbans.add(String.valueOf(iban.getBban()));
+            expected.add(iban.asString());
+        });
+        Path in = folder.getRoot().toPath().resolve("bbans.txt");
+        Path out = folder.getRoot().toPath().resolve("ibans.txt");
+        Files.write(in, bbans, StandardCharsets.US_ASCII);
+
+        BbanConverter.Statistics statistics = new BbanConverter(CountryISO.DE, 4).convert(in, out);
+
+        Assert.assertEquals(expected, Files.readAllLines(out, StandardCharsets.US_ASCII));
+        Assert.assertEquals(200_000, statistics.getRows());
+        Assert.assertEquals(0, statistics.getRejected());
+        Assert.assertEquals(Files.size(out), statistics.getBytes());
+    }
+
+    @Test
+    public void testRejectedLinesKeepTheirPlace() throws IOException {
+        String input = "RABO0417164300\r\nRABO041716430\nrabo0417164300\n\nABNA0417164300";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        BbanConverter.Statistics statistics = new BbanConverter(CountryISO.NL, 2)
+                .convert(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)), out);
+
+        List<String> lines = Arrays.asList(new String(out.toByteArray(), StandardCharsets.US_ASCII).split("\n", -1));
+        Assert.assertEquals(6, lines.size());
+        Assert.assertTrue(lines.get(0).startsWith("NL") && lines.get(0).endsWith("RABO0417164300"));
+        Assert.assertEquals(Arrays.asList("", "", "", "NL91ABNA0417164300", ""), lines.subList(1, 6));
+        Assert.assertEquals(5, statistics.getRows());
+        Assert.assertEquals(3, statistics.getRejected());
+        Assert.assertEquals(2, statistics.getFirstRejectedLine());
+        for (String iban : Arrays.asList(lines.get(0), lines.get(4))) {
+            Assert.assertTrue(IbanApi.isValid(iban));
+        }
+    }
+
+    @Test
+    public void testEmptyInput() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BbanConverter.Statistics statistics =
+                new BbanConverter(CountryISO.AT, 1).convert(new ByteArrayInputStream(new byte[0]), out);
+        Assert.assertEquals(0, out.size());
+        Assert.assertEquals(0, statistics.getRows());
+    }
+
+    @Test (expected = IbanException.class)
+    public void testThrowCountryNotSupported() {
+        new BbanConverter(CountryISO.GR, 1);
+    }
+}
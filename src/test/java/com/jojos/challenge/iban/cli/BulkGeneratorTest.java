@@ -0,0 +1,59 @@
+package com.jojos.challenge.iban.cli;
+
+import com.jojos.challenge.iban.api.IbanApi;
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryISO;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Test class for {@link BulkGenerator}
+ */
+public class BulkGeneratorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGenerateCompact() throws IOException {
+        Path out = folder.getRoot().toPath().resolve("ibans.txt");
+        BulkGenerator.Statistics statistics =
+                new BulkGenerator(CountryISO.NL, 10_000, 4, BulkGenerator.Format.COMPACT).generate(out);
+
+        List<String> ibans = Files.readAllLines(out, StandardCharsets.US_ASCII);
+        Assert.assertEquals(10_000, ibans.size());
+        Assert.assertEquals(10_000, new HashSet<>(ibans).size());
+        for (String iban : ibans) {
+            Assert.assertTrue(IbanApi.isValid(iban));
+        }
+        Assert.assertEquals(10_000, statistics.getCount());
+        Assert.assertEquals(Files.size(out), statistics.getBytes());
+    }
+
+    @Test
+    public void testGeneratePaper() throws IOException {
+        Path out = folder.getRoot().toPath().resolve("ibans.txt");
+        new BulkGenerator(CountryISO.AT, 100, 2, BulkGenerator.Format.PAPER).generate(out);
+
+        List<String> ibans = Files.readAllLines(out, StandardCharsets.US_ASCII);
+        Assert.assertEquals(100, ibans.size());
+        for (String iban : ibans) {
+            Assert.assertEquals(24, iban.length());
+            Assert.assertTrue(IbanApi.isValid(iban.replace(" ", "")));
+        }
+    }
+
+    @Test (expected = IbanException.class)
+    public void testThrowCountryNotSupported() {
+        new BulkGenerator(CountryISO.GR, 1, 1, BulkGenerator.Format.COMPACT);
+    }
+}
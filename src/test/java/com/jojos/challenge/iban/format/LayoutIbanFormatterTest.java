@@ -0,0 +1,47 @@
+package com.jojos.challenge.iban.format;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.util.Helper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static com.jojos.challenge.iban.api.IbanFixtures.iban;
+
+/**
+ * Test class for {@link LayoutIbanFormatter}
+ */
+public class LayoutIbanFormatterTest {
+
+    private final LayoutIbanFormatter formatter = new LayoutIbanFormatter();
+
+    @Test
+    public void testMatchesDefaultFormatter() {
+        DefaultIbanFormatter defaultFormatter = new DefaultIbanFormatter();
+        for (CountryFormat countryFormat : CountryFormat.values()) {
+            for (int i = 0; i < 100; i++) {
+                Iban iban = iban(countryFormat, Helper.randomForCountry(countryFormat), formatter);
+                Assert.assertEquals(iban.asKey(), formatter.asString(iban));
+                Assert.assertEquals(defaultFormatter.asHumanReadableString(iban), formatter.asHumanReadableString(iban));
+            }
+        }
+    }
+
+    @Test
+    public void testMasked() {
+        Assert.assertEquals("DE** 3704 0044 **** **30 00",
+                formatter.asMaskedString(iban(CountryFormat.Germany, "370400440532013000".toCharArray(), formatter)));
+        Assert.assertEquals("AT** 1904 3*** **** 3201",
+                formatter.asMaskedString(iban(CountryFormat.Austria, "1904300234573201".toCharArray(), formatter)));
+        Assert.assertEquals("NL** ABNA **** **67 89",
+                formatter.asMaskedString(iban(CountryFormat.Netherlands, "ABNA0123456789".toCharArray(), formatter)));
+    }
+
+    @Test
+    public void testCompileMalformed() {
+        Assert.assertNull(LayoutIbanFormatter.Plan.compile("DE"));
+        Assert.assertNull(LayoutIbanFormatter.Plan.compile("DEkk  bbbb"));
+        Assert.assertNotNull(LayoutIbanFormatter.Plan.compile("GBkk bbbb ssss sscc cccc cc"));
+        Assert.assertNotNull(LayoutIbanFormatter.Plan.groupsOfFour(15));
+    }
+}
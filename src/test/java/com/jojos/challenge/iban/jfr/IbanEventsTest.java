@@ -0,0 +1,73 @@
+package com.jojos.challenge.iban.jfr;
+
+import com.jojos.challenge.iban.api.IbanApi;
+import com.jojos.challenge.iban.country.CountryFormatProvider;
+import com.jojos.challenge.iban.country.CountryFormatProviderFactory;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.format.DefaultIbanFormatter;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Test class for {@link IbanEvents}
+ */
+public class IbanEventsTest {
+
+    private static final String[] EVENTS = {"com.jojos.iban.Generation", "com.jojos.iban.Collision",
+            "com.jojos.iban.RegistryThreshold", "com.jojos.iban.Throughput"};
+
+    @Test
+    public void testEventsAreRecorded() throws IOException, InterruptedException {
+        CountryFormatProvider provider = CountryFormatProviderFactory.getDefaultCountryFormatProvider();
+        Path file = Files.createTempFile("iban", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String event : EVENTS) {
+                recording.enable(event).withPeriod(Duration.ofMillis(100));
+            }
+            recording.start();
+            for (int i = 0; i < 100; i++) {
+                IbanApi.generateFor(CountryISO.NL);
+            }
+            IbanApi.generateBatch(CountryISO.NL, 100);
+            // the same seed generates the same first IBAN again
+            for (int seed = 0; seed < 5; seed++) {
+                IbanApi.generateFor(CountryISO.NL, new DefaultIbanFormatter(), provider, new Random(seed));
+                IbanApi.generateFor(CountryISO.NL, new DefaultIbanFormatter(), provider, new Random(seed));
+            }
+            Thread.sleep(300);
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            Map<String, Integer> counts = new HashMap<>();
+            for (RecordedEvent event : events) {
+                counts.merge(event.getEventType().getName(), 1, Integer::sum);
+                if (event.getEventType().getName().equals("com.jojos.iban.Collision")) {
+                    Assert.assertEquals("NL", event.getString("country"));
+                }
+            }
+            for (String event : EVENTS) {
+                Assert.assertTrue(event + " not recorded in " + counts, counts.getOrDefault(event, 0) > 0);
+            }
+            long retried = events.stream()
+                    .filter(event -> event.getEventType().getName().equals("com.jojos.iban.Generation"))
+                    .filter(event -> event.getInt("retries") > 0)
+                    .count();
+            Assert.assertTrue(retried > 0);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.jojos.challenge.iban.lease;
+
+import com.jojos.challenge.iban.api.IbanApi;
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.country.CountryFormatProviderFactory;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.format.DefaultIbanFormatter;
+import com.jojos.challenge.iban.national.NationalCheckDigits;
+import com.jojos.challenge.iban.prefix.PrefixSpace;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Test class for {@link BlockLeases} and {@link BlockLeasingRule}
+ */
+public class BlockLeasesTest {
+
+    @Test
+    public void testLeasesAreDisjoint() throws Exception {
+        Path file = Files.createTempFile("iban", ".lease");
+        Files.delete(file);
+        // two openers of the same file stand for two JVMs
+        try (BlockLeases first = BlockLeases.open(file, 100);
+             BlockLeases second = BlockLeases.open(file, 37)) {
+            Set<String> bbans = ConcurrentHashMap.newKeySet();
+            List<Thread> threads = new ArrayList<>();
+            for (BlockLeases leases : new BlockLeases[]{first, second, first, second}) {
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        for (CountryFormat countryFormat : CountryFormat.values()) {
+                            char[] bban = leases.nextBban(countryFormat);
+                            Assert.assertTrue(NationalCheckDigits.isValid(countryFormat, bban));
+                            Assert.assertTrue(bbans.add(countryFormat + String.valueOf(bban)));
+                        }
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            Assert.assertEquals(20_000 * CountryFormat.values().length, bbans.size());
+            Assert.assertTrue(first.getLeased(CountryFormat.Netherlands) >= 20_000);
+            Assert.assertEquals(first.getLeased(CountryFormat.Netherlands),
+                    second.getLeased(CountryFormat.Netherlands));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testPrefixLeasesAreDisjoint() throws IOException {
+        Path file = Files.createTempFile("iban", ".lease");
+        Files.delete(file);
+        try (BlockLeases first = BlockLeases.open(file, 10);
+             BlockLeases second = BlockLeases.open(file, 7)) {
+            // 1000 candidates, the last account digit being the check digit, some of them without one
+            Set<String> expected = new HashSet<>();
+            PrefixSpace space = PrefixSpace.of(CountryFormat.Netherlands, "RABO012345");
+            for (char[] bban = space.nextBban(); bban != null; bban = space.nextBban()) {
+                expected.add(String.valueOf(bban));
+            }
+            Set<String> bbans = new HashSet<>();
+            // alternate between the openers, each one drains its last block once the prefix is leased out
+            List<BlockLeases> leasing = new ArrayList<>(Arrays.asList(first, second));
+            for (int i = 0; !leasing.isEmpty(); i++) {
+                BlockLeases leases = leasing.get(i % leasing.size());
+                try {
+                    char[] bban = leases.nextBban(CountryFormat.Netherlands, "RABO012345");
+                    Assert.assertTrue(String.valueOf(bban).startsWith("RABO012345"));
+                    Assert.assertTrue(bbans.add(String.valueOf(bban)));
+                } catch (IbanException e) {
+                    leasing.remove(leases);
+                }
+            }
+            Assert.assertEquals(expected, bbans);
+            // the countries keep their own counters
+            Assert.assertEquals(0, first.getLeased(CountryFormat.Netherlands));
+            try {
+                first.nextBban(CountryFormat.Netherlands, "RABO012345");
+                Assert.fail("The prefix should be leased out.");
+            } catch (IbanException e) {
+                // expected
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test (expected = IbanException.class)
+    public void testThrowNotAControlFile() throws IOException {
+        Path file = Files.createTempFile("iban", ".lease");
+        try {
+            Files.write(file, "not a lease file".getBytes());
+            BlockLeases.open(file, 100);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testRule() throws Throwable {
+        Path file = Files.createTempFile("iban", ".lease");
+        Files.delete(file);
+        BlockLeasingRule outer = new BlockLeasingRule(file, 10);
+        BlockLeasingRule inner = new BlockLeasingRule(file, 10);
+        outer.before();
+        try (BlockLeases leases = BlockLeases.open(file, 10)) {
+            inner.before();
+            try {
+                new BlockLeasingRule(file.resolveSibling(file.getFileName() + ".other"), 10).before();
+                Assert.fail("A second control file should be rejected.");
+            } catch (IllegalStateException expected) {
+                // all the rules of a JVM share one control file
+            }
+            generate(25);
+            // other test classes may draw from the same leases, but never fewer than this one
+            long leased = leases.getLeased(CountryFormat.Germany);
+            Assert.assertTrue(leased >= 30);
+
+            // the first rule to finish leaves leasing on for the other one
+            inner.after();
+            generate(11);
+            Assert.assertTrue(leases.getLeased(CountryFormat.Germany) > leased);
+
+            outer.after();
+            leased = leases.getLeased(CountryFormat.Germany);
+            generate(11);
+            Assert.assertEquals(leased, leases.getLeased(CountryFormat.Germany));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void generate(int count) {
+        for (int i = 0; i < count; i++) {
+            // bypasses any prefetcher enabled meanwhile
+            Iban iban = IbanApi.generateFor(CountryISO.DE, new DefaultIbanFormatter(),
+                    CountryFormatProviderFactory.getDefaultCountryFormatProvider());
+            Assert.assertTrue(IbanApi.isValid(iban.asKey()));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.jojos.challenge.iban.lease;
+
+import com.jojos.challenge.iban.api.IbanApi;
+import org.junit.rules.ExternalResource;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * A JUnit rule making the IBANs generated by {@link IbanApi} unique across all the forks of a test run.
+ *
+ * <pre>
+ * &#64;ClassRule
+ * public static final BlockLeasingRule LEASES = new BlockLeasingRule();
+ * </pre>
+ *
+ * All the forks must use the same control file: the {@value #FILE_PROPERTY} system property, e.g. set by the
+ * surefire {@code systemPropertyVariables} to a file under {@code target}, or {@value #DEFAULT_FILE} in the
+ * temporary directory otherwise.
+ *
+ * Leasing is switched on for the whole JVM, so test classes running in parallel share it: the first rule opens
+ * the control file and only the last one to finish closes it again. All the rules of a JVM must use the same
+ * control file.
+ *
+ * The rule ships in the test jar of the project, so that the main sources do not depend on JUnit.
+ *
+ * @see BlockLeases
+ */
+public class BlockLeasingRule extends ExternalResource {
+
+    public static final String FILE_PROPERTY = "iban.lease.file";
+    public static final String DEFAULT_FILE = "iban-generator.lease";
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    // the control file leasing is enabled with and the number of rules using it, guarded by BlockLeasingRule.class
+    private static Path activeFile;
+    private static int users;
+
+    private final Path file;
+    private final int blockSize;
+
+    public BlockLeasingRule() {
+        this(Paths.get(System.getProperty(FILE_PROPERTY,
+                Paths.get(System.getProperty("java.io.tmpdir"), DEFAULT_FILE).toString())), DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param file the control file, shared by all the forks
+     * @param blockSize the number of BBANs leased at once
+     */
+    public BlockLeasingRule(Path file, int blockSize) {
+        this.file = file;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    protected void before() throws Throwable {
+        synchronized (BlockLeasingRule.class) {
+            if (users == 0) {
+                IbanApi.enableBlockLeasing(file, blockSize);
+                activeFile = file;
+            } else if (!activeFile.equals(file)) {
+                throw new IllegalStateException(String.format(
+                        "Block leasing already uses %s, cannot switch to %s.", activeFile, file));
+            }
+            users++;
+        }
+    }
+
+    @Override
+    protected void after() {
+        synchronized (BlockLeasingRule.class) {
+            if (--users == 0) {
+                IbanApi.disableBlockLeasing();
+                activeFile = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.jojos.challenge.iban.national;
+
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.util.Helper;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link NationalCheckDigits} and {@link CheckDigitMethod}
+ */
+public class NationalCheckDigitsTest {
+
+    @Test
+    public void testKnownAccounts() {
+        // Bundesbank examples of method 00 and 06, an ABN AMRO account for the elfproef
+        Assert.assertTrue(CheckDigitMethod.DE_00.isValid("0009290701".toCharArray(), 0));
+        Assert.assertTrue(CheckDigitMethod.DE_00.isValid("0539290858".toCharArray(), 0));
+        Assert.assertFalse(CheckDigitMethod.DE_00.isValid("0539290857".toCharArray(), 0));
+        Assert.assertTrue(CheckDigitMethod.DE_06.isValid("0094012341".toCharArray(), 0));
+        Assert.assertTrue(CheckDigitMethod.NL_ELFPROEF.isValid("ABNA0417164300".toCharArray(), 4));
+        Assert.assertFalse(CheckDigitMethod.NL_ELFPROEF.isValid("ABNA0417164301".toCharArray(), 4));
+        char[] bban = "ABNA0417164309".toCharArray();
+        Assert.assertTrue(CheckDigitMethod.NL_ELFPROEF.solve(bban, 4));
+        Assert.assertEquals("ABNA0417164300", String.valueOf(bban));
+    }
+
+    @Test
+    public void testApplySolvesEveryDraw() {
+        for (CountryFormat countryFormat : new CountryFormat[]{CountryFormat.Germany, CountryFormat.Netherlands}) {
+            for (int i = 0; i < 10_000; i++) {
+                char[] bban = Helper.randomForCountry(countryFormat);
+                Assert.assertTrue(NationalCheckDigits.isValid(countryFormat, bban));
+            }
+        }
+    }
+
+    @Test
+    public void testUnsolvableElfproefDraw() {
+        // the first 9 digits weigh 1 mod 11, only a last digit of 10 would pass
+        char[] bban = "ABNA0417167300".toCharArray();
+        // solving alone leaves the draw as is
+        Assert.assertFalse(NationalCheckDigits.solve(CountryFormat.Netherlands, bban));
+        Assert.assertEquals("ABNA0417167300", String.valueOf(bban));
+        CheckDigitMethod.NL_ELFPROEF.apply(bban, 4);
+        // the digit of weight 2 is incremented, then the last digit solved
+        Assert.assertEquals("ABNA0417167318", String.valueOf(bban));
+    }
+
+    @Test
+    public void testRegisteredBankMethod() {
+        NationalCheckDigits.register(CountryFormat.Germany, "99999999", CheckDigitMethod.DE_06);
+        char[] bban = "999999990094012349".toCharArray();
+        NationalCheckDigits.apply(CountryFormat.Germany, bban);
+        Assert.assertEquals("999999990094012341", String.valueOf(bban));
+    }
+
+    @Test (expected = IbanException.class)
+    public void testThrowRegisterWithoutScheme() {
+        NationalCheckDigits.register(CountryFormat.Austria, "12345", CheckDigitMethod.DE_00);
+    }
+}
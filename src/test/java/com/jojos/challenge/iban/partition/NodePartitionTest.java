@@ -0,0 +1,65 @@
+package com.jojos.challenge.iban.partition;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.api.IbanApi;
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.national.NationalCheckDigits;
+import com.jojos.challenge.iban.util.Helper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+/**
+ * Test class for {@link NodePartition}
+ */
+public class NodePartitionTest {
+
+    @Test
+    public void testStamp() {
+        NodePartition partition = new NodePartition(42, 100);
+        for (CountryFormat countryFormat : CountryFormat.values()) {
+            for (int i = 0; i < 1000; i++) {
+                char[] bban = Helper.randomForCountry(countryFormat);
+                partition.stamp(countryFormat, bban);
+                Assert.assertTrue(NationalCheckDigits.isValid(countryFormat, bban));
+                // the account number follows the bank code of all the supported countries
+                int offset = countryFormat.getBbanFormat().getBbanFormatElements().get(0).getNumberOfChars();
+                Assert.assertEquals("42", new String(bban, offset, 2));
+            }
+        }
+    }
+
+    @Test
+    public void testCapacity() {
+        NodePartition partition = new NodePartition(0, 16);
+        // 8 bank code digits, 10 account digits of which 2 are reserved and 1 is the check digit
+        Assert.assertEquals(BigInteger.TEN.pow(15), partition.capacity(CountryFormat.Germany));
+        Assert.assertEquals(BigInteger.valueOf(26).pow(4).multiply(BigInteger.TEN.pow(7)),
+                partition.capacity(CountryFormat.Netherlands));
+        Assert.assertEquals(BigInteger.TEN.pow(16), new NodePartition(0, 1).capacity(CountryFormat.Austria));
+    }
+
+    @Test (expected = IbanException.class)
+    public void testThrowTooManyNodes() {
+        // the elfproef writes the last two of the 10 account digits
+        new NodePartition(0, 1_000_000_000).stamp(CountryFormat.Netherlands, Helper.randomForCountry(
+                CountryFormat.Netherlands));
+    }
+
+    @Test
+    public void testGenerateForNode() {
+        try {
+            IbanApi.enableNodePartition(7, 10);
+            for (int i = 0; i < 1000; i++) {
+                Iban iban = IbanApi.generateFor(CountryISO.AT);
+                Assert.assertTrue(IbanApi.isValid(iban.asKey()));
+                Assert.assertEquals('7', iban.asKey().charAt(9));
+            }
+        } finally {
+            IbanApi.disableNodePartition();
+        }
+    }
+}
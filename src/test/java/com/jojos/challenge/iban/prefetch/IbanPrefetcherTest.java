@@ -0,0 +1,114 @@
+package com.jojos.challenge.iban.prefetch;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormatProviderFactory;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.format.DefaultIbanFormatter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for {@link IbanPrefetcher} and {@link MpmcRingBuffer}
+ */
+public class IbanPrefetcherTest {
+
+    @Test
+    public void testRingBufferBounds() {
+        MpmcRingBuffer<Integer> buffer = new MpmcRingBuffer<>(3);
+        Assert.assertEquals(4, buffer.capacity());
+        Assert.assertNull(buffer.poll());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(buffer.offer(i));
+        }
+        Assert.assertFalse(buffer.offer(4));
+        Assert.assertEquals(4, buffer.size());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(Integer.valueOf(i), buffer.poll());
+        }
+        Assert.assertNull(buffer.poll());
+        Assert.assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void testRingBufferConcurrent() throws InterruptedException {
+        int perProducer = 50_000;
+        int producers = 3;
+        MpmcRingBuffer<Integer> buffer = new MpmcRingBuffer<>(64);
+        Set<Integer> consumed = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        AtomicInteger remaining = new AtomicInteger(perProducer * producers);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(producers * 2);
+        for (int p = 0; p < producers; p++) {
+            int offset = p * perProducer;
+            executorService.submit(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(offset + i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            executorService.submit(() -> {
+                while (remaining.get() > 0) {
+                    Integer value = buffer.poll();
+                    if (value == null) {
+                        Thread.yield();
+                    } else {
+                        Assert.assertTrue(consumed.add(value));
+                        remaining.decrementAndGet();
+                    }
+                }
+            });
+        }
+        executorService.shutdown();
+        Assert.assertTrue(executorService.awaitTermination(60, TimeUnit.SECONDS));
+        Assert.assertEquals(perProducer * producers, consumed.size());
+    }
+
+    @Test
+    public void testPrefetch() throws InterruptedException {
+        try (IbanPrefetcher prefetcher = new IbanPrefetcher(new DefaultIbanFormatter(),
+                CountryFormatProviderFactory.getDefaultCountryFormatProvider(),
+                Arrays.asList(CountryISO.AT, CountryISO.NL), 100, 20, 2).start()) {
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+            while ((prefetcher.available(CountryISO.AT) < 100 || prefetcher.available(CountryISO.NL) < 100) &&
+                    System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Set<String> ibans = new HashSet<>();
+            for (int i = 0; i < 100; i++) {
+                Iban iban = prefetcher.poll(CountryISO.AT);
+                Assert.assertNotNull(iban);
+                Assert.assertEquals(CountryISO.AT, iban.getCountryFormat().getCountryISO());
+                Assert.assertTrue(ibans.add(iban.asKey()));
+            }
+            Assert.assertNull(prefetcher.poll(CountryISO.DE));
+            Assert.assertEquals(100, prefetcher.getHits());
+            Assert.assertTrue(prefetcher.getMisses() >= 1);
+
+            // the poll crossing the low watermark wakes the producer up, which may have refilled while the polls went
+            // on and then stopped above the watermark rather than at the capacity
+            deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+            while (prefetcher.available(CountryISO.AT) <= 20 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertTrue(prefetcher.available(CountryISO.AT) > 20);
+        }
+    }
+
+    @Test (expected = IbanException.class)
+    public void testPrefetchThrowCountryNotSupported() {
+        new IbanPrefetcher(new DefaultIbanFormatter(), CountryFormatProviderFactory.getDefaultCountryFormatProvider(),
+                Collections.singletonList(CountryISO.GR), 10, 5, 1);
+    }
+}
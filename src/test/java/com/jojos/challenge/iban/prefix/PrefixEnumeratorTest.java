@@ -0,0 +1,136 @@
+package com.jojos.challenge.iban.prefix;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.api.IbanApi;
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.format.DefaultIbanFormatter;
+import com.jojos.challenge.iban.national.NationalCheckDigits;
+import com.jojos.challenge.iban.util.Helper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Test class for {@link PrefixEnumerator}
+ */
+public class PrefixEnumeratorTest {
+
+    @Test
+    public void testAscendingWithValidCheckDigits() {
+        // 1000 accounts of the BLZ, the last digit being the national check digit
+        PrefixEnumerator enumerator = IbanApi.enumerate(CountryISO.DE, "37040044053201");
+        Assert.assertEquals(1000, enumerator.getSize());
+        List<Iban> ibans = collect(enumerator);
+        Assert.assertEquals(1000, ibans.size());
+        String previous = "";
+        for (Iban iban : ibans) {
+            assertConsistent(iban);
+            String bban = String.valueOf(iban.getBban());
+            Assert.assertTrue(bban.startsWith("37040044053201"));
+            Assert.assertTrue(bban.compareTo(previous) > 0);
+            previous = bban;
+        }
+        Assert.assertTrue(String.valueOf(ibans.get(0).getBban()).startsWith("37040044053201000"));
+        Assert.assertTrue(String.valueOf(ibans.get(300).getBban()).startsWith("37040044053201300"));
+    }
+
+    @Test
+    public void testCarriesOverAlphaAndNumericCharacters() {
+        // the whole Dutch BBAN is free, the range crosses the carry from RABO9999999999 to RABP0000000000
+        PrefixEnumerator enumerator = PrefixEnumerator.of(CountryFormat.Netherlands, "", new DefaultIbanFormatter());
+        long rabp = ((('R' - 'A') * 26L + 'A' - 'A') * 26 + 'B' - 'A') * 26 + 'P' - 'A';
+        long from = rabp * 1_000_000_000L - 500;
+        List<Iban> ibans = collect(enumerator.range(from, from + 1000));
+        // the account numbers without a check digit are skipped
+        Assert.assertTrue(ibans.size() > 800 && ibans.size() < 1000);
+        String previous = "";
+        for (Iban iban : ibans) {
+            assertConsistent(iban);
+            Assert.assertTrue(NationalCheckDigits.isValid(CountryFormat.Netherlands, iban.getBban()));
+            String bban = String.valueOf(iban.getBban());
+            Assert.assertTrue(bban.startsWith("RABO999999") || bban.startsWith("RABP000000"));
+            Assert.assertTrue(bban.compareTo(previous) > 0);
+            previous = bban;
+        }
+        Assert.assertTrue(String.valueOf(ibans.get(0).getBban()).startsWith("RABO999999"));
+        Assert.assertTrue(String.valueOf(ibans.get(ibans.size() - 1).getBban()).startsWith("RABP000000"));
+    }
+
+    @Test
+    public void testElfproefAccountsAreAllEnumerated() {
+        // 4 account digits left, the last is the check digit
+        PrefixEnumerator enumerator = IbanApi.enumerate(CountryISO.NL, "RABO012345");
+        Assert.assertEquals(1000, enumerator.getSize());
+        Assert.assertFalse(enumerator.hasCharacteristics(Spliterator.SIZED));
+        List<Iban> ibans = collect(enumerator);
+        ibans.forEach(PrefixEnumeratorTest::assertConsistent);
+        Set<String> bbans = ibans.stream().map(iban -> String.valueOf(iban.getBban())).collect(Collectors.toSet());
+        Assert.assertEquals(ibans.size(), bbans.size());
+        Assert.assertEquals(PrefixSpaceTest.validBbans(CountryFormat.Netherlands, "RABO012345"), bbans);
+    }
+
+    @Test
+    public void testSplitsCoverTheRangeInOrder() {
+        PrefixEnumerator enumerator = IbanApi.enumerate(CountryISO.AT, "12345678901");
+        Assert.assertEquals(100_000, enumerator.getSize());
+        List<String> sequential = collect(IbanApi.enumerate(CountryISO.AT, "12345678901")).stream()
+                .map(Iban::asString).collect(Collectors.toList());
+        List<String> parallel = StreamSupport.stream(enumerator, true)
+                .map(Iban::asString).collect(Collectors.toList());
+        Assert.assertEquals(sequential, parallel);
+
+        // a split taken after the enumeration started
+        PrefixEnumerator started = IbanApi.enumerate(CountryISO.AT, "12345678901").range(10, 20);
+        List<String> parts = new ArrayList<>();
+        started.tryAdvance(iban -> parts.add(iban.asString()));
+        Spliterator<Iban> first = started.trySplit();
+        first.forEachRemaining(iban -> parts.add(iban.asString()));
+        started.forEachRemaining(iban -> parts.add(iban.asString()));
+        Assert.assertEquals(sequential.subList(10, 20), parts);
+    }
+
+    @Test
+    public void testPrefixCoveringTheNationalCheckDigit() {
+        List<Iban> ibans = collect(IbanApi.enumerate(CountryISO.DE, "370400440532013000"));
+        Assert.assertEquals(1, ibans.size());
+        Assert.assertEquals("DE89370400440532013000", ibans.get(0).asString());
+        ibans = collect(IbanApi.enumerate(CountryISO.NL, "RABO012345673"));
+        Assert.assertEquals(1, ibans.size());
+        Assert.assertEquals("RABO0123456738", String.valueOf(ibans.get(0).getBban()));
+        assertConsistent(ibans.get(0));
+    }
+
+    @Test
+    public void testInvalidPrefix() {
+        // a bad character, one character too many and a wrong national check digit
+        for (String prefix : Arrays.asList("3704004A", "3704004405320130000", "370400440532013001")) {
+            try {
+                IbanApi.enumerate(CountryISO.DE, prefix);
+                Assert.fail(prefix);
+            } catch (IbanException e) {
+                // expected
+            }
+        }
+    }
+
+    private static List<Iban> collect(Spliterator<Iban> spliterator) {
+        List<Iban> ibans = new ArrayList<>();
+        spliterator.forEachRemaining(ibans::add);
+        return ibans;
+    }
+
+    private static void assertConsistent(Iban iban) {
+        Assert.assertArrayEquals(iban.asString(), Helper.generateCheckDigits(iban.getBban(),
+                iban.getCountryFormat().getCountryISO()), iban.getCheckDigits());
+        Assert.assertTrue(iban.asString(), IbanApi.isValid(iban.asString()));
+    }
+}
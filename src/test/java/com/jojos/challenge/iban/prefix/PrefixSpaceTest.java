@@ -0,0 +1,158 @@
+package com.jojos.challenge.iban.prefix;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.api.IbanApi;
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.national.NationalCheckDigits;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Test class for {@link PrefixSpace} and {@link FeistelPermutation}
+ */
+public class PrefixSpaceTest {
+
+    @Test
+    public void testPermutationIsBijection() {
+        for (long domain : new long[]{1, 2, 3, 97, 1000, 4096}) {
+            FeistelPermutation permutation = new FeistelPermutation(domain, domain * 31);
+            boolean[] seen = new boolean[(int) domain];
+            for (long i = 0; i < domain; i++) {
+                long value = permutation.permute(i);
+                Assert.assertTrue(value >= 0 && value < domain);
+                Assert.assertFalse(seen[(int) value]);
+                seen[(int) value] = true;
+            }
+        }
+    }
+
+    @Test
+    public void testPrefixSpace() {
+        PrefixSpace space = PrefixSpace.of(CountryFormat.Germany, "37040044");
+        // the national check digit is not free
+        Assert.assertEquals(1_000_000_000L, space.getSize());
+        Set<Long> values = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            char[] bban = space.nextBban();
+            Assert.assertTrue(String.valueOf(bban).startsWith("37040044"));
+            Assert.assertTrue(NationalCheckDigits.isValid(CountryFormat.Germany, bban));
+            Assert.assertTrue(values.add(space.getCodec().encode(bban)));
+        }
+        Assert.assertEquals(10_000, space.getIssued());
+    }
+
+    @Test
+    public void testElfproefSpaceIsInjective() {
+        // 4 account digits left, the last is the check digit
+        PrefixSpace space = PrefixSpace.of(CountryFormat.Netherlands, "RABO012345");
+        Assert.assertEquals(1000, space.getSize());
+        Set<String> bbans = new HashSet<>();
+        char[] bban;
+        while ((bban = space.nextBban()) != null) {
+            Assert.assertTrue(NationalCheckDigits.isValid(CountryFormat.Netherlands, bban));
+            Assert.assertTrue(bbans.add(String.valueOf(bban)));
+        }
+        // every valid account is handed out, not only those with a 0 before the check digit
+        Assert.assertEquals(validBbans(CountryFormat.Netherlands, "RABO012345"), bbans);
+    }
+
+    @Test
+    public void testPartsAreDisjoint() {
+        PrefixSpace space = PrefixSpace.of(CountryFormat.Netherlands, "RABO012345", 42);
+        Set<String> whole = new HashSet<>();
+        for (long i = 0; i < space.getSize(); i++) {
+            char[] bban = space.bbanAt(i);
+            if (bban != null) {
+                whole.add(String.valueOf(bban));
+            }
+        }
+        Set<String> parts = new HashSet<>();
+        for (int part = 0; part < 3; part++) {
+            PrefixSpace partSpace = PrefixSpace.of(CountryFormat.Netherlands, "RABO012345", 42).part(part, 3);
+            Assert.assertEquals(part < 2 ? 333 : 334, partSpace.getSize());
+            char[] bban;
+            while ((bban = partSpace.nextBban()) != null) {
+                Assert.assertTrue(parts.add(String.valueOf(bban)));
+            }
+        }
+        Assert.assertEquals(whole, parts);
+    }
+
+    @Test
+    public void testGenerateForPrefix() {
+        Set<String> ibans = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            Iban iban = IbanApi.generateFor(CountryISO.NL, "RABO");
+            Assert.assertTrue(iban.asKey().startsWith("RABO", 4));
+            Assert.assertTrue(IbanApi.isValid(iban.asKey()));
+            Assert.assertTrue(ibans.add(iban.asKey()));
+        }
+    }
+
+    @Test
+    public void testGenerateForPrefixExhausted() {
+        // a single free digit
+        for (int i = 0; i < 10; i++) {
+            IbanApi.generateFor(CountryISO.AT, "190430023457320");
+        }
+        try {
+            IbanApi.generateFor(CountryISO.AT, "190430023457320");
+            Assert.fail("The prefix should be exhausted.");
+        } catch (IbanException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testPrefixCoveringTheCheckDigit() {
+        PrefixSpace space = PrefixSpace.of(CountryFormat.Germany, "370400440532013000");
+        Assert.assertEquals(1, space.getSize());
+        Assert.assertEquals("370400440532013000", String.valueOf(space.nextBban()));
+        try {
+            PrefixSpace.of(CountryFormat.Germany, "370400440532013001");
+            Assert.fail("The check digit of the prefix is invalid.");
+        } catch (IbanException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testPrefixCoveringTheBumpDigit() {
+        // the check digit of RABO012345672 cannot be solved, the elfproef would bump the last digit of the prefix
+        Assert.assertFalse(NationalCheckDigits.isValidPrefix(CountryFormat.Netherlands, "RABO012345672"));
+        try {
+            PrefixSpace.of(CountryFormat.Netherlands, "RABO012345672");
+            Assert.fail("The prefix admits no check digit.");
+        } catch (IbanException e) {
+            // expected
+        }
+        PrefixSpace space = PrefixSpace.of(CountryFormat.Netherlands, "RABO012345673");
+        Assert.assertEquals(1, space.getSize());
+        Assert.assertEquals("RABO0123456738", String.valueOf(space.nextBban()));
+    }
+
+    @Test (expected = IbanException.class)
+    public void testThrowInvalidPrefix() {
+        PrefixSpace.of(CountryFormat.Netherlands, "AB1");
+    }
+
+    /**
+     * @return all the BBANs starting with the prefix that pass the national check digit, by brute force
+     */
+    static Set<String> validBbans(CountryFormat countryFormat, String prefix) {
+        int free = countryFormat.getBbanFormat().getNumberOfCharacters() - prefix.length();
+        Set<String> bbans = new HashSet<>();
+        for (int i = 0; i < Math.pow(10, free); i++) {
+            char[] bban = (prefix + String.format("%0" + free + "d", i)).toCharArray();
+            if (NationalCheckDigits.isValid(countryFormat, bban)) {
+                bbans.add(String.valueOf(bban));
+            }
+        }
+        return bbans;
+    }
+}
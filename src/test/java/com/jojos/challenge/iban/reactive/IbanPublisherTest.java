@@ -0,0 +1,149 @@
+package com.jojos.challenge.iban.reactive;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormatProviderFactory;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.format.DefaultIbanFormatter;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for {@link IbanPublisher}
+ */
+public class IbanPublisherTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testDemandIsHonouredForSeveralSubscribers() throws InterruptedException {
+        IbanPublisher publisher = publisher(CountryISO.DE);
+        // re-requests 100 every time the previous 100 arrived, until 1000 arrived
+        TestSubscriber first = new TestSubscriber(100, 1000);
+        TestSubscriber second = new TestSubscriber(100, 1000);
+        publisher.subscribe(first);
+        publisher.subscribe(second);
+
+        Assert.assertTrue(first.done.await(30, TimeUnit.SECONDS));
+        Assert.assertTrue(second.done.await(30, TimeUnit.SECONDS));
+        // no IBAN beyond the demand
+        Thread.sleep(100);
+        Assert.assertEquals(1000, first.received.size());
+        Assert.assertEquals(1000, second.received.size());
+
+        Set<String> ibans = new HashSet<>();
+        for (Iban iban : first.received) {
+            Assert.assertTrue(ibans.add(iban.asKey()));
+        }
+        for (Iban iban : second.received) {
+            Assert.assertTrue(ibans.add(iban.asKey()));
+        }
+    }
+
+    @Test
+    public void testNonPositiveRequestSignalsError() throws InterruptedException {
+        TestSubscriber subscriber = new TestSubscriber(0, 0);
+        publisher(CountryISO.NL).subscribe(subscriber);
+        subscriber.subscription.request(-1);
+        Assert.assertTrue(subscriber.done.await(30, TimeUnit.SECONDS));
+        Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testUnsupportedCountrySignalsError() throws InterruptedException {
+        TestSubscriber subscriber = new TestSubscriber(10, 10);
+        publisher(CountryISO.GR).subscribe(subscriber);
+        Assert.assertTrue(subscriber.done.await(30, TimeUnit.SECONDS));
+        Assert.assertTrue(subscriber.error instanceof IbanException);
+        Assert.assertTrue(subscriber.received.isEmpty());
+    }
+
+    @Test
+    public void testUnboundedDemandYieldsTheExecutor() throws InterruptedException {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        try {
+            TestSubscriber subscriber = new TestSubscriber(0, 0);
+            new IbanPublisher(CountryISO.DE, new DefaultIbanFormatter(),
+                    CountryFormatProviderFactory.getDefaultCountryFormatProvider(), single).subscribe(subscriber);
+            subscriber.subscription.request(Long.MAX_VALUE);
+            // queued behind the first batch, runs before the second one
+            AtomicInteger receivedBefore = new AtomicInteger();
+            CountDownLatch ran = new CountDownLatch(1);
+            single.execute(() -> {
+                receivedBefore.set(subscriber.received.size());
+                subscriber.subscription.cancel();
+                ran.countDown();
+            });
+            Assert.assertTrue(ran.await(30, TimeUnit.SECONDS));
+            Assert.assertTrue(receivedBefore.get() > 0 && receivedBefore.get() <= IbanPublisher.MAX_BATCH);
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    private IbanPublisher publisher(CountryISO country) {
+        return new IbanPublisher(country, new DefaultIbanFormatter(),
+                CountryFormatProviderFactory.getDefaultCountryFormatProvider(), executor);
+    }
+
+    private static final class TestSubscriber implements Subscriber<Iban> {
+        private final int batch;
+        private final int total;
+        private final List<Iban> received = new CopyOnWriteArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Subscription subscription;
+        private volatile Throwable error;
+
+        private TestSubscriber(int batch, int total) {
+            this.batch = batch;
+            this.total = total;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            if (batch > 0) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onNext(Iban iban) {
+            received.add(iban);
+            if (received.size() == total) {
+                done.countDown();
+            } else if (batch > 0 && received.size() % batch == 0) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.jojos.challenge.iban.registry;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.util.BbanCodec;
+import com.jojos.challenge.iban.util.Helper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.jojos.challenge.iban.api.IbanFixtures.iban;
+
+/**
+ * Test class for {@link CompressedIbanRegistry} and {@link CompressedBlock}
+ */
+public class CompressedIbanRegistryTest {
+
+    @Test
+    public void testBlock() {
+        Random random = new Random(5);
+        long[] a = random.longs(10_000, 0, Long.MAX_VALUE).sorted().distinct().toArray();
+        long[] b = random.longs(333, 0, 1000).sorted().distinct().toArray();
+        CompressedBlock block = CompressedBlock.merge(CompressedBlock.encode(a, a.length),
+                CompressedBlock.encode(b, b.length));
+        long[] union = SortedLongs.union(a, b);
+        Assert.assertArrayEquals(union, block.toArray());
+        for (long value : union) {
+            Assert.assertTrue(block.contains(value));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextLong() & Long.MAX_VALUE;
+            Assert.assertEquals(Arrays.binarySearch(union, value) >= 0, block.contains(value));
+        }
+    }
+
+    @Test
+    public void testReserve() {
+        CompressedIbanRegistry registry = new CompressedIbanRegistry(100);
+        List<Iban> ibans = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            Iban iban = iban(CountryFormat.Germany, Helper.randomForCountry(CountryFormat.Germany));
+            ibans.add(iban);
+            Assert.assertTrue(registry.reserve(iban));
+            // an equal instance
+            Assert.assertFalse(registry.reserve(iban(CountryFormat.Germany, iban.getBban().clone())));
+        }
+        for (Iban iban : ibans) {
+            Assert.assertTrue(registry.isReserved(iban));
+        }
+        Assert.assertFalse(registry.isReserved(iban(CountryFormat.Germany, "370400440532013000".toCharArray())));
+        Assert.assertEquals(5_000, registry.size(CountryISO.DE));
+        Assert.assertEquals(0, registry.size(CountryISO.NL));
+
+        long[] snapshot = registry.snapshot(CountryFormat.Germany);
+        BbanCodec codec = BbanCodec.forCountry(CountryFormat.Germany);
+        Assert.assertArrayEquals(ibans.stream().mapToLong(iban -> codec.encode(iban.getBban())).sorted().toArray(),
+                snapshot);
+
+        CompressedIbanRegistry restored = new CompressedIbanRegistry(100);
+        restored.bulkLoad(CountryFormat.Germany, snapshot);
+        Assert.assertEquals(restored.reserveAll(ibans).size(), 0);
+    }
+
+    @Test
+    public void testConcurrentReserve() throws InterruptedException {
+        CompressedIbanRegistry registry = new CompressedIbanRegistry(64);
+        // every thread reserves the same bbans, each must be reserved exactly once
+        char[][] bbans = new char[20_000][];
+        for (int i = 0; i < bbans.length; i++) {
+            bbans[i] = Helper.randomForCountry(CountryFormat.Netherlands);
+        }
+        AtomicInteger reserved = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (char[] bban : bbans) {
+                    if (registry.reserve(iban(CountryFormat.Netherlands, bban))) {
+                        reserved.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long distinct = Arrays.stream(bbans).map(String::valueOf).distinct().count();
+        Assert.assertEquals(distinct, reserved.get());
+        Assert.assertEquals(distinct, registry.size(CountryISO.NL));
+    }
+
+    @Test
+    public void testFewBytesPerIban() {
+        CompressedIbanRegistry registry = new CompressedIbanRegistry();
+        Random random = new Random(9);
+        for (int i = 0; i < 1_000_000; i++) {
+            registry.reserve(iban(CountryFormat.Germany, Helper.randomForCountry(CountryFormat.Germany, random)));
+        }
+        long bytes = registry.getMemoryFootprint(CountryFormat.Germany);
+        // the deltas of a million random German BBANs take 6 bytes, the buffer adds 1 byte
+        Assert.assertTrue(bytes + " bytes", bytes < 8 * 1_000_000);
+    }
+}
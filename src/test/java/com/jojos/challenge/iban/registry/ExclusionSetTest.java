@@ -0,0 +1,100 @@
+package com.jojos.challenge.iban.registry;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.api.IbanApi;
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.util.Helper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.jojos.challenge.iban.api.IbanFixtures.iban;
+
+/**
+ * Test class for {@link ExclusionSet}
+ */
+public class ExclusionSetTest {
+
+    @Test
+    public void testLoad() throws IOException {
+        List<Iban> excluded = new ArrayList<>();
+        List<String> lines = new ArrayList<>();
+        for (CountryFormat countryFormat : CountryFormat.values()) {
+            for (int i = 0; i < 2000; i++) {
+                Iban iban = iban(countryFormat, Helper.randomForCountry(countryFormat));
+                excluded.add(iban);
+                lines.add(i % 2 == 0 ? iban.asString() : iban.asHumanReadableString());
+            }
+        }
+        lines.add(excluded.get(0).asString());
+        lines.add("not an iban");
+        lines.add("");
+        lines.add("XX00123");
+        Path file = Files.createTempFile("excluded", ".txt");
+        try {
+            Files.write(file, lines);
+            // small chunks so that lines cross chunk boundaries
+            ExclusionSet exclusionSet = ExclusionSet.load(file, 1000);
+            for (CountryFormat countryFormat : CountryFormat.values()) {
+                Assert.assertEquals(2000, exclusionSet.size(countryFormat));
+            }
+            for (Iban iban : excluded) {
+                Assert.assertTrue(exclusionSet.contains(iban));
+            }
+            for (int i = 0; i < 10_000; i++) {
+                CountryFormat countryFormat = CountryFormat.values()[i % CountryFormat.values().length];
+                Iban iban = iban(countryFormat, Helper.randomForCountry(countryFormat));
+                Assert.assertEquals(excluded.contains(iban), exclusionSet.contains(iban));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testGenerateSkipsExcluded() throws IOException {
+        // a single free digit, 3 of the 10 IBANs are real
+        String prefix = "190430023457399";
+        List<String> real = new ArrayList<>();
+        for (char c : new char[]{'1', '4', '7'}) {
+            real.add(iban(CountryFormat.Austria, (prefix + c).toCharArray()).asString());
+        }
+        Path file = Files.createTempFile("excluded", ".txt");
+        try {
+            Files.write(file, real);
+            IbanApi.loadExclusions(file);
+            Set<String> generated = new HashSet<>();
+            try {
+                while (true) {
+                    generated.add(IbanApi.generateFor(CountryISO.AT, prefix).asString());
+                }
+            } catch (IbanException e) {
+                // exhausted
+            }
+            Assert.assertEquals(7, generated.size());
+            Assert.assertTrue(generated.stream().noneMatch(real::contains));
+        } finally {
+            IbanApi.clearExclusions();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testOf() {
+        Iban iban = iban(CountryFormat.Germany, "370400440532013000".toCharArray());
+        ExclusionSet exclusionSet = ExclusionSet.of(Arrays.asList(iban.asString(), "DE00"));
+        Assert.assertTrue(exclusionSet.contains(iban));
+        Assert.assertEquals(1, exclusionSet.size(CountryFormat.Germany));
+        Assert.assertFalse(ExclusionSet.EMPTY.contains(iban));
+    }
+}
@@ -0,0 +1,95 @@
+package com.jojos.challenge.iban.registry;
+
+import com.jojos.challenge.iban.api.Iban;
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.country.CountryISO;
+import com.jojos.challenge.iban.util.BbanCodec;
+import com.jojos.challenge.iban.util.Helper;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.jojos.challenge.iban.api.IbanFixtures.iban;
+
+/**
+ * Test class for {@link RegistrySnapshot} and the bulk loading of {@link ConcurrentMapIbanRegistry}
+ */
+public class RegistrySnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndRestore() throws IOException {
+        IbanRegistry registry = new ConcurrentMapIbanRegistry();
+        List<Iban> generated = new ArrayList<>();
+        for (CountryFormat countryFormat : CountryFormat.values()) {
+            for (int i = 0; i < 5_000; i++) {
+                Iban iban = iban(countryFormat, Helper.randomForCountry(countryFormat));
+                if (registry.reserve(iban)) {
+                    generated.add(iban);
+                }
+            }
+        }
+        Path directory = folder.getRoot().toPath().resolve("snapshot");
+        Assert.assertEquals(generated.size(), RegistrySnapshot.writeAll(registry, directory));
+
+        IbanRegistry restored = new ConcurrentMapIbanRegistry();
+        Assert.assertEquals(generated.size(), RegistrySnapshot.restoreAll(restored, directory));
+        for (Iban iban : generated) {
+            Assert.assertTrue(restored.isReserved(iban));
+            Assert.assertFalse(restored.reserve(iban));
+        }
+        for (CountryFormat countryFormat : CountryFormat.values()) {
+            CountryISO countryISO = countryFormat.getCountryISO();
+            Assert.assertEquals(registry.size(countryISO), restored.size(countryISO));
+            Assert.assertArrayEquals(registry.snapshot(countryFormat), restored.snapshot(countryFormat));
+        }
+    }
+
+    @Test
+    public void testSnapshotMergesLoadedAndGenerated() {
+        IbanRegistry registry = new ConcurrentMapIbanRegistry();
+        BbanCodec codec = BbanCodec.forCountry(CountryFormat.Germany);
+        registry.bulkLoad(CountryFormat.Germany, new long[]{1, 5, 9});
+        registry.bulkLoad(CountryFormat.Germany, new long[]{2, 5});
+
+        Assert.assertFalse(registry.reserve(iban(CountryFormat.Germany, codec.decode(9))));
+        Assert.assertTrue(registry.reserve(iban(CountryFormat.Germany, codec.decode(7))));
+        Assert.assertArrayEquals(new long[]{1, 2, 5, 7, 9}, registry.snapshot(CountryFormat.Germany));
+    }
+
+    @Test
+    public void testEmptySnapshot() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("empty.snapshot");
+        Assert.assertEquals(0, RegistrySnapshot.write(new ConcurrentMapIbanRegistry(), CountryFormat.Austria, file));
+        IbanRegistry restored = new ConcurrentMapIbanRegistry();
+        Assert.assertEquals(0, RegistrySnapshot.restore(restored, file));
+        Assert.assertEquals(0, restored.size(CountryISO.AT));
+    }
+
+    @Test (expected = IbanException.class)
+    public void testRestoreThrowCorrupt() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("corrupt.snapshot");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        RegistrySnapshot.restore(new ConcurrentMapIbanRegistry(), file);
+    }
+
+    @Test (expected = IbanException.class)
+    public void testRestoreThrowSizeBeyondTheFile() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("oversized.snapshot");
+        // a valid header announcing far more entries than follow
+        Files.write(file, ByteBuffer.allocate(4 + 1 + 2 + 8 + 3).putInt(0x49424e53).put((byte) 1)
+                .put((byte) 'A').put((byte) 'T').putLong(Integer.MAX_VALUE - 8).put(new byte[]{1, 1, 1}).array());
+        RegistrySnapshot.restore(new ConcurrentMapIbanRegistry(), file);
+    }
+}
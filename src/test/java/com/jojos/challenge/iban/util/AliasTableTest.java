@@ -0,0 +1,53 @@
+package com.jojos.challenge.iban.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Test class for {@link AliasTable}
+ */
+public class AliasTableTest {
+
+    @Test
+    public void testFrequenciesFollowTheWeights() {
+        double[] weights = {60, 25, 15, 0, 0.5};
+        AliasTable table = new AliasTable(weights);
+        Random random = new Random(42);
+        int draws = 1_000_000;
+        int[] counts = new int[weights.length];
+        for (int i = 0; i < draws; i++) {
+            counts[table.sample(random)]++;
+        }
+        double sum = 100.5;
+        for (int i = 0; i < weights.length; i++) {
+            double expected = draws * weights[i] / sum;
+            // about 5 standard deviations of the binomial
+            Assert.assertEquals(expected, counts[i], 5 * Math.sqrt(expected) + 1);
+        }
+        Assert.assertEquals(0, counts[3]);
+    }
+
+    @Test
+    public void testSingleOutcome() {
+        AliasTable table = new AliasTable(new double[]{0, 3, 0});
+        Random random = new Random();
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(1, table.sample(random));
+        }
+        Assert.assertEquals(3, table.size());
+    }
+
+    @Test
+    public void testInvalidWeights() {
+        for (double[] weights : new double[][]{{}, {0, 0}, {1, -1}, {1, Double.NaN}, {1, Double.POSITIVE_INFINITY}}) {
+            try {
+                new AliasTable(weights);
+                Assert.fail();
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+}
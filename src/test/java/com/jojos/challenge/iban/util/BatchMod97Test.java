@@ -0,0 +1,57 @@
+package com.jojos.challenge.iban.util;
+
+import com.jojos.challenge.iban.country.CountryFormat;
+import com.jojos.challenge.iban.country.CountryISO;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Test class for {@link BatchMod97}
+ */
+public class BatchMod97Test {
+
+    @Test
+    public void testCheckNumbersMatchScalar() {
+        for (CountryFormat countryFormat : CountryFormat.values()) {
+            char[][] bbans = new char[1000][];
+            for (int i = 0; i < bbans.length; i++) {
+                bbans[i] = Helper.randomForCountry(countryFormat);
+            }
+            int[] checkNumbers = Helper.generateCheckNumbers(bbans, countryFormat.getCountryISO());
+            for (int i = 0; i < bbans.length; i++) {
+                int[] checkDigits = Helper.generateCheckDigits(bbans[i], countryFormat.getCountryISO());
+                Assert.assertEquals(checkDigits[0] * 10 + checkDigits[1], checkNumbers[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testValidateMixedCountries() {
+        Random random = new Random(3);
+        CountryFormat[] countryFormats = CountryFormat.values();
+        // not a multiple of the lane count
+        String[] ibans = new String[1001];
+        for (int i = 0; i < ibans.length; i++) {
+            CountryFormat countryFormat = countryFormats[random.nextInt(countryFormats.length)];
+            CountryISO countryISO = countryFormat.getCountryISO();
+            char[] bban = Helper.randomForCountry(countryFormat);
+            int[] checkDigits = Helper.generateCheckDigits(bban, countryISO);
+            if (i % 3 == 0) {
+                // wrong check digits
+                checkDigits[1] = (checkDigits[1] + 1) % 10;
+            }
+            ibans[i] = countryISO.getCode() + checkDigits[0] + checkDigits[1] + String.valueOf(bban);
+        }
+        ibans[5] = "XX00";
+        ibans[7] = null;
+
+        boolean[] valid = new boolean[ibans.length];
+        Helper.areValid(ibans, valid);
+        for (int i = 0; i < ibans.length; i++) {
+            Assert.assertEquals(Helper.isValid(ibans[i]), valid[i]);
+            Assert.assertEquals(i % 3 != 0 && i != 5 && i != 7, valid[i]);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.jojos.challenge.iban.util;
+
+import com.jojos.challenge.iban.api.IbanException;
+import com.jojos.challenge.iban.country.CountryFormat;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link BbanCodec}
+ */
+public class BbanCodecTest {
+
+    @Test
+    public void testCapacity() {
+        Assert.assertEquals(10_000_000_000_000_000L, BbanCodec.forCountry(CountryFormat.Austria).getCapacity());
+        Assert.assertEquals(1_000_000_000_000_000_000L, BbanCodec.forCountry(CountryFormat.Germany).getCapacity());
+        Assert.assertEquals(26L * 26 * 26 * 26 * 10_000_000_000L,
+                BbanCodec.forCountry(CountryFormat.Netherlands).getCapacity());
+    }
+
+    @Test
+    public void testEncode() {
+        BbanCodec germany = BbanCodec.forCountry(CountryFormat.Germany);
+        Assert.assertEquals(370400440532013000L, germany.encode("370400440532013000".toCharArray()));
+        Assert.assertEquals(0L, germany.encode("000000000000000000".toCharArray()));
+
+        BbanCodec netherlands = BbanCodec.forCountry(CountryFormat.Netherlands);
+        Assert.assertEquals(0L, netherlands.encode("AAAA0000000000".toCharArray()));
+        Assert.assertEquals(1L, netherlands.encode("AAAA0000000001".toCharArray()));
+        Assert.assertEquals(10_000_000_000L, netherlands.encode("AAAB0000000000".toCharArray()));
+        Assert.assertEquals(netherlands.getCapacity() - 1, netherlands.encode("ZZZZ9999999999".toCharArray()));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        for (CountryFormat countryFormat : CountryFormat.values()) {
+            BbanCodec codec = BbanCodec.forCountry(countryFormat);
+            for (int i = 0; i < 10_000; i++) {
+                char[] bban = Helper.randomForCountry(countryFormat);
+                Assert.assertArrayEquals(bban, codec.decode(codec.encode(bban)));
+            }
+        }
+    }
+
+    @Test
+    public void testTryEncodeInvalid() {
+        BbanCodec netherlands = BbanCodec.forCountry(CountryFormat.Netherlands);
+        Assert.assertEquals(-1L, netherlands.tryEncode("abna0417164300", 0));
+        Assert.assertEquals(-1L, netherlands.tryEncode("ABNA041716430", 0));
+        Assert.assertEquals(-1L, netherlands.tryEncode("ABNA04171643O0", 0));
+        Assert.assertEquals(netherlands.encode("ABNA0417164300".toCharArray()),
+                netherlands.tryEncode("NL91ABNA0417164300", 4));
+    }
+
+    @Test (expected = IbanException.class)
+    public void testEncodeThrowInvalid() {
+        BbanCodec.forCountry(CountryFormat.Austria).encode("19043002345732O1".toCharArray());
+    }
+}
@@ -0,0 +1,82 @@
+package com.jojos.challenge.iban.util;
+
+import com.jojos.challenge.iban.country.CountryFormat;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Test class for {@link BbanSampler}
+ */
+public class BbanSamplerTest {
+
+    private static final BigInteger TWO_64 = BigInteger.ONE.shiftLeft(64);
+
+    @Test
+    public void testUnsignedMultiplyHigh() {
+        Random random = new Random(42);
+        long[] edges = {0, 1, -1, Long.MAX_VALUE, Long.MIN_VALUE, 0xFFFFFFFFL, 0x100000000L};
+        for (int i = 0; i < 10_000; i++) {
+            long x = i < edges.length ? edges[i] : random.nextLong();
+            long y = i < edges.length ? edges[edges.length - 1 - i] : random.nextLong();
+            BigInteger expected = unsigned(x).multiply(unsigned(y)).shiftRight(64);
+            Assert.assertEquals(expected.longValue(), BbanSampler.unsignedMultiplyHigh(x, y));
+        }
+    }
+
+    @Test
+    public void testBoundedIsUniform() {
+        Random random = new Random(7);
+        int[] counts = new int[3];
+        for (int i = 0; i < 30_000; i++) {
+            counts[(int) BbanSampler.nextLong(random, 3)]++;
+        }
+        for (int count : counts) {
+            Assert.assertTrue(Math.abs(count - 10_000) < 500);
+        }
+        for (int i = 0; i < 1000; i++) {
+            long value = BbanSampler.nextLong(random, Long.MAX_VALUE);
+            Assert.assertTrue(value >= 0);
+        }
+    }
+
+    @Test
+    public void testSampleMatchesFormat() {
+        Random random = new Random(1);
+        for (CountryFormat countryFormat : CountryFormat.values()) {
+            BbanSampler sampler = BbanSampler.forCountry(countryFormat);
+            BbanCodec codec = BbanCodec.forCountry(countryFormat);
+            Assert.assertEquals(1, sampler.getDrawsPerBban());
+            for (int i = 0; i < 1000; i++) {
+                Assert.assertTrue(codec.tryEncode(sampler.sample(random), 0) >= 0);
+            }
+        }
+    }
+
+    @Test
+    public void testOneDrawPerGermanBban() {
+        CountingRandom random = new CountingRandom();
+        for (int i = 0; i < 1000; i++) {
+            BbanSampler.forCountry(CountryFormat.Germany).sample(random);
+        }
+        // one nextLong, i.e. two calls of next(32), per bban, rejections being rare
+        Assert.assertTrue(random.calls < 2100);
+    }
+
+    private static BigInteger unsigned(long value) {
+        BigInteger result = BigInteger.valueOf(value);
+        return value < 0 ? result.add(TWO_64) : result;
+    }
+
+    private static final class CountingRandom extends Random {
+        private int calls;
+
+        @Override
+        protected int next(int bits) {
+            calls++;
+            return super.next(bits);
+        }
+    }
+}
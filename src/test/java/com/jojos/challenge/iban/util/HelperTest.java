@@ -89,6 +89,45 @@ public class HelperTest {
         Assert.assertArrayEquals(new int[]{5, 5}, Helper.generateCheckDigits("ZOON7109812434".toCharArray(), CountryISO.NL));
     }
 
+    @Test
+    public void testIsValid() {
+        Assert.assertTrue(Helper.isValid("AT611904300234573201"));
+        Assert.assertTrue(Helper.isValid("AT022050302101023600"));
+        Assert.assertTrue(Helper.isValid("DE89370400440532013000"));
+        Assert.assertTrue(Helper.isValid("DE03111700001443333500"));
+        Assert.assertTrue(Helper.isValid("NL18ABNA0484869868"));
+        Assert.assertTrue(Helper.isValid("NL55ZOON7109812434"));
+        for (CountryFormat countryFormat : CountryFormat.values()) {
+            char[] bban = Helper.randomForCountry(countryFormat);
+            int[] checkDigits = Helper.generateCheckDigits(bban, countryFormat.getCountryISO());
+            Assert.assertTrue(Helper.isValid(countryFormat.getCountryISO().getCode() + checkDigits[0] +
+                    checkDigits[1] + String.valueOf(bban)));
+        }
+    }
+
+    @Test
+    public void testIsValidInvalid() {
+        Assert.assertFalse(Helper.isValid(null));
+        Assert.assertFalse(Helper.isValid(""));
+        Assert.assertFalse(Helper.isValid("DE8"));
+        // wrong check digits
+        Assert.assertFalse(Helper.isValid("DE88370400440532013000"));
+        Assert.assertFalse(Helper.isValid("NL19ABNA0484869868"));
+        // swapped digits
+        Assert.assertFalse(Helper.isValid("AT611904300234573210"));
+        // wrong length
+        Assert.assertFalse(Helper.isValid("DE8937040044053201300"));
+        // letter where a digit is expected
+        Assert.assertFalse(Helper.isValid("NL18ABNA04848698A8"));
+        // lower case country or bank code, spaces
+        Assert.assertFalse(Helper.isValid("nl18ABNA0484869868"));
+        Assert.assertFalse(Helper.isValid("NL18abna0484869868"));
+        Assert.assertFalse(Helper.isValid("NL18 ABNA 0484 8698 68"));
+        // unsupported or unassigned country
+        Assert.assertFalse(Helper.isValid("GB29NWBK60161331926819"));
+        Assert.assertFalse(Helper.isValid("XX29NWBK60161331926819"));
+    }
+
     @Test
     public void testMod97() {
         // check some online big numbers calculators